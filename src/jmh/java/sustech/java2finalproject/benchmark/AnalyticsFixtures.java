@@ -0,0 +1,179 @@
+package sustech.java2finalproject.benchmark;
+
+import sustech.java2finalproject.domain.Answer;
+import sustech.java2finalproject.domain.Owner;
+import sustech.java2finalproject.domain.Question;
+import sustech.java2finalproject.domain.Tag;
+import sustech.java2finalproject.feature.question.analysis.AnalyticsSnapshot;
+import sustech.java2finalproject.feature.question.analysis.ExceptionScanner;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Deterministic in-memory owners, tags, questions and answers for the benchmarks.
+ * <p>
+ * The same size always gives the same data. Tag use and reputation are skewed the way the real
+ * dump is: a few tags are on most questions, most owners have little reputation. Bodies come from a
+ * fixed pool of HTML-free texts that mention exceptions, so a million questions do not need a
+ * million distinct strings.
+ */
+public final class AnalyticsFixtures {
+
+    private static final long SEED = 20241201L;
+    private static final int TAGS = 2_000;
+    private static final int BODY_POOL = 256;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2015, 1, 1, 0, 0);
+
+    private static final String[] FILLER = {
+            "when", "calling", "the", "method", "from", "my", "spring", "controller", "I", "get", "an", "error",
+            "at", "runtime", "list", "map", "stream", "thread", "lambda", "returns", "null", "value", "java", "lang",
+            "how", "can", "fix", "this", "compile", "class", "interface", "generic", "array", "index", "loop"
+    };
+
+    public final List<Owner> owners;
+    public final List<Tag> tags;
+    public final List<Question> questions;
+    public final List<Answer> answers;
+
+    private AnalyticsFixtures(List<Owner> owners, List<Tag> tags, List<Question> questions, List<Answer> answers) {
+        this.owners = owners;
+        this.tags = tags;
+        this.questions = questions;
+        this.answers = answers;
+    }
+
+    public static AnalyticsFixtures generate(int questionCount) {
+        Random random = new Random(SEED);
+
+        List<Owner> owners = new ArrayList<>(questionCount / 4 + 1);
+        for (int i = 0; i < questionCount / 4 + 1; i++) {
+            Owner owner = new Owner();
+            owner.setId(i + 1);
+            owner.setAccountId((long) i + 1);
+            // Heavy tail: most owners below 100, a few in the hundreds of thousands
+            owner.setReputation(random.nextInt(20) == 0 ? null : (long) Math.pow(10, random.nextDouble() * 5.5));
+            owner.setDisplayName("user" + i);
+            owners.add(owner);
+        }
+
+        List<Tag> tags = new ArrayList<>(TAGS);
+        for (int i = 0; i < TAGS; i++) {
+            Tag tag = new Tag();
+            tag.setId(i + 1);
+            tag.setName(i == 0 ? "java" : "tag-" + i);
+            tags.add(tag);
+        }
+
+        String[] bodies = new String[BODY_POOL];
+        String[] titles = new String[BODY_POOL];
+        for (int i = 0; i < BODY_POOL; i++) {
+            bodies[i] = text(random, 40 + random.nextInt(120));
+            titles[i] = text(random, 6 + random.nextInt(8));
+        }
+
+        List<Question> questions = new ArrayList<>(questionCount);
+        List<Answer> answers = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            Question question = new Question();
+            question.setId(i + 1);
+            question.setQuestionStackId(10_000_000L + i);
+            question.setOwner(owners.get(skewed(random, owners.size())));
+            question.setScore(random.nextInt(10) == 0 ? null : (long) (random.nextGaussian() * 5 + 2));
+            question.setViewCount((long) Math.pow(10, random.nextDouble() * 5));
+            question.setAnswerCount((long) random.nextInt(6));
+            question.setCreationDate(EPOCH.plusMinutes(random.nextInt(10 * 365 * 24 * 60)));
+            question.setTitle(titles[random.nextInt(BODY_POOL)]);
+            question.setBody(bodies[random.nextInt(BODY_POOL)]);
+
+            // Every question is tagged java plus up to four skewed others
+            Set<Tag> questionTags = new LinkedHashSet<>();
+            questionTags.add(tags.get(0));
+            int extra = random.nextInt(5);
+            for (int t = 0; t < extra; t++) {
+                questionTags.add(tags.get(1 + skewed(random, TAGS - 1)));
+            }
+            question.setTags(questionTags);
+            questions.add(question);
+
+            int answerCount = random.nextInt(3);
+            for (int a = 0; a < answerCount; a++) {
+                Answer answer = new Answer();
+                answer.setId(answers.size() + 1);
+                answer.setAnswerId(20_000_000L + answers.size());
+                answer.setQuestionStackId(question.getQuestionStackId());
+                answer.setIsAccepted(a == 0 && random.nextBoolean());
+                answer.setScore((int) (random.nextGaussian() * 4 + 1));
+                answer.setCreatedDate(question.getCreationDate().plusMinutes(random.nextInt(60 * 24 * 30)));
+                answer.setOwnerReputation(random.nextInt(20) == 0 ? null : (long) Math.pow(10, random.nextDouble() * 5.5));
+                answer.setAnswerLength((long) 50 + random.nextInt(2000));
+                answer.setQuestion(question);
+                answers.add(answer);
+            }
+        }
+        return new AnalyticsFixtures(owners, tags, questions, answers);
+    }
+
+    // Same layout AnalyticsSnapshotHolder builds from the database, positions are list positions
+    public AnalyticsSnapshot snapshot() {
+        long[] ownerReputation = new long[owners.size()];
+        Map<Integer, Integer> ownerIndex = new HashMap<>(owners.size() * 2);
+        for (int i = 0; i < owners.size(); i++) {
+            ownerIndex.put(owners.get(i).getId(), i);
+            ownerReputation[i] = orNull(owners.get(i).getReputation());
+        }
+        String[] tagNames = new String[tags.size()];
+        Map<Integer, Integer> tagIndex = new HashMap<>(tags.size() * 2);
+        for (int i = 0; i < tags.size(); i++) {
+            tagIndex.put(tags.get(i).getId(), i);
+            tagNames[i] = tags.get(i).getName();
+        }
+
+        int count = questions.size();
+        int[] questionOwner = new int[count];
+        long[] score = new long[count];
+        long[] viewCount = new long[count];
+        long[] answerCount = new long[count];
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] = offsets[i] + questions.get(i).getTags().size();
+        }
+        int[] questionTags = new int[offsets[count]];
+        for (int i = 0; i < count; i++) {
+            Question question = questions.get(i);
+            questionOwner[i] = question.getOwner() != null ? ownerIndex.get(question.getOwner().getId()) : -1;
+            score[i] = orNull(question.getScore());
+            viewCount[i] = orNull(question.getViewCount());
+            answerCount[i] = orNull(question.getAnswerCount());
+            int t = offsets[i];
+            for (Tag tag : question.getTags()) {
+                questionTags[t++] = tagIndex.get(tag.getId());
+            }
+        }
+        return new AnalyticsSnapshot(ownerReputation, questionOwner, score, viewCount, answerCount, offsets,
+                questionTags, tagNames, LocalDateTime.now());
+    }
+
+    // Roughly Zipf: index i is picked about 1 / (i + 1) as often as index 0
+    private static int skewed(Random random, int size) {
+        return (int) Math.min(size - 1, Math.floor(Math.pow(size + 1, random.nextDouble()) - 1));
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) text.append(' ');
+            if (random.nextInt(25) == 0) {
+                String exception = ExceptionScanner.COMMON_EXCEPTIONS[skewed(random, ExceptionScanner.COMMON_EXCEPTIONS.length)];
+                text.append(random.nextBoolean() ? "java.lang." + exception + ":" : exception);
+            } else {
+                text.append(FILLER[random.nextInt(FILLER.length)]);
+            }
+        }
+        return text.toString();
+    }
+
+    private static long orNull(Long value) {
+        return value != null ? value : AnalyticsSnapshot.NULL;
+    }
+}
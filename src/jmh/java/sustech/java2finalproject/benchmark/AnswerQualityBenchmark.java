@@ -0,0 +1,32 @@
+package sustech.java2finalproject.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import sustech.java2finalproject.domain.Answer;
+import sustech.java2finalproject.feature.question.analysis.AnswerQualityScorer;
+
+import java.util.List;
+
+// Quality score of every answer, the per-row work of ingest scoring and AnswerQualityMaintainer.recompute
+@State(Scope.Benchmark)
+public class AnswerQualityBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int questions;
+
+    private List<Answer> answers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        answers = AnalyticsFixtures.generate(questions).answers;
+    }
+
+    @Benchmark
+    public void scoreAll(Blackhole blackhole) {
+        for (Answer answer : answers) {
+            Long elapsedHours = AnswerQualityScorer.elapsedHours(answer.getQuestion().getCreationDate(), answer.getCreatedDate());
+            blackhole.consume(AnswerQualityScorer.qualityScore(answer.getIsAccepted(), elapsedHours,
+                    answer.getOwnerReputation(), answer.getScore()));
+        }
+    }
+}
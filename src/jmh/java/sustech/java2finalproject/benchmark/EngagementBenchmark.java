@@ -0,0 +1,35 @@
+package sustech.java2finalproject.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sustech.java2finalproject.feature.question.analysis.AnalyticsSnapshot;
+import sustech.java2finalproject.feature.question.analysis.EngagementEngine;
+import sustech.java2finalproject.feature.question.dto.TopEngagementResponse;
+
+import java.util.List;
+
+// Top engagement tags, for all owners and for owners above a reputation, what QuestionServiceImpl.calculateTopEngagementTag runs
+@State(Scope.Benchmark)
+public class EngagementBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int questions;
+
+    private final EngagementEngine engine = new EngagementEngine();
+    private AnalyticsSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = AnalyticsFixtures.generate(questions).snapshot();
+    }
+
+    @Benchmark
+    public List<TopEngagementResponse> allOwners() {
+        return engine.topTags(snapshot, owner -> true, 10);
+    }
+
+    @Benchmark
+    public List<TopEngagementResponse> topOwners() {
+        long[] reputation = snapshot.ownerReputation();
+        return engine.topTags(snapshot, owner -> reputation[owner] != AnalyticsSnapshot.NULL && reputation[owner] >= 1000, 10);
+    }
+}
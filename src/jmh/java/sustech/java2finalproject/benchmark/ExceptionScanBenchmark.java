@@ -0,0 +1,33 @@
+package sustech.java2finalproject.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sustech.java2finalproject.domain.Question;
+import sustech.java2finalproject.feature.question.analysis.ExceptionScanner;
+
+import java.util.List;
+
+// Exception mention counting over every title and body, the work ErrorAnalysis used to do per request and ingestion now does once
+@State(Scope.Benchmark)
+public class ExceptionScanBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int questions;
+
+    private final ExceptionScanner scanner = new ExceptionScanner();
+    private List<Question> fixtures;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = AnalyticsFixtures.generate(questions).questions;
+    }
+
+    @Benchmark
+    public int[] scanAll() {
+        int[] counts = scanner.newCounts();
+        for (Question question : fixtures) {
+            scanner.scan(question.getTitle(), counts);
+            scanner.scan(question.getBody(), counts);
+        }
+        return counts;
+    }
+}
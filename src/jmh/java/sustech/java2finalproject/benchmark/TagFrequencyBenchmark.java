@@ -0,0 +1,48 @@
+package sustech.java2finalproject.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sustech.java2finalproject.domain.Question;
+import sustech.java2finalproject.domain.Tag;
+import sustech.java2finalproject.feature.question.analysis.AnalyticsSnapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Questions per tag, counted over entities the way the old code walked tag.getQuestions() and over the snapshot columns
+@State(Scope.Benchmark)
+public class TagFrequencyBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int questions;
+
+    private List<Question> fixtures;
+    private AnalyticsSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AnalyticsFixtures generated = AnalyticsFixtures.generate(questions);
+        fixtures = generated.questions;
+        snapshot = generated.snapshot();
+    }
+
+    @Benchmark
+    public Map<String, Long> entities() {
+        Map<String, Long> frequencies = new HashMap<>();
+        for (Question question : fixtures) {
+            for (Tag tag : question.getTags()) {
+                frequencies.merge(tag.getName(), 1L, Long::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    @Benchmark
+    public int[] snapshotColumns() {
+        int[] frequencies = new int[snapshot.tagCount()];
+        for (int tag : snapshot.questionTags()) {
+            frequencies[tag]++;
+        }
+        return frequencies;
+    }
+}
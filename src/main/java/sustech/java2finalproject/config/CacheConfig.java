@@ -0,0 +1,54 @@
+package sustech.java2finalproject.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import sustech.java2finalproject.feature.data.DatasetVersion;
+import sustech.java2finalproject.feature.question.dto.FailingPackagesResponse;
+
+import java.time.Duration;
+import java.util.Collection;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String VERSIONED_KEY = "versionedKeyGenerator";
+
+    // Key is (dataset version, method, arguments), so a result is only ever served for the data it was computed on
+    @Bean(VERSIONED_KEY)
+    public KeyGenerator versionedKeyGenerator(DatasetVersion datasetVersion) {
+        return (target, method, params) -> {
+            Object[] parts = new Object[params.length + 2];
+            parts[0] = datasetVersion.current();
+            parts[1] = method.getName();
+            System.arraycopy(params, 0, parts, 2, params.length);
+            return new SimpleKey(parts);
+        };
+    }
+
+    // Each cache is bounded by the number of result rows it holds rather than entries, a top-N for a huge N weighs N
+    @Bean
+    public Caffeine<Object, Object> caffeine(@Value("${analytics.cache.maximum-rows:100000}") long maximumRows,
+                                             @Value("${analytics.cache.expire-after-write:PT6H}") Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maximumRows)
+                .weigher((Object key, Object value) -> rows(value))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats();
+    }
+
+    private static int rows(Object value) {
+        if (value instanceof Collection<?> rows) {
+            return Math.max(1, rows.size());
+        }
+        if (value instanceof FailingPackagesResponse response) {
+            return Math.max(1, response.packages().size() + response.rootCauses().size());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,89 @@
+package sustech.java2finalproject.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+@Configuration
+public class MetricsConfig {
+
+    // Makes @Timed work on any bean, not just on controllers
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(MeterRegistry registry) {
+        StatementCounter counter = new StatementCounter(registry);
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+
+    // Records how many statements Hibernate sent while serving each request, per endpoint. Requests that
+    // went async ran their SQL on AnalyticsExecutor, which records it as analytics.statements per endpoint.
+    @Bean
+    public OncePerRequestFilter statementsPerRequestFilter(MeterRegistry registry) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                StatementCounter.reset();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    int statements = StatementCounter.reset();
+                    // An async request has not run its work on this thread, a 0 would only drag the summary down
+                    if (!request.isAsyncStarted()) {
+                        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                        registry.summary("hibernate.statements.per.request",
+                                        "uri", pattern != null ? pattern.toString() : "UNKNOWN",
+                                        "method", request.getMethod())
+                                .record(statements);
+                    }
+                }
+            }
+        };
+    }
+
+    // Counts every SQL statement Hibernate prepares, in total and for the current thread
+    public static final class StatementCounter implements StatementInspector {
+
+        private static final ThreadLocal<int[]> CURRENT = ThreadLocal.withInitial(() -> new int[1]);
+
+        private final Counter total;
+
+        public StatementCounter(MeterRegistry registry) {
+            this.total = Counter.builder("hibernate.statements.prepared")
+                    .description("SQL statements prepared by Hibernate")
+                    .register(registry);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            total.increment();
+            CURRENT.get()[0]++;
+            return sql;
+        }
+
+        // Count on this thread since the last reset
+        public static int reset() {
+            int[] current = CURRENT.get();
+            int count = current[0];
+            current[0] = 0;
+            return count;
+        }
+    }
+}
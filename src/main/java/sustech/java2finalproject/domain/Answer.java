@@ -25,6 +25,11 @@ public class Answer {
     private Long userId;
     private Long ownerReputation;
     private Long answerLength;
+    private Long codeLength;
+
+    // Derived at ingest by AnswerQualityScorer, recomputed by AnswerQualityMaintainer when the weights change
+    private Long elapsedHours;
+    private Double qualityScore;
 
 
     @ManyToOne
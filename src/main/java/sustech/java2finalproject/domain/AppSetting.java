@@ -0,0 +1,20 @@
+package sustech.java2finalproject.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Small named values the application keeps for itself between runs, e.g. the fingerprint of the stored answer scores
+@Getter
+@Setter
+@Entity
+@Table(name = "app_settings")
+public class AppSetting {
+    @Id
+    private String name;
+    @Column(columnDefinition = "TEXT")
+    private String value;
+    private LocalDateTime updatedAt;
+}
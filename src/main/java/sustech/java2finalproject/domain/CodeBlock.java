@@ -0,0 +1,30 @@
+package sustech.java2finalproject.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// A <pre> block or inline <code> span of a question or answer body, extracted once at ingest
+@Getter
+@Setter
+@Entity
+@Table(name = "code_blocks", indexes = {
+        @Index(name = "idx_code_blocks_question_id", columnList = "question_id, position"),
+        @Index(name = "idx_code_blocks_answer_id", columnList = "answer_id, position")})
+public class CodeBlock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    // questions.id for a block of a question body, answer.id for one of an answer body; the other is null
+    @Column(name = "question_id")
+    private Integer questionId;
+    @Column(name = "answer_id")
+    private Integer answerId;
+    // Order within the body
+    private Integer position;
+    private Boolean inline;
+    private Integer length;
+    @Column(columnDefinition = "TEXT")
+    private String code;
+}
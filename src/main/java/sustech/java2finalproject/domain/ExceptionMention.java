@@ -0,0 +1,35 @@
+package sustech.java2finalproject.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// How often one exception (id from ExceptionScanner) is mentioned in one question's title and body
+@Getter
+@Setter
+@Entity
+@Table(name = "question_exceptions",
+        indexes = @Index(name = "idx_question_exceptions_exception_id", columnList = "exception_id"))
+@IdClass(ExceptionMention.Key.class)
+public class ExceptionMention {
+    @Id
+    private Integer questionId;
+    @Id
+    private Integer exceptionId;
+    private Integer mentionCount;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer questionId;
+        private Integer exceptionId;
+    }
+}
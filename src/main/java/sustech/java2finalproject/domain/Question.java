@@ -29,13 +29,18 @@ public class Question{
     private String title;
     @Column(columnDefinition = "TEXT")
     private String body;
+    // Plain text of body and the total length of its code blocks, see HtmlPreprocessor; the blocks are in code_blocks
+    @Column(columnDefinition = "TEXT")
+    private String bodyText;
+    private Integer bodyTextLength;
+    private Integer codeLength;
 
 
     @ManyToOne
     private Owner owner;
 
     @ManyToMany
-    @JoinTable(joinColumns=@JoinColumn(name="question_id", referencedColumnName = "id"),
+    @JoinTable(name = "questions_tags", joinColumns=@JoinColumn(name="question_id", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name="tag_id", referencedColumnName = "id"))
     private Set<Tag> tags;
 
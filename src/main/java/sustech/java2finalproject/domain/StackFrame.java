@@ -0,0 +1,46 @@
+package sustech.java2finalproject.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// One "at pkg.Class.method(File:line)" line of a StackTraceCause, position 0 is the top of its stack
+@Getter
+@Setter
+@Entity
+@Table(name = "stack_frames")
+@IdClass(StackFrame.Key.class)
+public class StackFrame {
+    @Id
+    private Integer questionId;
+    @Id
+    private Integer trace;
+    @Id
+    private Integer cause;
+    @Id
+    private Integer position;
+    // Empty for the default package
+    private String packageName;
+    private String className;
+    private String methodName;
+    private Integer lineNumber;
+    // The frame the trace is blamed on, exactly one per trace, see StackTraceParser
+    private Boolean failing;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer questionId;
+        private Integer trace;
+        private Integer cause;
+        private Integer position;
+    }
+}
@@ -0,0 +1,41 @@
+package sustech.java2finalproject.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// One exception of a stack trace found in a question's code blocks, position 0 is the outermost, see StackTraceParser
+@Getter
+@Setter
+@Entity
+@Table(name = "stack_trace_causes")
+@IdClass(StackTraceCause.Key.class)
+public class StackTraceCause {
+    @Id
+    private Integer questionId;
+    // Trace number within the question
+    @Id
+    private Integer trace;
+    // Position in the "Caused by" chain
+    @Id
+    private Integer position;
+    private String exceptionClass;
+    // The last of the chain
+    private Boolean rootCause;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer questionId;
+        private Integer trace;
+        private Integer position;
+    }
+}
@@ -0,0 +1,19 @@
+package sustech.java2finalproject.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Running totals over the questions carrying one tag, kept up to date at ingest time by TagStatsMaintainer
+@Getter
+@Setter
+@Entity
+@Table(name = "tag_stats")
+public class TagStats {
+    @Id
+    private Integer tagId;
+    private Long questionCount;
+    private Long scoreSum;
+    private Long viewSum;
+    private Long answerCountSum;
+}
@@ -0,0 +1,44 @@
+package sustech.java2finalproject.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Totals over the questions with one tag created in one day, week or month, maintained by TagTrendMaintainer
+@Getter
+@Setter
+@Entity
+@Table(name = "tag_trends",
+        indexes = @Index(name = "idx_tag_trends_granularity_bucket", columnList = "granularity, bucket_start"))
+@IdClass(TagTrend.Key.class)
+public class TagTrend {
+    @Id
+    private Integer tagId;
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TrendGranularity granularity;
+    @Id
+    private LocalDate bucketStart;
+    private Long questionCount;
+    private Long scoreSum;
+    private Long viewSum;
+    private Long answerCountSum;
+    private Long reputationSum;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer tagId;
+        private TrendGranularity granularity;
+        private LocalDate bucketStart;
+    }
+}
@@ -0,0 +1,32 @@
+package sustech.java2finalproject.domain;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// Bucket sizes of the tag trend rollups, each bucket starts on the day bucketStart returns
+public enum TrendGranularity {
+    DAY("day"),
+    // Weeks start on Monday, the same as date_trunc('week', ...)
+    WEEK("week"),
+    MONTH("month");
+
+    private final String sqlUnit;
+
+    TrendGranularity(String sqlUnit) {
+        this.sqlUnit = sqlUnit;
+    }
+
+    // Unit name for date_trunc
+    public String sqlUnit() {
+        return sqlUnit;
+    }
+
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+}
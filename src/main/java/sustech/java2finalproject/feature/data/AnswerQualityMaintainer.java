@@ -0,0 +1,96 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.feature.question.analysis.AnswerQualityScorer;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the elapsed_hours and quality_score columns of the answer table in line with
+ * {@link AnswerQualityScorer}.
+ * <p>
+ * Both ingestion paths score answers as they insert them. The fingerprint of the weights the stored
+ * scores were computed with is kept in app_settings; when it differs from the current one at startup,
+ * or some answers have no score yet, {@link #recompute()} rescores every answer.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnswerQualityMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerQualityMaintainer.class);
+
+    static final String FINGERPRINT_SETTING = "answer_quality.fingerprint";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppSettings appSettings;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeIfStale() {
+        String stored = appSettings.get(FINGERPRINT_SETTING).orElse(null);
+        Boolean unscored = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM answer WHERE quality_score IS NULL)", Boolean.class);
+        if (!Objects.equals(stored, AnswerQualityScorer.FINGERPRINT) || Boolean.TRUE.equals(unscored)) {
+            logger.info("Stored answer quality scores are stale (fingerprint {}, now {})", stored,
+                    AnswerQualityScorer.FINGERPRINT);
+            if (recompute() > 0) {
+                eventPublisher.publishEvent(new DatasetChangedEvent("answer quality recompute at startup"));
+            }
+        }
+    }
+
+    // Rescores every answer in id order, one page per transaction, and returns how many were scored
+    public int recompute() {
+        long start = System.nanoTime();
+        int scored = 0;
+        int lastId = 0;
+        while (true) {
+            int afterId = lastId;
+            List<Object[]> page = jdbcTemplate.query(
+                    "SELECT a.id, a.is_accepted, a.owner_reputation, a.score, a.created_date, q.creation_date " +
+                            "FROM answer a LEFT JOIN questions q ON q.id = a.question_id " +
+                            "WHERE a.id > ? ORDER BY a.id LIMIT ?",
+                    (rs, rowNum) -> {
+                        Long elapsedHours = AnswerQualityScorer.elapsedHours(rs.getObject(6, LocalDateTime.class),
+                                rs.getObject(5, LocalDateTime.class));
+                        double qualityScore = AnswerQualityScorer.qualityScore(rs.getObject(2, Boolean.class),
+                                elapsedHours, rs.getObject(3, Long.class), rs.getObject(4, Integer.class));
+                        return new Object[]{rs.getInt(1), elapsedHours, qualityScore};
+                    },
+                    afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "UPDATE answer SET elapsed_hours = ?, quality_score = ? WHERE id = ?",
+                    page, batchSize, (ps, row) -> {
+                        ps.setObject(1, row[1], Types.BIGINT);
+                        ps.setDouble(2, (Double) row[2]);
+                        ps.setInt(3, (Integer) row[0]);
+                    }));
+
+            scored += page.size();
+            lastId = (Integer) page.get(page.size() - 1)[0];
+        }
+        appSettings.put(FINGERPRINT_SETTING, AnswerQualityScorer.FINGERPRINT);
+        logger.info("Rescored {} answers in {} ms", scored, (System.nanoTime() - start) / 1_000_000);
+        return scored;
+    }
+}
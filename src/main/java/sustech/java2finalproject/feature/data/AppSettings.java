@@ -0,0 +1,29 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+// Read and write access to the app_settings table
+@Component
+@RequiredArgsConstructor
+public class AppSettings {
+
+    private static final String UPSERT_SETTING =
+            "INSERT INTO app_settings (name, value, updated_at) VALUES (?, ?, now()) " +
+                    "ON CONFLICT (name) DO UPDATE SET value = EXCLUDED.value, updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<String> get(String name) {
+        List<String> values = jdbcTemplate.queryForList("SELECT value FROM app_settings WHERE name = ?", String.class, name);
+        return values.isEmpty() ? Optional.empty() : Optional.ofNullable(values.get(0));
+    }
+
+    public void put(String name, String value) {
+        jdbcTemplate.update(UPSERT_SETTING, name, value);
+    }
+}
@@ -0,0 +1,102 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills in body_text, body_text_length, code_length and the code_blocks of questions that were
+ * stored before {@link HtmlPreprocessor} existed.
+ * <p>
+ * Both ingestion paths write these as they insert a question, so this only has work to do once,
+ * at the first startup after the columns were added, or when {@link #backfill()} is called.
+ */
+@Component
+@RequiredArgsConstructor
+public class BodyTextMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BodyTextMaintainer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HtmlPreprocessor htmlPreprocessor;
+    private final BulkUpsertRepository upserts;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    // Before the other startup backfills, StackTraceIndexer reads the code_blocks written here
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillIfMissing() {
+        Boolean missing = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM questions WHERE body_text IS NULL AND body IS NOT NULL)", Boolean.class);
+        if (Boolean.TRUE.equals(missing)) {
+            logger.info("Some questions have no preprocessed body yet");
+            if (backfill() > 0) {
+                eventPublisher.publishEvent(new DatasetChangedEvent("body text backfill at startup"));
+            }
+        }
+    }
+
+    // Preprocesses every question body again in id order, one page per transaction, and returns how many were done
+    public int backfill() {
+        long start = System.nanoTime();
+        int processed = 0;
+        int lastId = 0;
+        while (true) {
+            List<Object[]> page = jdbcTemplate.query(
+                    "SELECT id, body FROM questions WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getString(2)},
+                    lastId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<PreprocessedHtml> bodies = htmlPreprocessor.processAll(page.stream().map(row -> (String) row[1]).toList());
+            Map<Integer, PreprocessedHtml> byQuestion = new LinkedHashMap<>();
+            for (int i = 0; i < page.size(); i++) {
+                byQuestion.put((Integer) page.get(i)[0], bodies.get(i));
+            }
+            List<Map.Entry<Integer, PreprocessedHtml>> rows = new ArrayList<>(byQuestion.entrySet());
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(
+                        "UPDATE questions SET body_text = ?, body_text_length = ?, code_length = ? WHERE id = ?",
+                        rows, batchSize, (ps, row) -> {
+                            ps.setString(1, row.getValue().text());
+                            ps.setInt(2, row.getValue().textLength());
+                            ps.setInt(3, row.getValue().codeLength());
+                            ps.setInt(4, row.getKey());
+                        });
+                // The page's blocks are replaced as a whole, so running this twice does not duplicate them
+                jdbcTemplate.update(con -> {
+                    var ps = con.prepareStatement("DELETE FROM code_blocks WHERE question_id = ANY(?)");
+                    ps.setArray(1, con.createArrayOf("integer", byQuestion.keySet().toArray()));
+                    return ps;
+                });
+                upserts.insertCodeBlocks(byQuestion);
+            });
+
+            processed += page.size();
+            lastId = (Integer) page.get(page.size() - 1)[0];
+        }
+        logger.info("Preprocessed {} question bodies in {} ms", processed, (System.nanoTime() - start) / 1_000_000);
+        return processed;
+    }
+}
@@ -0,0 +1,249 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.feature.data.BulkUpsertRepository.NewAnswer;
+import sustech.java2finalproject.feature.data.BulkUpsertRepository.StoredQuestion;
+import sustech.java2finalproject.feature.data.BulkUpsertRepository.Upserted;
+import sustech.java2finalproject.feature.data.dto.IngestionReport;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Bulk ingestion path for Stack Exchange question items.
+ * <p>
+ * Items are written one chunk of {@code ingest.batch-size} questions per transaction through
+ * {@link BulkUpsertRepository}: owners, tags, questions, tag links and answers are each one
+ * multi-row statement keyed on their natural keys, so a chunk costs a fixed handful of statements and
+ * concurrent runs cannot store the same entity twice. Questions are upserted on their Stack Exchange
+ * id: one that is already stored only gets its counters (score, view count, answer count, accepted
+ * answer) and any new answers written, so re-ingesting the same items is idempotent. Question and
+ * answer bodies go through {@link HtmlPreprocessor} in parallel, once, before they are written.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkUpsertRepository upserts;
+    private final HtmlPreprocessor htmlPreprocessor;
+    private final List<IngestionListener> ingestionListeners;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    public IngestionReport ingest(Iterator<StackExchangeResponse.QuestionItem> items) {
+        return ingest(items, failed -> {
+        });
+    }
+
+    // onFailedChunk gets the questions of every chunk whose transaction rolled back
+    public IngestionReport ingest(Iterator<StackExchangeResponse.QuestionItem> items,
+                                  Consumer<List<StackExchangeResponse.QuestionItem>> onFailedChunk) {
+        long start = System.nanoTime();
+        List<StackExchangeResponse.QuestionItem> chunk = new ArrayList<>(batchSize);
+        int questions = 0;
+        int failed = 0;
+        long rows = 0;
+        while (items.hasNext()) {
+            chunk.add(items.next());
+            if (chunk.size() == batchSize || !items.hasNext()) {
+                try {
+                    rows += writeChunk(chunk);
+                } catch (RuntimeException e) {
+                    logger.error("Error writing chunk of {} questions starting at question ID: {}",
+                            chunk.size(), chunk.get(0).getQuestionId(), e);
+                    failed += chunk.size();
+                    onFailedChunk.accept(List.copyOf(chunk));
+                }
+                questions += chunk.size();
+                chunk.clear();
+            }
+        }
+
+        IngestionReport report = IngestionReport.of("bulk", questions, failed, rows, System.nanoTime() - start);
+        logger.info("Bulk ingestion wrote {} rows for {} questions in {} ms ({} rows/sec), {} questions failed",
+                report.rowsInserted(), report.questions(), report.elapsedMillis(), Math.round(report.rowsPerSecond()),
+                report.failedQuestions());
+        return report;
+    }
+
+    // Total number of rows across the ingested tables, used to measure the row-by-row path
+    public long countRows() {
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM owners) + (SELECT COUNT(*) FROM tags) + (SELECT COUNT(*) FROM questions) " +
+                        "+ (SELECT COUNT(*) FROM questions_tags) + (SELECT COUNT(*) FROM answer)", Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    private long writeChunk(List<StackExchangeResponse.QuestionItem> chunk) {
+        Long rows = transactionTemplate.execute(status -> {
+            long written = 0;
+
+            // Questions already stored only get their counters refreshed, everything below the split is for new ones
+            Map<Long, StackExchangeResponse.QuestionItem> latest = new LinkedHashMap<>();
+            for (StackExchangeResponse.QuestionItem item : chunk) {
+                if (item.getQuestionId() == null) {
+                    logger.warn("Skipping a question without question_id: {}", item.getTitle());
+                    continue;
+                }
+                // A question can show up twice while its activity moves between pages, the later copy is newer
+                latest.put(item.getQuestionId(), item);
+            }
+            Map<Long, StoredQuestion> stored = upserts.findStoredQuestions(latest.keySet());
+            List<StackExchangeResponse.QuestionItem> fresh = new ArrayList<>();
+            List<StackExchangeResponse.QuestionItem> refreshed = new ArrayList<>();
+            for (StackExchangeResponse.QuestionItem item : latest.values()) {
+                (stored.containsKey(item.getQuestionId()) ? refreshed : fresh).add(item);
+            }
+            updateStoredQuestions(refreshed, stored);
+
+            // Owners, owners without an account id always get a new row
+            List<StackExchangeResponse.Owner> accountOwners = new ArrayList<>();
+            List<StackExchangeResponse.Owner> anonymousOwners = new ArrayList<>();
+            for (StackExchangeResponse.QuestionItem item : fresh) {
+                StackExchangeResponse.Owner owner = item.getOwner();
+                if (owner == null) continue;
+                (owner.getAccountId() != null ? accountOwners : anonymousOwners).add(owner);
+            }
+            Upserted<Long> ownerIds = upserts.upsertOwners(accountOwners);
+            List<Integer> anonymousIds = upserts.insertAnonymousOwners(anonymousOwners);
+            written += ownerIds.inserted() + anonymousIds.size();
+            Map<StackExchangeResponse.QuestionItem, Integer> questionOwners = new IdentityHashMap<>();
+            int anonymous = 0;
+            for (StackExchangeResponse.QuestionItem item : fresh) {
+                StackExchangeResponse.Owner owner = item.getOwner();
+                if (owner == null) continue;
+                questionOwners.put(item, owner.getAccountId() != null
+                        ? ownerIds.ids().get(owner.getAccountId())
+                        : anonymousIds.get(anonymous++));
+            }
+
+            // Tags
+            Set<String> tagNames = new HashSet<>();
+            for (StackExchangeResponse.QuestionItem item : fresh) {
+                if (item.getTags() != null) tagNames.addAll(item.getTags());
+            }
+            tagNames.remove(null);
+            Upserted<String> tagIds = upserts.upsertTags(tagNames);
+            written += tagIds.inserted();
+
+            // Questions, a concurrent run may have stored some of them since the lookup, those are left to it
+            List<PreprocessedHtml> bodies = htmlPreprocessor.processAll(
+                    fresh.stream().map(StackExchangeResponse.QuestionItem::getBody).toList());
+            Map<Long, Integer> questionIds = upserts.insertQuestions(fresh, bodies, questionOwners);
+            written += questionIds.size();
+
+            // Question/tag links and answers
+            List<int[]> links = new ArrayList<>();
+            List<PendingAnswer> answers = new ArrayList<>();
+            List<SavedQuestion> saved = new ArrayList<>(questionIds.size());
+            Map<Integer, PreprocessedHtml> codeBlocks = new LinkedHashMap<>();
+            for (int i = 0; i < fresh.size(); i++) {
+                StackExchangeResponse.QuestionItem item = fresh.get(i);
+                Integer questionId = questionIds.get(item.getQuestionId());
+                if (questionId == null) continue;
+                List<Integer> questionTagIds = new ArrayList<>();
+                if (item.getTags() != null) {
+                    for (String tagName : new LinkedHashSet<>(item.getTags())) {
+                        Integer tagId = tagIds.ids().get(tagName);
+                        if (tagId == null) continue;
+                        links.add(new int[]{questionId, tagId});
+                        questionTagIds.add(tagId);
+                    }
+                }
+                saved.add(new SavedQuestion(questionId, item, questionTagIds, bodies.get(i)));
+                codeBlocks.put(questionId, bodies.get(i));
+                collectAnswers(item, questionId, Set.of(), answers);
+            }
+            // New answers of questions that were already stored, looked up first so known ones are not parsed again
+            Set<Long> storedAnswerIds = upserts.findStoredAnswerIds(refreshed.stream()
+                    .filter(item -> item.getAnswers() != null)
+                    .flatMap(item -> item.getAnswers().stream())
+                    .map(StackExchangeResponse.Answer::getAnswerId)
+                    .filter(Objects::nonNull)
+                    .toList());
+            for (StackExchangeResponse.QuestionItem item : refreshed) {
+                collectAnswers(item, stored.get(item.getQuestionId()).id(), storedAnswerIds, answers);
+            }
+            written += upserts.insertQuestionTags(links);
+            written += upserts.insertCodeBlocks(codeBlocks);
+
+            for (IngestionListener listener : ingestionListeners) {
+                listener.onQuestionsSaved(saved);
+            }
+
+            List<PreprocessedHtml> answerBodies = htmlPreprocessor.processAll(
+                    answers.stream().map(pending -> pending.answer().getBody()).toList());
+            List<NewAnswer> newAnswers = new ArrayList<>(answers.size());
+            for (int i = 0; i < answers.size(); i++) {
+                PendingAnswer pending = answers.get(i);
+                newAnswers.add(new NewAnswer(pending.answer(), pending.item(), pending.questionId(), answerBodies.get(i)));
+            }
+            Map<Long, Integer> answerIds = upserts.insertAnswers(newAnswers);
+            written += answerIds.size();
+            Map<Integer, PreprocessedHtml> answerCodeBlocks = new LinkedHashMap<>();
+            for (NewAnswer answer : newAnswers) {
+                Integer answerId = answerIds.get(answer.answer().getAnswerId());
+                if (answerId != null) answerCodeBlocks.put(answerId, answer.body());
+            }
+            written += upserts.insertAnswerCodeBlocks(answerCodeBlocks);
+            return written;
+        });
+        return rows != null ? rows : 0;
+    }
+
+    // Writes the new counters of the refreshed questions that actually changed and tells the listeners
+    private void updateStoredQuestions(List<StackExchangeResponse.QuestionItem> refreshed,
+                                       Map<Long, StoredQuestion> stored) {
+        Map<Integer, StackExchangeResponse.QuestionItem> changed = new LinkedHashMap<>();
+        for (StackExchangeResponse.QuestionItem item : refreshed) {
+            StoredQuestion before = stored.get(item.getQuestionId());
+            if (!Objects.equals(before.score(), item.getScore())
+                    || !Objects.equals(before.viewCount(), item.getViewCount())
+                    || !Objects.equals(before.answerCount(), item.getAnswerCount())
+                    || !Objects.equals(before.acceptedAnswerId(), item.getAcceptedAnswerId())) {
+                changed.put(before.id(), item);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        upserts.updateQuestionCounters(changed);
+        Map<Integer, List<Integer>> tagIds = upserts.findTagIds(changed.keySet());
+        List<UpdatedQuestion> updated = new ArrayList<>(changed.size());
+        for (StackExchangeResponse.QuestionItem item : changed.values()) {
+            StoredQuestion before = stored.get(item.getQuestionId());
+            updated.add(new UpdatedQuestion(before.id(), item, tagIds.getOrDefault(before.id(), List.of()),
+                    before.score(), before.viewCount(), before.answerCount()));
+        }
+        for (IngestionListener listener : ingestionListeners) {
+            listener.onQuestionsUpdated(updated);
+        }
+    }
+
+    private static void collectAnswers(StackExchangeResponse.QuestionItem item, Integer questionId,
+                                       Set<Long> storedAnswerIds, List<PendingAnswer> answers) {
+        if (item.getAnswers() == null) return;
+        for (StackExchangeResponse.Answer answer : item.getAnswers()) {
+            if (!storedAnswerIds.contains(answer.getAnswerId())) {
+                answers.add(new PendingAnswer(answer, item, questionId));
+            }
+        }
+    }
+
+    private record PendingAnswer(StackExchangeResponse.Answer answer, StackExchangeResponse.QuestionItem item,
+                                 Integer questionId) {
+    }
+}
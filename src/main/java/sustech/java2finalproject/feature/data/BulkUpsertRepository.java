@@ -0,0 +1,361 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import sustech.java2finalproject.feature.question.analysis.AnswerQualityScorer;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Set-based writes of owners, tags, questions and answers keyed on their natural keys.
+ * <p>
+ * Every method is one multi-row statement per slice of at most {@link #MAX_PARAMETERS} bind
+ * parameters, so a page of questions costs a fixed number of round trips however many entities it
+ * carries. Owners and tags are upserted with {@code ON CONFLICT ... DO UPDATE} so that rows that
+ * were already there come back from {@code RETURNING} too; questions and answers use
+ * {@code DO NOTHING} and only report what they inserted. The unique indexes these rely on are
+ * created by schema.sql.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkUpsertRepository {
+
+    // The PostgreSQL wire protocol counts bind parameters in an int16
+    static final int MAX_PARAMETERS = Short.MAX_VALUE;
+
+    private static final String VALUES = "{values}";
+
+    // The no-op update makes the existing row visible to RETURNING, xmax = 0 only on rows this statement inserted
+    private static final String UPSERT_OWNERS =
+            "INSERT INTO owners (account_id, reputation, user_id, display_name) VALUES " + VALUES + " " +
+                    "ON CONFLICT (account_id) DO UPDATE SET account_id = EXCLUDED.account_id " +
+                    "RETURNING account_id, id, (xmax = 0)";
+    private static final String INSERT_ANONYMOUS_OWNERS =
+            "INSERT INTO owners (account_id, reputation, user_id, display_name) VALUES " + VALUES + " RETURNING id";
+    private static final String UPSERT_TAGS =
+            "INSERT INTO tags (name) VALUES " + VALUES + " " +
+                    "ON CONFLICT (name) DO UPDATE SET name = EXCLUDED.name RETURNING name, id, (xmax = 0)";
+    private static final String SELECT_STORED_QUESTIONS =
+            "SELECT question_stack_id, id, score, view_count, answer_count, accepted_answer_id " +
+                    "FROM questions WHERE question_stack_id = ANY(?)";
+    private static final String INSERT_QUESTIONS =
+            "INSERT INTO questions (is_answer, view_count, accepted_answer_id, answer_count, score, creation_date, " +
+                    "question_stack_id, title, body, owner_id, body_text, body_text_length, code_length) VALUES " + VALUES + " " +
+                    "ON CONFLICT (question_stack_id) DO NOTHING RETURNING question_stack_id, id";
+    // Only the counters change after a question is first stored
+    private static final String UPDATE_QUESTION_COUNTERS =
+            "UPDATE questions q SET score = v.score, view_count = v.view_count, answer_count = v.answer_count, " +
+                    "accepted_answer_id = v.accepted_answer_id " +
+                    "FROM (VALUES " + VALUES + ") AS v (id, score, view_count, answer_count, accepted_answer_id) " +
+                    "WHERE q.id = v.id";
+    private static final String COUNTER_ROW =
+            "(CAST(? AS integer), CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint))";
+    private static final String SELECT_TAG_IDS =
+            "SELECT question_id, tag_id FROM questions_tags WHERE question_id = ANY(?)";
+    private static final String INSERT_QUESTION_TAGS =
+            "INSERT INTO questions_tags (question_id, tag_id) VALUES " + VALUES + " ON CONFLICT DO NOTHING";
+    private static final String INSERT_CODE_BLOCKS =
+            "INSERT INTO code_blocks (question_id, answer_id, position, inline, length, code) VALUES " + VALUES;
+    private static final String SELECT_STORED_ANSWER_IDS =
+            "SELECT answer_id FROM answer WHERE answer_id = ANY(?)";
+    private static final String INSERT_ANSWERS =
+            "INSERT INTO answer (is_accepted, score, created_date, answer_id, question_stack_id, account_id, user_id, " +
+                    "owner_reputation, answer_length, question_id, elapsed_hours, quality_score, code_length) VALUES " + VALUES + " " +
+                    "ON CONFLICT (answer_id) DO NOTHING RETURNING answer_id, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IngestionMetrics metrics;
+
+    // Account id -> owners.id for the given owners, inserting the ones not stored yet. The first owner per account wins.
+    public Upserted<Long> upsertOwners(Collection<StackExchangeResponse.Owner> owners) {
+        // One row per key, DO UPDATE may not touch a row twice. Sorted so concurrent runs lock rows in the same order.
+        Map<Long, StackExchangeResponse.Owner> byAccount = new TreeMap<>();
+        for (StackExchangeResponse.Owner owner : owners) {
+            byAccount.putIfAbsent(owner.getAccountId(), owner);
+        }
+        List<StackExchangeResponse.Owner> rows = new ArrayList<>(byAccount.values());
+        Map<Long, Integer> ids = new HashMap<>();
+        int[] inserted = {0};
+        multiRow(UPSERT_OWNERS, "(?, ?, ?, ?)", 4, rows, BulkUpsertRepository::setOwner, rs -> {
+            ids.put(rs.getLong(1), rs.getInt(2));
+            if (rs.getBoolean(3)) inserted[0]++;
+        });
+        metrics.rowsInserted("owners", inserted[0]);
+        return new Upserted<>(ids, inserted[0]);
+    }
+
+    // Owners without an account id have no natural key, each one is a new row. Ids come back in input order.
+    public List<Integer> insertAnonymousOwners(List<StackExchangeResponse.Owner> owners) {
+        List<Integer> ids = new ArrayList<>(owners.size());
+        multiRow(INSERT_ANONYMOUS_OWNERS, "(?, ?, ?, ?)", 4, owners, BulkUpsertRepository::setOwner,
+                rs -> ids.add(rs.getInt(1)));
+        metrics.rowsInserted("owners", ids.size());
+        return ids;
+    }
+
+    // Tag name -> tags.id, inserting the names not stored yet
+    public Upserted<String> upsertTags(Collection<String> names) {
+        List<String> rows = new ArrayList<>(new TreeSet<>(names));
+        Map<String, Integer> ids = new HashMap<>();
+        int[] inserted = {0};
+        multiRow(UPSERT_TAGS, "(?)", 1, rows, (params, name) -> params.setString(name), rs -> {
+            ids.put(rs.getString(1), rs.getInt(2));
+            if (rs.getBoolean(3)) inserted[0]++;
+        });
+        metrics.rowsInserted("tags", inserted[0]);
+        return new Upserted<>(ids, inserted[0]);
+    }
+
+    // Id and counters of the stored questions among the given Stack Exchange ids
+    public Map<Long, StoredQuestion> findStoredQuestions(Collection<Long> questionStackIds) {
+        Map<Long, StoredQuestion> stored = new HashMap<>();
+        if (questionStackIds.isEmpty()) {
+            return stored;
+        }
+        Long[] ids = questionStackIds.toArray(Long[]::new);
+        jdbcTemplate.query(SELECT_STORED_QUESTIONS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) rs -> stored.put(rs.getLong(1), new StoredQuestion(rs.getInt(2),
+                        rs.getObject(3, Long.class), rs.getObject(4, Long.class), rs.getObject(5, Long.class),
+                        rs.getObject(6, Long.class))));
+        return stored;
+    }
+
+    // The given answer ids that are already stored
+    public Set<Long> findStoredAnswerIds(Collection<Long> answerIds) {
+        Set<Long> stored = new HashSet<>();
+        if (answerIds.isEmpty()) {
+            return stored;
+        }
+        Long[] ids = answerIds.toArray(Long[]::new);
+        jdbcTemplate.query(SELECT_STORED_ANSWER_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) rs -> stored.add(rs.getLong(1)));
+        return stored;
+    }
+
+    // Stack Exchange id -> questions.id of the questions this call inserted; ones stored meanwhile are left out.
+    // bodies holds the preprocessed body of each item, in the same order.
+    public Map<Long, Integer> insertQuestions(List<StackExchangeResponse.QuestionItem> items, List<PreprocessedHtml> bodies,
+                                              Map<StackExchangeResponse.QuestionItem, Integer> ownerIds) {
+        List<Integer> rows = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            rows.add(i);
+        }
+        Map<Long, Integer> ids = new HashMap<>();
+        multiRow(INSERT_QUESTIONS, "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", 13, rows, (params, row) -> {
+            StackExchangeResponse.QuestionItem item = items.get(row);
+            PreprocessedHtml body = bodies.get(row);
+            params.setBoolean(item.getIsAnswered());
+            params.setLong(item.getViewCount());
+            params.setLong(item.getAcceptedAnswerId());
+            params.setLong(item.getAnswerCount());
+            params.setLong(item.getScore());
+            params.setTimestamp(toLocalDateTime(item.getCreationDate()));
+            params.setLong(item.getQuestionId());
+            params.setString(item.getTitle());
+            params.setString(item.getBody());
+            params.setInteger(ownerIds.get(item));
+            params.setString(body.text());
+            params.setInteger(body.textLength());
+            params.setInteger(body.codeLength());
+        }, rs -> ids.put(rs.getLong(1), rs.getInt(2)));
+        metrics.rowsInserted("questions", ids.size());
+        return ids;
+    }
+
+    // The code blocks of a set of questions, questions.id -> preprocessed body
+    public int insertCodeBlocks(Map<Integer, PreprocessedHtml> bodies) {
+        return insertCodeBlocks(bodies, false);
+    }
+
+    // The code blocks of a set of answers, answer.id -> preprocessed body
+    public int insertAnswerCodeBlocks(Map<Integer, PreprocessedHtml> bodies) {
+        return insertCodeBlocks(bodies, true);
+    }
+
+    private int insertCodeBlocks(Map<Integer, PreprocessedHtml> bodies, boolean answers) {
+        List<CodeBlockRow> rows = new ArrayList<>();
+        bodies.forEach((id, body) -> {
+            for (int position = 0; position < body.codeBlocks().size(); position++) {
+                rows.add(new CodeBlockRow(id, position, body.codeBlocks().get(position)));
+            }
+        });
+        int inserted = multiRow(INSERT_CODE_BLOCKS, "(?, ?, ?, ?, ?, ?)", 6, rows, (params, row) -> {
+            PreprocessedHtml.Block block = row.block();
+            params.setInteger(answers ? null : row.ownerId());
+            params.setInteger(answers ? row.ownerId() : null);
+            params.setInteger(row.position());
+            params.setBoolean(block.inline());
+            params.setInteger(block.code().length());
+            params.setString(block.code());
+        }, null);
+        metrics.rowsInserted("code_blocks", inserted);
+        return inserted;
+    }
+
+    // New counters of stored questions, keyed by questions.id
+    public void updateQuestionCounters(Map<Integer, StackExchangeResponse.QuestionItem> items) {
+        List<Map.Entry<Integer, StackExchangeResponse.QuestionItem>> rows = new ArrayList<>(items.entrySet());
+        rows.sort(Map.Entry.comparingByKey());
+        multiRow(UPDATE_QUESTION_COUNTERS, COUNTER_ROW, 5, rows, (params, row) -> {
+            params.setInteger(row.getKey());
+            params.setLong(row.getValue().getScore());
+            params.setLong(row.getValue().getViewCount());
+            params.setLong(row.getValue().getAnswerCount());
+            params.setLong(row.getValue().getAcceptedAnswerId());
+        }, null);
+        metrics.rowsUpdated("questions", rows.size());
+    }
+
+    // questions.id -> its tag ids
+    public Map<Integer, List<Integer>> findTagIds(Collection<Integer> questionIds) {
+        Map<Integer, List<Integer>> tagIds = new HashMap<>();
+        if (questionIds.isEmpty()) {
+            return tagIds;
+        }
+        Integer[] ids = questionIds.toArray(Integer[]::new);
+        jdbcTemplate.query(SELECT_TAG_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", ids)),
+                (RowCallbackHandler) rs -> tagIds.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(rs.getInt(2)));
+        return tagIds;
+    }
+
+    // {question id, tag id} pairs, links that already exist are skipped
+    public int insertQuestionTags(List<int[]> links) {
+        int inserted = multiRow(INSERT_QUESTION_TAGS, "(?, ?)", 2, links, (params, link) -> {
+            params.setInteger(link[0]);
+            params.setInteger(link[1]);
+        }, null);
+        metrics.rowsInserted("questions_tags", inserted);
+        return inserted;
+    }
+
+    // Stack Exchange answer id -> answer.id of the answers this call inserted, with their quality score.
+    // Ones whose answer id is already stored are skipped.
+    public Map<Long, Integer> insertAnswers(List<NewAnswer> answers) {
+        Map<Long, Integer> ids = new HashMap<>();
+        multiRow(INSERT_ANSWERS, "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", 13, answers, (params, row) -> {
+            StackExchangeResponse.Answer answer = row.answer();
+            StackExchangeResponse.AnswerOwner owner = answer.getAnswerOwner();
+            LocalDateTime createdDate = toLocalDateTime(answer.getCreatedDate());
+            Long elapsedHours = AnswerQualityScorer.elapsedHours(toLocalDateTime(row.item().getCreationDate()), createdDate);
+            Long reputation = owner != null ? owner.getReputation() : null;
+            params.setBoolean(answer.getIsAccepted());
+            params.setInteger(answer.getScore());
+            params.setTimestamp(createdDate);
+            params.setLong(answer.getAnswerId());
+            params.setLong(row.item().getQuestionId());
+            params.setLong(owner != null ? owner.getAccountId() : null);
+            params.setLong(owner != null && owner.getUserId() != null ? Long.valueOf(owner.getUserId()) : null);
+            params.setLong(reputation);
+            params.setLong(answer.getBody() != null ? (long) row.body().textLength() : null);
+            params.setInteger(row.questionId());
+            params.setLong(elapsedHours);
+            params.setDouble(AnswerQualityScorer.qualityScore(answer.getIsAccepted(), elapsedHours, reputation,
+                    answer.getScore()));
+            params.setLong(answer.getBody() != null ? (long) row.body().codeLength() : null);
+        }, rs -> ids.put(rs.getLong(1), rs.getInt(2)));
+        metrics.rowsInserted("answer", ids.size());
+        return ids;
+    }
+
+    // Runs sql once per slice of rows, with {values} expanded to one rowTemplate per row.
+    // Returns the update count, or hands every returned row to handler when there is one.
+    private <T> int multiRow(String sql, String rowTemplate, int columns, List<T> rows, RowBinder<T> binder,
+                             RowCallbackHandler handler) {
+        int perStatement = Math.max(1, MAX_PARAMETERS / columns);
+        int affected = 0;
+        for (int from = 0; from < rows.size(); from += perStatement) {
+            List<T> slice = rows.subList(from, Math.min(rows.size(), from + perStatement));
+            String statement = sql.replace(VALUES, String.join(", ", Collections.nCopies(slice.size(), rowTemplate)));
+            if (handler != null) {
+                jdbcTemplate.query(statement, ps -> bind(ps, slice, binder), handler);
+            } else {
+                affected += jdbcTemplate.update(statement, ps -> bind(ps, slice, binder));
+            }
+        }
+        return affected;
+    }
+
+    private static <T> void bind(PreparedStatement ps, List<T> rows, RowBinder<T> binder) throws SQLException {
+        Params params = new Params(ps);
+        for (T row : rows) {
+            binder.bind(params, row);
+        }
+    }
+
+    private static void setOwner(Params params, StackExchangeResponse.Owner owner) throws SQLException {
+        params.setLong(owner.getAccountId());
+        params.setLong(owner.getReputation());
+        params.setLong(owner.getUserId() != null ? Long.valueOf(owner.getUserId()) : 0L);
+        params.setString(owner.getDisplayName());
+    }
+
+    private static LocalDateTime toLocalDateTime(Long timestamp) {
+        return timestamp != null ? LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneOffset.UTC) : null;
+    }
+
+    // Natural key -> surrogate id of every row that was upserted, and how many of them are new
+    public record Upserted<K>(Map<K, Integer> ids, int inserted) {
+    }
+
+    public record StoredQuestion(Integer id, Long score, Long viewCount, Long answerCount, Long acceptedAnswerId) {
+    }
+
+    public record NewAnswer(StackExchangeResponse.Answer answer, StackExchangeResponse.QuestionItem item,
+                            Integer questionId, PreprocessedHtml body) {
+    }
+
+    // ownerId is the questions.id or answer.id the block belongs to
+    private record CodeBlockRow(Integer ownerId, int position, PreprocessedHtml.Block block) {
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(Params params, T row) throws SQLException;
+    }
+
+    // Binds the parameters of consecutive rows left to right, typed so that nulls need no casts
+    private static final class Params {
+        private final PreparedStatement ps;
+        private int index = 1;
+
+        Params(PreparedStatement ps) {
+            this.ps = ps;
+        }
+
+        void setLong(Long value) throws SQLException {
+            ps.setObject(index++, value, Types.BIGINT);
+        }
+
+        void setInteger(Integer value) throws SQLException {
+            ps.setObject(index++, value, Types.INTEGER);
+        }
+
+        void setBoolean(Boolean value) throws SQLException {
+            ps.setObject(index++, value, Types.BOOLEAN);
+        }
+
+        void setDouble(double value) throws SQLException {
+            ps.setDouble(index++, value);
+        }
+
+        void setString(String value) throws SQLException {
+            ps.setString(index++, value);
+        }
+
+        void setTimestamp(LocalDateTime value) throws SQLException {
+            ps.setObject(index++, value);
+        }
+    }
+}
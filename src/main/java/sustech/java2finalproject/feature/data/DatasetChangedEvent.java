@@ -0,0 +1,7 @@
+package sustech.java2finalproject.feature.data;
+
+// Published after ingestion has written new data, anything derived from the whole dataset listens for it
+public record DatasetChangedEvent(
+        String source
+) {
+}
@@ -0,0 +1,50 @@
+package sustech.java2finalproject.feature.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter of dataset changes, bumped once per ingestion.
+ * <p>
+ * Cached analytics results carry the version they were computed at in their key, so a bump
+ * retires every entry at once even while a request computed on the old data is still running.
+ * The stale entries are cleared right after so they do not hold memory until they are evicted.
+ */
+@Component
+public class DatasetVersion {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetVersion.class);
+
+    private final AtomicLong version = new AtomicLong();
+    private final CacheManager cacheManager;
+
+    public DatasetVersion(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    // Runs after the other listeners so everything derived from the dataset has caught up before new keys are used
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onDatasetChanged(DatasetChangedEvent event) {
+        long next = version.incrementAndGet();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        logger.info("Dataset version {} after {}, analytics caches cleared", next, event.source());
+    }
+}
@@ -0,0 +1,110 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.feature.question.analysis.ExceptionScanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the question_exceptions table, the per-question exception mention counts that
+ * ErrorAnalysis and getExceptionFrequency aggregate over.
+ * <p>
+ * New questions are scanned as they are ingested. Questions that were stored before the table
+ * existed are covered by {@link #backfill()}, which also runs at startup while the table is empty.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExceptionMentionIndexer implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExceptionMentionIndexer.class);
+
+    private static final String UPSERT_MENTION =
+            "INSERT INTO question_exceptions (question_id, exception_id, mention_count) VALUES (?, ?, ?) " +
+                    "ON CONFLICT (question_id, exception_id) DO UPDATE SET mention_count = EXCLUDED.mention_count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExceptionScanner exceptionScanner;
+    private final HtmlPreprocessor htmlPreprocessor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void onQuestionsSaved(List<SavedQuestion> questions) {
+        List<int[]> mentions = new ArrayList<>();
+        for (SavedQuestion question : questions) {
+            collectMentions(question.id(), question.item().getTitle(), question.body().text(), mentions);
+        }
+        writeMentions(mentions);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        Boolean indexed = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM question_exceptions)", Boolean.class);
+        Boolean hasQuestions = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM questions)", Boolean.class);
+        if (!Boolean.TRUE.equals(indexed) && Boolean.TRUE.equals(hasQuestions) && backfill() > 0) {
+            eventPublisher.publishEvent(new DatasetChangedEvent("exception mention backfill at startup"));
+        }
+    }
+
+    // Scans every stored question in id order, one page per transaction, and returns how many were scanned
+    public int backfill() {
+        logger.info("Backfilling exception mentions...");
+        int scanned = 0;
+        int lastId = 0;
+        while (true) {
+            int afterId = lastId;
+            List<Object[]> page = jdbcTemplate.query(
+                    "SELECT id, title, body_text, body FROM questions WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getString(2),
+                            rs.getString(3) != null ? rs.getString(3) : htmlPreprocessor.process(rs.getString(4)).text()},
+                    afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<int[]> mentions = new ArrayList<>();
+            for (Object[] row : page) {
+                collectMentions((Integer) row[0], (String) row[1], (String) row[2], mentions);
+            }
+            transactionTemplate.executeWithoutResult(status -> writeMentions(mentions));
+
+            scanned += page.size();
+            lastId = (Integer) page.get(page.size() - 1)[0];
+        }
+        logger.info("Backfilled exception mentions for {} questions", scanned);
+        return scanned;
+    }
+
+    // Scans the plain text of the body, so markup and entities cannot split or fake a name
+    private void collectMentions(Integer questionId, String title, String bodyText, List<int[]> mentions) {
+        int[] counts = exceptionScanner.newCounts();
+        exceptionScanner.scan(title, counts);
+        exceptionScanner.scan(bodyText, counts);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                mentions.add(new int[]{questionId, id, counts[id]});
+            }
+        }
+    }
+
+    private void writeMentions(List<int[]> mentions) {
+        jdbcTemplate.batchUpdate(UPSERT_MENTION, mentions, batchSize, (ps, mention) -> {
+            ps.setInt(1, mention[0]);
+            ps.setInt(2, mention[1]);
+            ps.setInt(3, mention[2]);
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package sustech.java2finalproject.feature.data;
+
+import jakarta.annotation.PreDestroy;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns question and answer bodies into plain text and code blocks, parsing each HTML document
+ * exactly once.
+ * <p>
+ * Parsing is CPU bound, so {@link #processAll(List)} spreads a batch over a fixed pool of
+ * {@code ingest.preprocess-threads} platform threads (one per core by default) while the caller
+ * waits. Results come back in input order.
+ */
+@Component
+public class HtmlPreprocessor {
+
+    // Documents per task, enough to amortize the hand-off without starving the other workers
+    private static final int SLICE = 16;
+
+    private final IngestionMetrics metrics;
+    private final ExecutorService pool;
+    private final int threads;
+
+    public HtmlPreprocessor(IngestionMetrics metrics, @Value("${ingest.preprocess-threads:0}") int threads) {
+        this.metrics = metrics;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "html-preprocess-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public PreprocessedHtml process(String html) {
+        if (html == null) {
+            return PreprocessedHtml.EMPTY;
+        }
+        long start = System.nanoTime();
+        Document document = Jsoup.parse(html);
+        List<PreprocessedHtml.Block> codeBlocks = new ArrayList<>();
+        for (Element element : document.select("pre, code")) {
+            // <pre><code>...</code></pre> is one block, and the <pre> already holds all of its text
+            if (element.parents().is("pre")) continue;
+            codeBlocks.add(new PreprocessedHtml.Block(element.wholeText(), !element.normalName().equals("pre")));
+        }
+        PreprocessedHtml processed = new PreprocessedHtml(document.text(), codeBlocks);
+        metrics.htmlParsed(System.nanoTime() - start);
+        return processed;
+    }
+
+    public List<PreprocessedHtml> processAll(List<String> htmls) {
+        if (htmls.size() <= SLICE || threads == 1) {
+            return htmls.stream().map(this::process).toList();
+        }
+
+        PreprocessedHtml[] results = new PreprocessedHtml[htmls.size()];
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int from = 0; from < htmls.size(); from += SLICE) {
+            int start = from;
+            int end = Math.min(htmls.size(), from + SLICE);
+            tasks.add(pool.submit(() -> {
+                for (int i = start; i < end; i++) {
+                    results[i] = process(htmls.get(i));
+                }
+            }));
+        }
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while preprocessing HTML", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw new IllegalStateException("Could not preprocess HTML", e.getCause());
+        }
+        return Arrays.asList(results);
+    }
+}
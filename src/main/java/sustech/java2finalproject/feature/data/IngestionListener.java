@@ -0,0 +1,19 @@
+package sustech.java2finalproject.feature.data;
+
+import java.util.List;
+
+/**
+ * Hook for data derived from questions at ingest time.
+ * <p>
+ * Called by both ingestion paths once a batch of questions has been written together with
+ * its tag links, inside the same transaction when there is one. Questions that were already stored
+ * only get their counters refreshed and are reported through {@link #onQuestionsUpdated(List)}.
+ */
+public interface IngestionListener {
+
+    void onQuestionsSaved(List<SavedQuestion> questions);
+
+    // Score, view count, answer count or accepted answer of stored questions changed, nothing else did
+    default void onQuestionsUpdated(List<UpdatedQuestion> questions) {
+    }
+}
@@ -0,0 +1,83 @@
+package sustech.java2finalproject.feature.data;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the ingestion pipeline: API pages and retries, rows written per table and the time
+ * spent turning HTML bodies into text.
+ */
+@Component
+public class IngestionMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter pagesFetched;
+    private final DistributionSummary pageItems;
+    private final Counter retries;
+    private final Counter backoffs;
+    private final DistributionSummary backoffSeconds;
+    private final Timer htmlParse;
+
+    public IngestionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.pagesFetched = Counter.builder("ingest.api.pages")
+                .description("Question pages fetched from the Stack Exchange API")
+                .register(registry);
+        this.pageItems = DistributionSummary.builder("ingest.api.page.items")
+                .description("Questions per fetched page")
+                .register(registry);
+        this.retries = Counter.builder("ingest.api.retries")
+                .description("Requests retried after a 429 response")
+                .register(registry);
+        this.backoffs = Counter.builder("ingest.api.backoffs")
+                .description("Responses that carried a backoff")
+                .register(registry);
+        this.backoffSeconds = DistributionSummary.builder("ingest.api.backoff.duration")
+                .description("Time the fetcher paused for, for backoffs and retries")
+                .baseUnit("seconds")
+                .register(registry);
+        this.htmlParse = Timer.builder("ingest.html.parse")
+                .description("Jsoup parse of question and answer bodies into plain text and code blocks")
+                .register(registry);
+    }
+
+    public void pageFetched(int items) {
+        pagesFetched.increment();
+        pageItems.record(items);
+    }
+
+    public void retried(Duration pause) {
+        retries.increment();
+        backoffSeconds.record(pause.toMillis() / 1000.0);
+    }
+
+    public void backedOff(Duration pause) {
+        backoffs.increment();
+        backoffSeconds.record(pause.toMillis() / 1000.0);
+    }
+
+    // Tables are tagged by name, e.g. rowsInserted("answer", 12)
+    public void rowsInserted(String table, long rows) {
+        if (rows > 0) {
+            registry.counter("ingest.rows.inserted", "table", table).increment(rows);
+        }
+    }
+
+    // Rows whose counters an incremental sync refreshed
+    public void rowsUpdated(String table, long rows) {
+        if (rows > 0) {
+            registry.counter("ingest.rows.updated", "table", table).increment(rows);
+        }
+    }
+
+    // One HTML body parsed by HtmlPreprocessor
+    public void htmlParsed(long nanos) {
+        htmlParse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,28 @@
+package sustech.java2finalproject.feature.data;
+
+import java.util.List;
+
+/**
+ * An HTML body after {@link HtmlPreprocessor}: its plain text, which still contains the code, and
+ * the text of its code blocks in document order.
+ */
+public record PreprocessedHtml(String text, List<Block> codeBlocks) {
+
+    public static final PreprocessedHtml EMPTY = new PreprocessedHtml(null, List.of());
+
+    public int textLength() {
+        return text != null ? text.length() : 0;
+    }
+
+    public int codeLength() {
+        int length = 0;
+        for (Block block : codeBlocks) {
+            length += block.code().length();
+        }
+        return length;
+    }
+
+    // A <pre> block, or an inline <code> span outside of one. Whitespace is kept as written.
+    public record Block(String code, boolean inline) {
+    }
+}
@@ -4,23 +4,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 
 
-import org.jsoup.Jsoup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 import sustech.java2finalproject.domain.Answer;
 import sustech.java2finalproject.domain.Owner;
 import sustech.java2finalproject.domain.Question;
 import sustech.java2finalproject.domain.Tag;
+import sustech.java2finalproject.feature.data.dto.CorpusFileReport;
+import sustech.java2finalproject.feature.data.dto.IngestionReport;
+import sustech.java2finalproject.feature.data.dto.TagStatsReport;
 import sustech.java2finalproject.feature.question.repository.AnswerRepository;
 import sustech.java2finalproject.feature.question.repository.OwnerRepository;
 import sustech.java2finalproject.feature.question.repository.QuestionRepository;
 import sustech.java2finalproject.feature.question.repository.TagRepository;
+import sustech.java2finalproject.feature.search.SearchIndex;
 import sustech.java2finalproject.init.StackExchangeResponse;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -34,31 +45,83 @@ public class RethreiveData {
     private final QuestionRepository questionRepository;
     private final TagRepository tagRepository;
     private final AnswerRepository answerRepository;
+    private final BulkIngestionService bulkIngestionService;
+    private final StackExchangeFetcher stackExchangeFetcher;
+    private final ExceptionMentionIndexer exceptionMentionIndexer;
+    private final TagStatsMaintainer tagStatsMaintainer;
+    private final TagTrendMaintainer tagTrendMaintainer;
+    private final AnswerQualityMaintainer answerQualityMaintainer;
+    private final AppSettings appSettings;
+    private final StackTraceIndexer stackTraceIndexer;
+    private final BodyTextMaintainer bodyTextMaintainer;
+    private final HtmlPreprocessor htmlPreprocessor;
+    private final BulkUpsertRepository upserts;
+    private final SearchIndex searchIndex;
+    private final IngestionMetrics metrics;
+    private final List<IngestionListener> ingestionListeners;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
-    private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private static final Logger logger = LoggerFactory.getLogger(RethreiveData.class);
 
+    // Epoch seconds of the latest last_activity_date seen by /data
+    private static final String SYNC_WATERMARK = "sync.last-activity-date";
+
+    // Incremental sync: only questions active since the last run are fetched, full=true ignores the watermark
     @GetMapping("/data")
-    public void init() {
+    public IngestionReport init(@RequestParam(defaultValue = "false") boolean bulk,
+                                @RequestParam(defaultValue = "false") boolean full) {
         logger.info("Starting to fetch data from Stack Overflow API...");
 
+        Long watermark = full ? null : appSettings.get(SYNC_WATERMARK).map(Long::valueOf).orElse(null);
         int totalQuestions = 1000; // Set desired number
-        List<StackExchangeResponse.QuestionItem> questions = fetchQuestions(totalQuestions);
-
-//        logger.info("Fetched {} questions.", questions.size());
-
+        List<StackExchangeResponse.QuestionItem> questions = new ArrayList<>();
+        int failedPages = fetchQuestions(totalQuestions, watermark, questions).failedPages();
+
+        logger.info("Fetched {} questions active since {}", questions.size(), watermark);
+
+        if (bulk) {
+            List<StackExchangeResponse.QuestionItem> failed = new ArrayList<>();
+            IngestionReport report = bulkIngestionService.ingest(questions.iterator(), failed::addAll)
+                    .withFailedPages(failedPages);
+            advanceWatermark(questions, failed, watermark);
+            eventPublisher.publishEvent(new DatasetChangedEvent("bulk ingestion"));
+            return report;
+        }
 
+        long rowsBefore = bulkIngestionService.countRows();
+        long start = System.nanoTime();
+        List<StackExchangeResponse.QuestionItem> failed = new ArrayList<>();
 
         for (StackExchangeResponse.QuestionItem item : questions) {
-
-                System.out.println(item.getAnswers());
-
             try {
-                Owner owner = saveOwner(item.getOwner());
-                Question question = saveQuestion(item, owner);
-                saveTags(item.getTags(), question);
+                // Stored before: refresh the counters and add the answers we don't have yet
+                Optional<Question> stored = item.getQuestionId() != null
+                        ? questionRepository.findFirstByQuestionStackIdOrderByIdAsc(item.getQuestionId())
+                        : Optional.empty();
+                if (stored.isPresent()) {
+                    transactionTemplate.executeWithoutResult(status -> refreshQuestion(item, stored.get()));
+                    if (item.getAnswers() != null) {
+                        saveAnswer(item.getAnswers(), item, stored.get());
+                    }
+                    continue;
+                }
+
+                // Parsed before the transaction; the question, its links, code blocks and everything the
+                // listeners derive from it commit together, as a chunk does on the bulk path. Owners and tags
+                // are upserted; a question another run stored meanwhile fails on its unique index and is
+                // refreshed by the next sync, which the failed item holds the watermark for.
+                PreprocessedHtml body = htmlPreprocessor.process(item.getBody());
+                Question question = transactionTemplate.execute(status -> {
+                    Owner owner = saveOwner(item.getOwner());
+                    Question saved = saveQuestion(item, body, owner);
+                    upserts.insertCodeBlocks(Map.of(saved.getId(), body));
+                    saveTags(item.getTags(), saved);
+                    notifyListeners(item, saved, body);
+                    return saved;
+                });
 
                 // Check if answers exist before calling saveAnswer
                 if (item.getAnswers() != null) {
@@ -68,44 +131,168 @@ public class RethreiveData {
                 }
             } catch (Exception e) {
                 logger.error("Error processing question with ID: " + item.getQuestionId(), e);
+                failed.add(item);
             }
         }
 
-
-        logger.info("Data initialization completed.");
+        IngestionReport report = IngestionReport.of("row-by-row", questions.size(), failed.size(),
+                bulkIngestionService.countRows() - rowsBefore, System.nanoTime() - start).withFailedPages(failedPages);
+        logger.info("Data initialization completed: {} rows in {} ms ({} rows/sec), {} questions failed",
+                report.rowsInserted(), report.elapsedMillis(), Math.round(report.rowsPerSecond()), report.failedQuestions());
+        advanceWatermark(questions, failed, watermark);
+        eventPublisher.publishEvent(new DatasetChangedEvent("row-by-row ingestion"));
+        return report;
     }
 
 
 
-    private Owner saveOwner(StackExchangeResponse.Owner apiOwner) {
-        // Check if owner exists, if not, save it
-        Owner owner = null;
+    // Offline import of API-format JSON dumps, streamed item by item into the bulk ingestion path
+    @PostMapping("/data/import")
+    public IngestionReport importDump(@RequestParam String directory) {
+        Path path = Path.of(directory);
+        if (!Files.isDirectory(path)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a directory: " + directory);
+        }
 
-        if (apiOwner.getAccountId() != null) {
-            owner = ownerRepository.findByAccountId(Math.toIntExact(apiOwner.getAccountId()));
+        try (StackExchangeDumpReader reader = new StackExchangeDumpReader(path, objectMapper)) {
+            IngestionReport report = bulkIngestionService.ingest(reader);
+            eventPublisher.publishEvent(new DatasetChangedEvent("import of " + directory));
+            return report;
+        } catch (IOException e) {
+            logger.error("Error importing questions from " + directory, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Import failed: " + e.getMessage());
         }
+    }
+
 
-        if (owner == null) {
-            owner = new Owner();
-            owner.setAccountId(apiOwner.getAccountId());
-            owner.setReputation(apiOwner.getReputation());
 
-            // Check if userId is not null before parsing
-            if (apiOwner.getUserId() != null) {
-                owner.setUserId(Long.valueOf(apiOwner.getUserId()));
-            } else {
-                // Handle the case where userId is null, e.g., set a default value or skip saving
-                owner.setUserId(0L); // Set default value or handle accordingly
+    // Reproducible synthetic corpus for scale tests, written straight into the database through the bulk path
+    @PostMapping("/data/synthetic")
+    public IngestionReport ingestSynthetic(@RequestParam(defaultValue = "10000") int questions,
+                                           @RequestParam(defaultValue = "42") long seed,
+                                           @RequestParam(defaultValue = "5000") int tags,
+                                           @RequestParam(required = false) Integer owners,
+                                           @RequestParam(defaultValue = "1.5") double answersPerQuestion,
+                                           @RequestParam(defaultValue = "1.0") double tagSkew) {
+        SyntheticCorpus corpus = new SyntheticCorpus(syntheticSpec(seed, questions, tags, owners, answersPerQuestion, tagSkew));
+        IngestionReport report = bulkIngestionService.ingest(corpus);
+        eventPublisher.publishEvent(new DatasetChangedEvent("synthetic corpus (seed " + seed + ")"));
+        return report;
+    }
+
+    // The same corpus as API-shaped gzipped JSON pages, for /data/import on another machine
+    @PostMapping("/data/synthetic/pages")
+    public CorpusFileReport writeSyntheticPages(@RequestParam String directory,
+                                                @RequestParam(defaultValue = "10000") int questions,
+                                                @RequestParam(defaultValue = "42") long seed,
+                                                @RequestParam(defaultValue = "5000") int tags,
+                                                @RequestParam(required = false) Integer owners,
+                                                @RequestParam(defaultValue = "1.5") double answersPerQuestion,
+                                                @RequestParam(defaultValue = "1.0") double tagSkew,
+                                                @RequestParam(defaultValue = "100") int pageSize) {
+        if (pageSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "pageSize must be at least 1");
+        }
+        SyntheticCorpus corpus = new SyntheticCorpus(syntheticSpec(seed, questions, tags, owners, answersPerQuestion, tagSkew));
+        Path path = Path.of(directory);
+        long start = System.nanoTime();
+        try {
+            // Only this run's files count, the directory may hold pages of an earlier, larger corpus
+            List<Path> files = corpus.writePages(path, pageSize, objectMapper);
+            long bytes = 0;
+            for (Path file : files) {
+                bytes += Files.size(file);
             }
+            logger.info("Wrote {} synthetic questions into {} files in {}", questions, files.size(), directory);
+            return new CorpusFileReport(path.toAbsolutePath().toString(), questions, files.size(), bytes,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            logger.error("Error writing synthetic corpus to " + directory, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Write failed: " + e.getMessage());
+        }
+    }
 
-            owner.setDisplayName(apiOwner.getDisplayName());
-            owner = ownerRepository.save(owner);
+    private SyntheticCorpus.Spec syntheticSpec(long seed, int questions, int tags, Integer owners,
+                                               double answersPerQuestion, double tagSkew) {
+        try {
+            return new SyntheticCorpus.Spec(seed, questions, tags, owners != null ? owners : Math.max(1, questions / 4),
+                    answersPerQuestion, tagSkew);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
-        return owner;
     }
 
 
-    private Question saveQuestion(StackExchangeResponse.QuestionItem item, Owner owner) {
+
+    // Rescans questions stored before the exception mention index existed
+    @PostMapping("/data/backfill/exception-mentions")
+    public Integer backfillExceptionMentions() {
+        int questions = exceptionMentionIndexer.backfill();
+        eventPublisher.publishEvent(new DatasetChangedEvent("exception mention backfill"));
+        return questions;
+    }
+
+    // Reindexes every stored question for full-text search
+    @PostMapping("/data/rebuild/search-index")
+    public Integer rebuildSearchIndex() {
+        return searchIndex.rebuild();
+    }
+
+    // Recomputes every tag trend bucket from the questions table
+    @PostMapping("/data/rebuild/tag-trends")
+    public Integer rebuildTagTrends() {
+        int rows = tagTrendMaintainer.rebuild();
+        eventPublisher.publishEvent(new DatasetChangedEvent("tag_trends rebuild"));
+        return rows;
+    }
+
+    // Rescores every stored answer with the current weights
+    @PostMapping("/data/rebuild/answer-quality")
+    public Integer rebuildAnswerQuality() {
+        int answers = answerQualityMaintainer.recompute();
+        eventPublisher.publishEvent(new DatasetChangedEvent("answer quality recompute"));
+        return answers;
+    }
+
+    // Preprocesses every stored question body again: plain text, lengths and code blocks
+    @PostMapping("/data/backfill/body-text")
+    public Integer backfillBodyText() {
+        int questions = bodyTextMaintainer.backfill();
+        eventPublisher.publishEvent(new DatasetChangedEvent("body text backfill"));
+        return questions;
+    }
+
+    // Parses the stack traces of every stored question again, returns how many were found
+    @PostMapping("/data/rebuild/stack-traces")
+    public Integer rebuildStackTraces() {
+        int traces = stackTraceIndexer.backfill();
+        eventPublisher.publishEvent(new DatasetChangedEvent("stack trace rebuild"));
+        return traces;
+    }
+
+    // Recomputes tag_stats from the question/tag join and reports the tags that had drifted
+    @PostMapping("/data/rebuild/tag-stats")
+    public TagStatsReport rebuildTagStats() {
+        TagStatsReport report = tagStatsMaintainer.rebuild();
+        eventPublisher.publishEvent(new DatasetChangedEvent("tag_stats rebuild"));
+        return report;
+    }
+
+
+
+    // Through the same upserts as the bulk path, so a run that stores the same owner meanwhile is not an error
+    private Owner saveOwner(StackExchangeResponse.Owner apiOwner) {
+        if (apiOwner == null) {
+            return null;
+        }
+        Integer id = apiOwner.getAccountId() != null
+                ? upserts.upsertOwners(List.of(apiOwner)).ids().get(apiOwner.getAccountId())
+                : upserts.insertAnonymousOwners(List.of(apiOwner)).get(0);
+        return ownerRepository.getReferenceById(id);
+    }
+
+
+    private Question saveQuestion(StackExchangeResponse.QuestionItem item, PreprocessedHtml body, Owner owner) {
         // Create and save the Question
         Question question = new Question();
         question.setIsAnswer(item.getIsAnswered());
@@ -117,13 +304,44 @@ public class RethreiveData {
 
         question.setTitle(item.getTitle());
         question.setBody(item.getBody());
+        question.setBodyText(body.text());
+        question.setBodyTextLength(body.textLength());
+        question.setCodeLength(body.codeLength());
         question.setOwner(owner);
 
         if(item.getAcceptedAnswerId() != null){
             question.setAcceptedAnswerId(item.getAcceptedAnswerId());
         }
 
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        metrics.rowsInserted("questions", 1);
+        return saved;
+    }
+
+    // Only the counters of a stored question change, and only a change is written and reported
+    private void refreshQuestion(StackExchangeResponse.QuestionItem item, Question question) {
+        Long previousScore = question.getScore();
+        Long previousViewCount = question.getViewCount();
+        Long previousAnswerCount = question.getAnswerCount();
+        if (Objects.equals(previousScore, item.getScore())
+                && Objects.equals(previousViewCount, item.getViewCount())
+                && Objects.equals(previousAnswerCount, item.getAnswerCount())
+                && Objects.equals(question.getAcceptedAnswerId(), item.getAcceptedAnswerId())) {
+            return;
+        }
+
+        question.setScore(item.getScore());
+        question.setViewCount(item.getViewCount());
+        question.setAnswerCount(item.getAnswerCount());
+        question.setAcceptedAnswerId(item.getAcceptedAnswerId());
+        questionRepository.save(question);
+        metrics.rowsUpdated("questions", 1);
+
+        List<UpdatedQuestion> updated = List.of(new UpdatedQuestion(question.getId(), item,
+                questionRepository.findTagIds(question.getId()), previousScore, previousViewCount, previousAnswerCount));
+        for (IngestionListener listener : ingestionListeners) {
+            listener.onQuestionsUpdated(updated);
+        }
     }
 
     private void saveAnswer(List<StackExchangeResponse.Answer> answers, StackExchangeResponse.QuestionItem questionItem, Question question) {
@@ -144,34 +362,22 @@ public class RethreiveData {
                     continue; // Skip saving this answer if it already exists
                 }
 
-                // Extract the body and calculate its plain-text length
-                String body = apiAnswer.getBody(); // HTML body content
-                String plainTextBody = Jsoup.parse(body).text(); // Convert HTML to plain text using Jsoup
-                Long bodyLength = Long.valueOf(plainTextBody.length());
-
-                // Create a new Answer object if it doesn't exist
-                Answer newAnswer = new Answer();
-                newAnswer.setAnswerId(apiAnswer.getAnswerId());
-                newAnswer.setQuestionStackId(questionItem.getQuestionId());
-                newAnswer.setScore(apiAnswer.getScore());
-                newAnswer.setIsAccepted(apiAnswer.getIsAccepted());
-                newAnswer.setCreatedDate(convertToLocalDateTime(apiAnswer.getCreatedDate()));
-                newAnswer.setAnswerLength(bodyLength);
-
-                // Extract owner details from the API response
-                if (apiAnswer.getAnswerOwner() != null) {
-                    newAnswer.setAccountId(apiAnswer.getAnswerOwner().getAccountId());
-                    newAnswer.setUserId(Long.valueOf(apiAnswer.getAnswerOwner().getUserId())); // Ensure correct data type
-                    newAnswer.setOwnerReputation(apiAnswer.getAnswerOwner().getReputation());
-                } else {
-                    logger.warn("No owner information for Answer ID {}", apiAnswer.getAnswerId());
+                // Extract the body and calculate its plain-text and code lengths, then score it once here:
+                // /overall-answer-quality reads it back through an index. The answer commits with its code
+                // blocks, ON CONFLICT skips one another run stored since the check above.
+                PreprocessedHtml body = htmlPreprocessor.process(apiAnswer.getBody());
+                Boolean inserted = transactionTemplate.execute(status -> {
+                    Map<Long, Integer> ids = upserts.insertAnswers(List.of(new BulkUpsertRepository.NewAnswer(apiAnswer,
+                            questionItem, question.getId(), body)));
+                    for (Integer id : ids.values()) {
+                        upserts.insertAnswerCodeBlocks(Map.of(id, body));
+                    }
+                    return !ids.isEmpty();
+                });
+                if (!Boolean.TRUE.equals(inserted)) {
+                    logger.info("Answer with ID {} was stored meanwhile. Skipping...", apiAnswer.getAnswerId());
+                    continue;
                 }
-
-                // Associate the question
-                newAnswer.setQuestion(question);
-
-                // Save the new answer to the database
-                answerRepository.save(newAnswer);
                 logger.info("Answer with ID {} saved for Question ID {}", apiAnswer.getAnswerId(), questionItem.getQuestionId());
             } catch (Exception e) {
                 logger.error("Error saving answer with ID {} for Question ID {}", apiAnswer.getAnswerId(), questionItem.getQuestionId(), e);
@@ -182,18 +388,23 @@ public class RethreiveData {
 
     private void saveTags(List<String> tagNames, Question question) {
         Set<Tag> tags = new HashSet<>();
-        for (String tagName : tagNames) {
-            // Check if tag exists, if not, create and save it
-            Tag tag = tagRepository.findByName(tagName);
-            if (tag == null) {
-                tag = new Tag();
-                tag.setName(tagName);
-                tag = tagRepository.save(tag);
+        if (tagNames != null) {
+            for (Integer id : upserts.upsertTags(tagNames).ids().values()) {
+                tags.add(tagRepository.getReferenceById(id));
             }
-            tags.add(tag);
         }
         question.setTags(tags);
         questionRepository.save(question);
+        metrics.rowsInserted("questions_tags", tags.size());
+    }
+
+
+    private void notifyListeners(StackExchangeResponse.QuestionItem item, Question question, PreprocessedHtml body) {
+        List<Integer> tagIds = question.getTags().stream().map(Tag::getId).toList();
+        List<SavedQuestion> saved = List.of(new SavedQuestion(question.getId(), item, tagIds, body));
+        for (IngestionListener listener : ingestionListeners) {
+            listener.onQuestionsSaved(saved);
+        }
     }
 
 
@@ -204,47 +415,38 @@ public class RethreiveData {
     }
 
 
-    private List<StackExchangeResponse.QuestionItem> fetchQuestions(int totalQuestions) {
-        List<StackExchangeResponse.QuestionItem> allQuestions = new ArrayList<>();
+    private StackExchangeFetcher.FetchResult fetchQuestions(int totalQuestions, Long minActivityDate,
+                                                            List<StackExchangeResponse.QuestionItem> allQuestions) {
         int totalPages = (totalQuestions + 99) / 100; // Calculate pages required
 
-        // Correct base URL without the 'page=1' parameter
-//        String baseUrl = "https://api.stackexchange.com/2.3/questions?pagesize=100&order=desc&sort=activity&tagged=java&site=stackoverflow&filter=!4)7wd.G6sgmI5NUcy";
-
-        String baseUrl = "https://api.stackexchange.com/2.3/questions?page=1&pagesize=100&order=desc&sort=activity&tagged=java&site=stackoverflow&filter=!6WPIomnMNcVD9";
-
-
-
-        for (int page = 1; page <= totalPages; page++) {
-            // Append the correct page number to the URL
-            String url = baseUrl + "&page=" + page;
-            logger.debug("Fetching questions from URL: " + url);
-
-            try {
-                // Make the API request and capture the response
-                String response = restTemplate.getForObject(url, String.class);
-                logger.debug("API Response for page " + page + ": " + response);
-
-                // Deserialize the response into a StackExchangeResponse object
-                StackExchangeResponse stackExchangeResponse = objectMapper.readValue(response, StackExchangeResponse.class);
-                logger.debug("Deserialized Response: " + stackExchangeResponse);
-
-                // Add all items from the current page to the complete list
-                allQuestions.addAll(stackExchangeResponse.getItems());
-            } catch (Exception e) {
-                // Log the error if something goes wrong
-                logger.error("Error fetching questions on page " + page, e);
-            }
+        // Pages are fetched concurrently under the API rate limit and come back in page order, up to the first
+        // page that fails, so the questions are an unbroken run and the watermark cannot skip a missing page
+        return stackExchangeFetcher.fetchQuestions(totalPages, minActivityDate, allQuestions::addAll);
+    }
 
-            // Optional: Add a delay to avoid rate-limiting issues
-            try {
-                Thread.sleep(1000); // Wait for 1 second between requests
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-            }
+    // The next sync starts at the latest activity this one saw, min is inclusive so nothing at that second is lost.
+    // A question that failed holds it at its own activity, so the next sync fetches that question again.
+    private void advanceWatermark(List<StackExchangeResponse.QuestionItem> questions,
+                                  List<StackExchangeResponse.QuestionItem> failed, Long watermark) {
+        if (failed.stream().anyMatch(item -> item.getLastActivityDate() == null)) {
+            logger.warn("Sync watermark stays at {}, a failed question has no last activity date", watermark);
+            return;
+        }
+        OptionalLong latest = questions.stream()
+                .map(StackExchangeResponse.QuestionItem::getLastActivityDate)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .max();
+        OptionalLong earliestFailed = failed.stream()
+                .mapToLong(StackExchangeResponse.QuestionItem::getLastActivityDate)
+                .min();
+        if (earliestFailed.isPresent()) {
+            latest = OptionalLong.of(Math.min(latest.getAsLong(), earliestFailed.getAsLong()));
+        }
+        if (latest.isPresent() && (watermark == null || latest.getAsLong() > watermark)) {
+            appSettings.put(SYNC_WATERMARK, Long.toString(latest.getAsLong()));
+            logger.info("Sync watermark moved to {}", Instant.ofEpochSecond(latest.getAsLong()));
         }
-
-        return allQuestions;
     }
 
 }
@@ -0,0 +1,14 @@
+package sustech.java2finalproject.feature.data;
+
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.util.List;
+
+// A question as it was just written by ingestion: its database id, the API item, the ids of its tags and its preprocessed body
+public record SavedQuestion(
+        Integer id,
+        StackExchangeResponse.QuestionItem item,
+        List<Integer> tagIds,
+        PreprocessedHtml body
+) {
+}
@@ -0,0 +1,137 @@
+package sustech.java2finalproject.feature.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams question items out of local Stack Exchange API dumps.
+ * <p>
+ * Every {@code *.json} (or {@code *.json.gz}) file in the directory is expected to have the
+ * same shape as an API page, i.e. what {@link StackExchangeResponse} binds to. Files are read
+ * with a {@link JsonParser} token loop and only one item is bound at a time, so memory does
+ * not depend on the size of the dump.
+ */
+public class StackExchangeDumpReader implements Iterator<StackExchangeResponse.QuestionItem>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StackExchangeDumpReader.class);
+
+    private final ObjectMapper objectMapper;
+    private final Iterator<Path> files;
+
+    private JsonParser parser;
+    private StackExchangeResponse.QuestionItem next;
+
+    public StackExchangeDumpReader(Path directory, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        try (Stream<Path> listing = Files.list(directory)) {
+            List<Path> dumpFiles = listing
+                    .filter(Files::isRegularFile)
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.endsWith(".json") || name.endsWith(".json.gz");
+                    })
+                    .sorted()
+                    .toList();
+            logger.info("Found {} dump files in {}", dumpFiles.size(), directory);
+            this.files = dumpFiles.iterator();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public StackExchangeResponse.QuestionItem next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        StackExchangeResponse.QuestionItem item = next;
+        next = null;
+        return item;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            parser.close();
+            parser = null;
+        }
+    }
+
+    private StackExchangeResponse.QuestionItem advance() {
+        try {
+            while (true) {
+                if (parser == null) {
+                    if (!files.hasNext()) {
+                        return null;
+                    }
+                    parser = openItems(files.next());
+                    if (parser == null) {
+                        continue;
+                    }
+                }
+
+                // Positioned inside the items array: either the next object or the end of the array
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    return objectMapper.readValue(parser, StackExchangeResponse.QuestionItem.class);
+                }
+                close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Opens a dump file and moves the parser to the start of its "items" array
+    private JsonParser openItems(Path file) throws IOException {
+        logger.info("Importing questions from {}", file);
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        if (file.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        JsonParser jsonParser = objectMapper.getFactory().createParser(in);
+
+        JsonToken token = jsonParser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            // A bare list of items is accepted as well
+            return jsonParser;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = jsonParser.currentName();
+                JsonToken value = jsonParser.nextToken();
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    return jsonParser;
+                }
+                jsonParser.skipChildren();
+            }
+        }
+
+        logger.warn("No items array found in {}, skipping", file);
+        jsonParser.close();
+        return null;
+    }
+}
@@ -0,0 +1,193 @@
+package sustech.java2finalproject.feature.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Fetches question pages from the Stack Exchange API.
+ * <p>
+ * Up to {@code stackexchange.max-in-flight} pages are requested concurrently on virtual threads,
+ * all of them drawing from one token bucket. Server-sent {@code backoff} values and 429 responses
+ * pause the whole bucket, and fetching stops once the API reports no more pages or no quota left.
+ * Pages are handed to the consumer in page order on the calling thread. A page that still fails
+ * after its retries ends the fetch there, so the consumer only ever sees an unbroken run of pages.
+ * <p>
+ * Without a watermark the most recently active questions come first. With one, only questions
+ * active at or after it are requested, oldest activity first, so a capped run can be continued
+ * from the last item it saw without leaving a gap.
+ */
+@Component
+public class StackExchangeFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StackExchangeFetcher.class);
+
+    private static final int PAGE_SIZE = 100;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TokenBucket rateLimiter;
+    private final IngestionMetrics metrics;
+
+    private final String baseUrl;
+    private final String filter;
+    private final int maxInFlight;
+    private final int maxRetries;
+    private final long retryBaseMillis;
+
+    public StackExchangeFetcher(RestTemplate restTemplate, IngestionMetrics metrics,
+                                @Value("${stackexchange.base-url:https://api.stackexchange.com/2.3}") String baseUrl,
+                                @Value("${stackexchange.filter:!6WPIomnMNcVD9}") String filter,
+                                @Value("${stackexchange.max-in-flight:4}") int maxInFlight,
+                                @Value("${stackexchange.requests-per-second:10}") double requestsPerSecond,
+                                @Value("${stackexchange.max-retries:5}") int maxRetries,
+                                @Value("${stackexchange.retry-base-millis:2000}") long retryBaseMillis) {
+        this.restTemplate = restTemplate;
+        this.metrics = metrics;
+        this.baseUrl = baseUrl;
+        this.filter = filter;
+        this.maxInFlight = maxInFlight;
+        this.maxRetries = maxRetries;
+        this.retryBaseMillis = retryBaseMillis;
+        this.rateLimiter = new TokenBucket(maxInFlight, requestsPerSecond);
+    }
+
+    // Fetches up to totalPages pages and reports how many items were handed to the consumer
+    public FetchResult fetchQuestions(int totalPages, Consumer<List<StackExchangeResponse.QuestionItem>> pageConsumer) {
+        return fetchQuestions(totalPages, null, pageConsumer);
+    }
+
+    // Same, limited to questions with last activity at or after minActivityDate (epoch seconds) when it is set
+    public FetchResult fetchQuestions(int totalPages, Long minActivityDate,
+                                      Consumer<List<StackExchangeResponse.QuestionItem>> pageConsumer) {
+        int fetched = 0;
+        int failedPages = 0;
+        int nextPage = 1;
+        boolean hasMore = true;
+        // Quota as last reported to this fetch, concurrent fetches each keep their own
+        AtomicInteger quotaRemaining = new AtomicInteger(Integer.MAX_VALUE);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Deque<Future<StackExchangeResponse>> inFlight = new ArrayDeque<>();
+            while (true) {
+                // Keep the window full while there is quota and pages left
+                while (hasMore && nextPage <= totalPages && inFlight.size() < maxInFlight && quotaRemaining.get() > 0) {
+                    int page = nextPage++;
+                    inFlight.add(executor.submit(() -> fetchPage(page, minActivityDate, quotaRemaining)));
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+
+                StackExchangeResponse response = await(inFlight.poll());
+                if (response == null) {
+                    // Pages after a gap would let the caller's watermark move past it, the next sync fetches from here
+                    failedPages++;
+                    inFlight.forEach(future -> future.cancel(true));
+                    inFlight.clear();
+                    logger.warn("Stopped fetching at a failed page after {} items", fetched);
+                    break;
+                }
+                if (response.getItems() != null) {
+                    pageConsumer.accept(response.getItems());
+                    fetched += response.getItems().size();
+                }
+                if (Boolean.FALSE.equals(response.getHasMore()) && hasMore) {
+                    hasMore = false;
+                    // Later pages would come back empty, there is no point waiting for them
+                    inFlight.forEach(future -> future.cancel(true));
+                    inFlight.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while fetching questions, stopping after {} items", fetched);
+        }
+
+        if (quotaRemaining.get() <= 0) {
+            logger.warn("API quota exhausted after {} items", fetched);
+        }
+        return new FetchResult(fetched, failedPages);
+    }
+
+    // items were handed to the consumer; a failed page ends the fetch, so failedPages is 0 or 1
+    public record FetchResult(int items, int failedPages) {
+    }
+
+    private StackExchangeResponse await(Future<StackExchangeResponse> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.error("Error fetching questions page", e.getCause());
+            return null;
+        }
+    }
+
+    private StackExchangeResponse fetchPage(int page, Long minActivityDate, AtomicInteger quotaRemaining) throws Exception {
+        URI uri = UriComponentsBuilder.fromUriString(baseUrl)
+                .path("/questions")
+                .queryParam("page", page)
+                .queryParam("pagesize", PAGE_SIZE)
+                .queryParam("order", minActivityDate != null ? "asc" : "desc")
+                .queryParam("sort", "activity")
+                .queryParamIfPresent("min", Optional.ofNullable(minActivityDate))
+                .queryParam("tagged", "java")
+                .queryParam("site", "stackoverflow")
+                .queryParam("filter", filter)
+                .build()
+                .encode()
+                .toUri();
+
+        for (int attempt = 0; ; attempt++) {
+            rateLimiter.acquire();
+            logger.debug("Fetching questions from URL: {}", uri);
+            try {
+                String body = restTemplate.getForObject(uri, String.class);
+                StackExchangeResponse response = objectMapper.readValue(body, StackExchangeResponse.class);
+
+                metrics.pageFetched(response.getItems() != null ? response.getItems().size() : 0);
+                if (response.getQuotaRemaining() != null) {
+                    quotaRemaining.set(response.getQuotaRemaining());
+                }
+                if (response.getBackoff() != null && response.getBackoff() > 0) {
+                    logger.warn("API asked to back off for {} seconds after page {}", response.getBackoff(), page);
+                    Duration backoff = Duration.ofSeconds(response.getBackoff());
+                    metrics.backedOff(backoff);
+                    rateLimiter.pause(backoff);
+                }
+                return response;
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                // Exponential backoff with jitter so the in-flight requests do not retry in lockstep
+                long delay = retryBaseMillis << attempt;
+                long jitter = ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+                logger.warn("Too many requests on page {}, retrying in {} ms (Attempt {})", page, delay + jitter, attempt + 1);
+                Duration pause = Duration.ofMillis(delay + jitter);
+                metrics.retried(pause);
+                rateLimiter.pause(pause);
+            }
+        }
+    }
+}
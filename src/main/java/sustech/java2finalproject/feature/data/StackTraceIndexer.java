@@ -0,0 +1,178 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.feature.question.analysis.StackTraceParser;
+import sustech.java2finalproject.feature.question.analysis.StackTraceParser.Cause;
+import sustech.java2finalproject.feature.question.analysis.StackTraceParser.Frame;
+import sustech.java2finalproject.feature.question.analysis.StackTraceParser.StackTrace;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains the stack_trace_causes and stack_frames tables, the stack traces found in the
+ * {@code <pre>} blocks of question bodies.
+ * <p>
+ * New questions are parsed as they are ingested. Which {@link StackTraceParser#VERSION} the stored
+ * rows come from is kept in app_settings; when it differs at startup every question is parsed again
+ * from its code_blocks by {@link #backfill()}.
+ */
+@Component
+@RequiredArgsConstructor
+public class StackTraceIndexer implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(StackTraceIndexer.class);
+
+    static final String VERSION_SETTING = "stack_traces.parser-version";
+
+    private static final String INSERT_CAUSE =
+            "INSERT INTO stack_trace_causes (question_id, trace, position, exception_class, root_cause) " +
+                    "VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_FRAME =
+            "INSERT INTO stack_frames (question_id, trace, cause, position, package_name, class_name, method_name, " +
+                    "line_number, failing) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StackTraceParser stackTraceParser;
+    private final AppSettings appSettings;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void onQuestionsSaved(List<SavedQuestion> questions) {
+        Rows rows = new Rows();
+        for (SavedQuestion question : questions) {
+            List<String> blocks = new ArrayList<>();
+            for (PreprocessedHtml.Block block : question.body().codeBlocks()) {
+                if (!block.inline()) blocks.add(block.code());
+            }
+            collectTraces(question.id(), blocks, rows);
+        }
+        writeRows(rows);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfStale() {
+        String stored = appSettings.get(VERSION_SETTING).orElse(null);
+        if (!Objects.equals(stored, StackTraceParser.VERSION)) {
+            logger.info("Stored stack traces are stale (parser version {}, now {})", stored, StackTraceParser.VERSION);
+            if (backfill() > 0) {
+                eventPublisher.publishEvent(new DatasetChangedEvent("stack trace rebuild at startup"));
+            }
+        }
+    }
+
+    // Parses the code blocks of every stored question again in id order, one page per transaction
+    public int backfill() {
+        long start = System.nanoTime();
+        int parsed = 0;
+        int traces = 0;
+        int lastId = 0;
+        while (true) {
+            List<Integer> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM questions WHERE id > ? ORDER BY id LIMIT ?", Integer.class, lastId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            int fromId = lastId;
+            int toId = ids.get(ids.size() - 1);
+
+            List<Object[]> blocks = jdbcTemplate.query(
+                    "SELECT question_id, code FROM code_blocks WHERE question_id > ? AND question_id <= ? AND NOT inline " +
+                            "ORDER BY question_id, position",
+                    (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getString(2)},
+                    fromId, toId);
+            Rows rows = new Rows();
+            int from = 0;
+            while (from < blocks.size()) {
+                Integer questionId = (Integer) blocks.get(from)[0];
+                List<String> code = new ArrayList<>();
+                int to = from;
+                for (; to < blocks.size() && blocks.get(to)[0].equals(questionId); to++) {
+                    code.add((String) blocks.get(to)[1]);
+                }
+                collectTraces(questionId, code, rows);
+                from = to;
+            }
+
+            // The page's rows are replaced as a whole, so running this twice does not duplicate them
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM stack_frames WHERE question_id > ? AND question_id <= ?", fromId, toId);
+                jdbcTemplate.update("DELETE FROM stack_trace_causes WHERE question_id > ? AND question_id <= ?", fromId, toId);
+                writeRows(rows);
+            });
+
+            parsed += ids.size();
+            traces += rows.traces;
+            lastId = toId;
+        }
+        appSettings.put(VERSION_SETTING, StackTraceParser.VERSION);
+        logger.info("Parsed {} stack traces out of {} questions in {} ms", traces, parsed,
+                (System.nanoTime() - start) / 1_000_000);
+        return traces;
+    }
+
+    // Traces are numbered across all blocks of the question, in document order
+    private void collectTraces(Integer questionId, List<String> blocks, Rows rows) {
+        int trace = 0;
+        for (String block : blocks) {
+            for (StackTrace stackTrace : stackTraceParser.parse(block)) {
+                List<Cause> causes = stackTrace.causes();
+                for (int cause = 0; cause < causes.size(); cause++) {
+                    rows.causes.add(new Object[]{questionId, trace, cause, causes.get(cause).exceptionClass(),
+                            cause == causes.size() - 1});
+                    List<Frame> frames = causes.get(cause).frames();
+                    for (int position = 0; position < frames.size(); position++) {
+                        Frame frame = frames.get(position);
+                        rows.frames.add(new Object[]{questionId, trace, cause, position, frame.packageName(),
+                                frame.className(), frame.methodName(), frame.lineNumber(),
+                                cause == stackTrace.failingCause() && position == stackTrace.failingFrame()});
+                    }
+                }
+                trace++;
+            }
+        }
+        rows.traces += trace;
+    }
+
+    private void writeRows(Rows rows) {
+        jdbcTemplate.batchUpdate(INSERT_CAUSE, rows.causes, batchSize, (ps, row) -> {
+            ps.setInt(1, (Integer) row[0]);
+            ps.setInt(2, (Integer) row[1]);
+            ps.setInt(3, (Integer) row[2]);
+            ps.setString(4, (String) row[3]);
+            ps.setBoolean(5, (Boolean) row[4]);
+        });
+        jdbcTemplate.batchUpdate(INSERT_FRAME, rows.frames, batchSize, (ps, row) -> {
+            ps.setInt(1, (Integer) row[0]);
+            ps.setInt(2, (Integer) row[1]);
+            ps.setInt(3, (Integer) row[2]);
+            ps.setInt(4, (Integer) row[3]);
+            ps.setString(5, (String) row[4]);
+            ps.setString(6, (String) row[5]);
+            ps.setString(7, (String) row[6]);
+            ps.setObject(8, row[7], Types.INTEGER);
+            ps.setBoolean(9, (Boolean) row[8]);
+        });
+    }
+
+    private static final class Rows {
+        final List<Object[]> causes = new ArrayList<>();
+        final List<Object[]> frames = new ArrayList<>();
+        int traces;
+    }
+}
@@ -0,0 +1,249 @@
+package sustech.java2finalproject.feature.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import sustech.java2finalproject.feature.question.analysis.ExceptionScanner;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates a reproducible Stack Overflow-like corpus of question items, one at a time.
+ * <p>
+ * The same {@link Spec} always produces the same items. Tags and askers are drawn from Zipf
+ * distributions, reputation, views and scores are Pareto tailed, and bodies are HTML with
+ * paragraphs, code blocks and stack traces that name the exceptions ExceptionScanner knows.
+ * Nothing is kept per item, so the corpus can be much larger than the heap.
+ */
+public class SyntheticCorpus implements Iterator<StackExchangeResponse.QuestionItem> {
+
+    // 2008-08-01, roughly when Stack Overflow opened, to 2024-12-31
+    private static final long FIRST_CREATION = 1_217_548_800L;
+    private static final long LAST_CREATION = 1_735_603_200L;
+
+    private static final long FIRST_QUESTION_ID = 1_000_000L;
+    private static final long FIRST_ANSWER_ID = 500_000_000L;
+    private static final int MAX_REPUTATION = 1_500_000;
+
+    private static final String[] WORDS = {
+            "when", "I", "call", "the", "method", "from", "my", "controller", "it", "throws", "an", "error", "at",
+            "runtime", "list", "map", "stream", "thread", "lambda", "returns", "null", "value", "how", "can", "fix",
+            "this", "class", "interface", "generic", "array", "index", "loop", "spring", "bean", "hibernate",
+            "entity", "query", "maven", "gradle", "build", "test", "junit", "json", "parse", "string", "file",
+            "connection", "database", "server", "request", "response", "config", "property", "annotation"
+    };
+    private static final String[] PACKAGES = {
+            "com.example.service", "com.example.web", "org.hibernate.internal", "org.springframework.beans",
+            "java.util", "java.io", "com.acme.batch", "org.apache.catalina.core"
+    };
+
+    /**
+     * @param seed               everything is derived from it
+     * @param questions          number of items
+     * @param tags               distinct tags besides "java", which every question carries
+     * @param owners             distinct askers
+     * @param answersPerQuestion average number of answers, each question gets between 0 and twice this
+     * @param tagSkew            Zipf exponent of tag popularity, around 1 for real tag data
+     */
+    public record Spec(long seed, int questions, int tags, int owners, double answersPerQuestion, double tagSkew) {
+
+        public Spec {
+            if (questions < 0 || tags < 1 || owners < 1 || answersPerQuestion < 0 || tagSkew <= 0) {
+                throw new IllegalArgumentException("Invalid synthetic corpus spec: " + this);
+            }
+        }
+    }
+
+    private final Spec spec;
+    private final SplittableRandom random;
+    private final ZipfSampler tagSampler;
+    private final ZipfSampler ownerSampler;
+    private final ZipfSampler exceptionSampler;
+    private int produced;
+    private long nextAnswerId = FIRST_ANSWER_ID;
+
+    public SyntheticCorpus(Spec spec) {
+        this.spec = spec;
+        this.random = new SplittableRandom(spec.seed());
+        this.tagSampler = new ZipfSampler(spec.tags(), spec.tagSkew());
+        this.ownerSampler = new ZipfSampler(spec.owners(), 0.8);
+        this.exceptionSampler = new ZipfSampler(ExceptionScanner.COMMON_EXCEPTIONS.length, 1.0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return produced < spec.questions();
+    }
+
+    @Override
+    public StackExchangeResponse.QuestionItem next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int index = produced++;
+
+        StackExchangeResponse.QuestionItem item = new StackExchangeResponse.QuestionItem();
+        item.setQuestionId(FIRST_QUESTION_ID + index);
+        // Spread evenly over the years with a little jitter, so ids and dates grow together
+        long span = LAST_CREATION - FIRST_CREATION;
+        long creation = FIRST_CREATION + span * index / Math.max(1, spec.questions()) + random.nextLong(3600);
+        item.setCreationDate(creation);
+        item.setOwner(owner(ownerSampler.sample(random)));
+        item.setTitle(sentence(6 + random.nextInt(10)));
+        item.setBody(body());
+        item.setLink("https://stackoverflow.com/questions/" + item.getQuestionId());
+        item.setViewCount(Math.min(10_000_000L, pareto(20, 1.2)));
+        item.setScore(random.nextInt(8) == 0 ? -(long) random.nextInt(5) : pareto(1, 1.6) - 1);
+
+        List<String> tags = new ArrayList<>();
+        tags.add("java");
+        // A spec with fewer than 4 tags cannot fill more extra slots than it has tags
+        int extraTags = Math.min(random.nextInt(5), spec.tags());
+        while (tags.size() < extraTags + 1) {
+            String tag = "tag-" + tagSampler.sample(random);
+            if (!tags.contains(tag)) tags.add(tag);
+        }
+        item.setTags(tags);
+
+        int answerCount = spec.answersPerQuestion() == 0 ? 0 : random.nextInt((int) Math.round(2 * spec.answersPerQuestion()) + 1);
+        List<StackExchangeResponse.Answer> answers = new ArrayList<>(answerCount);
+        boolean answered = false;
+        for (int i = 0; i < answerCount; i++) {
+            StackExchangeResponse.Answer answer = answer(item, creation);
+            if (!answered && random.nextInt(3) > 0) {
+                answer.setIsAccepted(true);
+                item.setAcceptedAnswerId(answer.getAnswerId());
+                answered = true;
+            }
+            answers.add(answer);
+        }
+        item.setAnswers(answers);
+        item.setAnswerCount((long) answerCount);
+        item.setIsAnswered(answered);
+        return item;
+    }
+
+    // Writes the corpus as gzipped API pages questions-000001.json.gz, ... that /data/import reads back, returns the files written
+    public List<Path> writePages(Path directory, int pageSize, ObjectMapper objectMapper) throws IOException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1: " + pageSize);
+        }
+        Files.createDirectories(directory);
+        List<Path> written = new ArrayList<>();
+        while (hasNext()) {
+            int files = written.size() + 1;
+            Path file = directory.resolve(String.format("questions-%06d.json.gz", files));
+            written.add(file);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file));
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("items");
+                for (int i = 0; i < pageSize && hasNext(); i++) {
+                    objectMapper.writeValue(generator, next());
+                }
+                generator.writeEndArray();
+                generator.writeBooleanField("has_more", hasNext());
+                generator.writeNumberField("quota_remaining", 10_000 - files % 10_000);
+                generator.writeEndObject();
+            }
+        }
+        return written;
+    }
+
+    private StackExchangeResponse.Answer answer(StackExchangeResponse.QuestionItem question, long questionCreation) {
+        StackExchangeResponse.Answer answer = new StackExchangeResponse.Answer();
+        answer.setAnswerId(nextAnswerId++);
+        answer.setQuestionStackId(question.getQuestionId());
+        answer.setIsAccepted(false);
+        answer.setScore((int) (random.nextInt(6) == 0 ? -random.nextInt(3) : pareto(1, 1.4) - 1));
+        // Most answers come within hours, some years later
+        answer.setCreatedDate(questionCreation + Math.min(LAST_CREATION - questionCreation, pareto(60, 0.5)));
+        answer.setBody(body());
+
+        StackExchangeResponse.Owner owner = owner(random.nextInt(spec.owners()));
+        StackExchangeResponse.AnswerOwner answerOwner = new StackExchangeResponse.AnswerOwner();
+        answerOwner.setAccountId(owner.getAccountId());
+        answerOwner.setUserId(owner.getUserId());
+        answerOwner.setReputation(owner.getReputation());
+        answer.setAnswerOwner(answerOwner);
+        answer.setOwnerReputation(owner.getReputation());
+        return answer;
+    }
+
+    // The same owner index always has the same account and reputation
+    private StackExchangeResponse.Owner owner(int index) {
+        SplittableRandom ownerRandom = new SplittableRandom(spec.seed() ^ (0x9E3779B97F4A7C15L * (index + 1)));
+        StackExchangeResponse.Owner owner = new StackExchangeResponse.Owner();
+        owner.setAccountId((long) index + 1);
+        owner.setUserId(String.valueOf(index + 1));
+        owner.setUserType("registered");
+        owner.setDisplayName("user" + (index + 1));
+        owner.setReputation(Math.min(MAX_REPUTATION, (long) (1 / Math.pow(1 - ownerRandom.nextDouble(), 1 / 0.9))));
+        return owner;
+    }
+
+    private String body() {
+        StringBuilder html = new StringBuilder();
+        int paragraphs = 1 + random.nextInt(4);
+        for (int p = 0; p < paragraphs; p++) {
+            html.append("<p>").append(sentence(8 + random.nextInt(30))).append("</p>\n");
+            int roll = random.nextInt(10);
+            if (roll < 3) {
+                html.append("<pre><code>").append(codeBlock()).append("</code></pre>\n");
+            } else if (roll < 5) {
+                html.append("<pre><code>").append(stackTrace()).append("</code></pre>\n");
+            }
+        }
+        return html.toString();
+    }
+
+    private String codeBlock() {
+        StringBuilder code = new StringBuilder();
+        int lines = 2 + random.nextInt(10);
+        for (int i = 0; i < lines; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            code.append("    ").append(random.nextBoolean() ? "String " : "int ").append(word).append(i)
+                    .append(" = ").append(word).append("(").append(random.nextInt(100)).append(");\n");
+        }
+        return code.toString();
+    }
+
+    private String stackTrace() {
+        String exception = ExceptionScanner.COMMON_EXCEPTIONS[exceptionSampler.sample(random)];
+        String prefix = exception.endsWith("Error") ? "java.lang." : random.nextBoolean() ? "java.lang." : "";
+        StringBuilder trace = new StringBuilder("Exception in thread \"main\" ")
+                .append(prefix).append(exception).append(": ").append(sentence(3 + random.nextInt(5))).append('\n');
+        int frames = 2 + random.nextInt(8);
+        for (int i = 0; i < frames; i++) {
+            String pkg = PACKAGES[random.nextInt(PACKAGES.length)];
+            String type = Character.toUpperCase(WORDS[random.nextInt(WORDS.length)].charAt(0)) + "Handler";
+            trace.append("\tat ").append(pkg).append('.').append(type).append('.')
+                    .append(WORDS[random.nextInt(WORDS.length)]).append('(').append(type).append(".java:")
+                    .append(1 + random.nextInt(400)).append(")\n");
+        }
+        return trace.toString();
+    }
+
+    private String sentence(int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sentence.append(' ');
+            if (random.nextInt(40) == 0) {
+                sentence.append(ExceptionScanner.COMMON_EXCEPTIONS[exceptionSampler.sample(random)]);
+            } else {
+                sentence.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+        }
+        return sentence.toString();
+    }
+
+    // Pareto with minimum scale and tail index alpha, smaller alpha means a heavier tail
+    private long pareto(double scale, double alpha) {
+        return (long) (scale / Math.pow(1 - random.nextDouble(), 1 / alpha));
+    }
+}
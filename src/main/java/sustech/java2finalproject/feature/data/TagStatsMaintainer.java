@@ -0,0 +1,159 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.feature.data.dto.TagStatsReport;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the tag_stats table: per tag the number of questions and the sums of their score,
+ * view count and answer count.
+ * <p>
+ * Every chunk of saved questions is folded into per-tag deltas and added with one upsert per tag,
+ * in the same transaction as the questions themselves. {@link #rebuild()} recomputes the table from
+ * the question/tag join and reports the rows that had drifted from it.
+ */
+@Component
+@RequiredArgsConstructor
+public class TagStatsMaintainer implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagStatsMaintainer.class);
+
+    private static final int SAMPLE_MISMATCHES = 20;
+
+    private static final String UPSERT_STATS =
+            "INSERT INTO tag_stats (tag_id, question_count, score_sum, view_sum, answer_count_sum) VALUES (?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (tag_id) DO UPDATE SET " +
+                    "question_count = tag_stats.question_count + EXCLUDED.question_count, " +
+                    "score_sum = tag_stats.score_sum + EXCLUDED.score_sum, " +
+                    "view_sum = tag_stats.view_sum + EXCLUDED.view_sum, " +
+                    "answer_count_sum = tag_stats.answer_count_sum + EXCLUDED.answer_count_sum";
+
+    // The same aggregate computed from scratch, missing counters count as 0
+    private static final String LIVE_STATS =
+            "SELECT qt.tag_id, COUNT(*) AS question_count, COALESCE(SUM(q.score), 0) AS score_sum, " +
+                    "COALESCE(SUM(q.view_count), 0) AS view_sum, COALESCE(SUM(q.answer_count), 0) AS answer_count_sum " +
+                    "FROM questions_tags qt JOIN questions q ON q.id = qt.question_id GROUP BY qt.tag_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void onQuestionsSaved(List<SavedQuestion> questions) {
+        // Sum the chunk per tag first, so a popular tag is one upsert rather than one per question
+        Map<Integer, long[]> deltas = new LinkedHashMap<>();
+        for (SavedQuestion question : questions) {
+            StackExchangeResponse.QuestionItem item = question.item();
+            for (Integer tagId : question.tagIds()) {
+                long[] delta = deltas.computeIfAbsent(tagId, id -> new long[4]);
+                delta[0]++;
+                delta[1] += orZero(item.getScore());
+                delta[2] += orZero(item.getViewCount());
+                delta[3] += orZero(item.getAnswerCount());
+            }
+        }
+        writeDeltas(deltas);
+    }
+
+    @Override
+    public void onQuestionsUpdated(List<UpdatedQuestion> questions) {
+        // Same tags and question count, only the sums move by how much each counter changed
+        Map<Integer, long[]> deltas = new LinkedHashMap<>();
+        for (UpdatedQuestion question : questions) {
+            StackExchangeResponse.QuestionItem item = question.item();
+            for (Integer tagId : question.tagIds()) {
+                long[] delta = deltas.computeIfAbsent(tagId, id -> new long[4]);
+                delta[1] += orZero(item.getScore()) - orZero(question.previousScore());
+                delta[2] += orZero(item.getViewCount()) - orZero(question.previousViewCount());
+                delta[3] += orZero(item.getAnswerCount()) - orZero(question.previousAnswerCount());
+            }
+        }
+        writeDeltas(deltas);
+    }
+
+    private void writeDeltas(Map<Integer, long[]> deltas) {
+        // Tag id order keeps concurrent chunks from locking the same rows in opposite orders
+        List<Map.Entry<Integer, long[]>> rows = new ArrayList<>(deltas.entrySet());
+        rows.sort(Map.Entry.comparingByKey());
+        jdbcTemplate.batchUpdate(UPSERT_STATS, rows, batchSize, (ps, row) -> {
+            ps.setInt(1, row.getKey());
+            ps.setLong(2, row.getValue()[0]);
+            ps.setLong(3, row.getValue()[1]);
+            ps.setLong(4, row.getValue()[2]);
+            ps.setLong(5, row.getValue()[3]);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        Boolean built = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM tag_stats)", Boolean.class);
+        Boolean hasLinks = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM questions_tags)", Boolean.class);
+        if (!Boolean.TRUE.equals(built) && Boolean.TRUE.equals(hasLinks) && rebuild().tags() > 0) {
+            eventPublisher.publishEvent(new DatasetChangedEvent("tag_stats rebuild at startup"));
+        }
+    }
+
+    // Diffs tag_stats against the live join, then replaces its contents with the live values
+    public TagStatsReport rebuild() {
+        long start = System.nanoTime();
+        Rebuilt rebuilt = transactionTemplate.execute(status -> {
+            // Keep ingestion from changing either side between the diff and the rewrite
+            jdbcTemplate.execute("LOCK TABLE tag_stats IN EXCLUSIVE MODE");
+
+            List<String> mismatches = jdbcTemplate.query(
+                    "SELECT COALESCE(t.name, CAST(COALESCE(s.tag_id, l.tag_id) AS varchar)), " +
+                            "s.question_count, l.question_count, s.score_sum, l.score_sum, " +
+                            "s.view_sum, l.view_sum, s.answer_count_sum, l.answer_count_sum " +
+                            "FROM tag_stats s FULL OUTER JOIN (" + LIVE_STATS + ") l ON l.tag_id = s.tag_id " +
+                            "LEFT JOIN tags t ON t.id = COALESCE(s.tag_id, l.tag_id) " +
+                            "WHERE s.tag_id IS NULL OR l.tag_id IS NULL " +
+                            "OR s.question_count <> l.question_count OR s.score_sum <> l.score_sum " +
+                            "OR s.view_sum <> l.view_sum OR s.answer_count_sum <> l.answer_count_sum " +
+                            "ORDER BY 1",
+                    (rs, rowNum) -> String.format("%s: count %s/%s, score %s/%s, views %s/%s, answers %s/%s",
+                            rs.getString(1), rs.getObject(2), rs.getObject(3), rs.getObject(4), rs.getObject(5),
+                            rs.getObject(6), rs.getObject(7), rs.getObject(8), rs.getObject(9)));
+
+            jdbcTemplate.update("DELETE FROM tag_stats");
+            int tags = jdbcTemplate.update("INSERT INTO tag_stats (tag_id, question_count, score_sum, view_sum, answer_count_sum) "
+                    + LIVE_STATS);
+            return new Rebuilt(tags, mismatches);
+        });
+
+        List<String> mismatches = rebuilt.mismatches();
+        TagStatsReport report = new TagStatsReport(rebuilt.tags(), mismatches.size(),
+                mismatches.subList(0, Math.min(SAMPLE_MISMATCHES, mismatches.size())),
+                (System.nanoTime() - start) / 1_000_000);
+        if (report.mismatchedTags() > 0) {
+            logger.warn("tag_stats had drifted on {} of {} tags, e.g. {}", report.mismatchedTags(), report.tags(),
+                    report.sampleMismatches());
+        } else {
+            logger.info("tag_stats rebuilt for {} tags in {} ms, no drift", report.tags(), report.elapsedMillis());
+        }
+        return report;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private record Rebuilt(int tags, List<String> mismatches) {
+    }
+}
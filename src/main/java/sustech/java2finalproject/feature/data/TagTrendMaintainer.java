@@ -0,0 +1,181 @@
+package sustech.java2finalproject.feature.data;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.domain.TrendGranularity;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the tag_trends table: per tag, granularity and bucket the number of questions created
+ * in that bucket and the sums of their score, view count, answer count and owner reputation.
+ * <p>
+ * Like tag_stats, every saved chunk is folded into per-bucket deltas and added with one upsert per
+ * row. Creation dates are bucketed in UTC, the zone they are stored in.
+ * <p>
+ * The reputation summed is always the one on the question's stored owners row, never the one in the API
+ * item, so an incremental delta adds exactly what {@link #rebuild()} would count for the question at that
+ * moment. Owner rows keep the reputation they were first stored with, so neither path drifts with it.
+ */
+@Component
+@RequiredArgsConstructor
+public class TagTrendMaintainer implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagTrendMaintainer.class);
+
+    private static final String UPSERT_TREND =
+            "INSERT INTO tag_trends (tag_id, granularity, bucket_start, question_count, score_sum, view_sum, " +
+                    "answer_count_sum, reputation_sum) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (tag_id, granularity, bucket_start) DO UPDATE SET " +
+                    "question_count = tag_trends.question_count + EXCLUDED.question_count, " +
+                    "score_sum = tag_trends.score_sum + EXCLUDED.score_sum, " +
+                    "view_sum = tag_trends.view_sum + EXCLUDED.view_sum, " +
+                    "answer_count_sum = tag_trends.answer_count_sum + EXCLUDED.answer_count_sum, " +
+                    "reputation_sum = tag_trends.reputation_sum + EXCLUDED.reputation_sum";
+
+    private static final String INSERT_FROM_QUESTIONS =
+            "INSERT INTO tag_trends (tag_id, granularity, bucket_start, question_count, score_sum, view_sum, " +
+                    "answer_count_sum, reputation_sum) " +
+                    "SELECT qt.tag_id, ?, CAST(date_trunc(?, q.creation_date) AS date), COUNT(*), " +
+                    "COALESCE(SUM(q.score), 0), COALESCE(SUM(q.view_count), 0), COALESCE(SUM(q.answer_count), 0), " +
+                    "COALESCE(SUM(o.reputation), 0) " +
+                    "FROM questions_tags qt JOIN questions q ON q.id = qt.question_id LEFT JOIN owners o ON o.id = q.owner_id " +
+                    "WHERE q.creation_date IS NOT NULL GROUP BY 1, 3";
+
+    private static final Comparator<BucketKey> BUCKET_ORDER = Comparator.comparing(BucketKey::tagId)
+            .thenComparing(BucketKey::granularity)
+            .thenComparing(BucketKey::bucketStart);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void onQuestionsSaved(List<SavedQuestion> questions) {
+        Map<Integer, Long> reputations = storedOwnerReputations(questions);
+        Map<BucketKey, long[]> deltas = new TreeMap<>(BUCKET_ORDER);
+        for (SavedQuestion question : questions) {
+            StackExchangeResponse.QuestionItem item = question.item();
+            if (item.getCreationDate() == null) continue;
+            LocalDate created = Instant.ofEpochSecond(item.getCreationDate()).atZone(ZoneOffset.UTC).toLocalDate();
+            Long reputation = reputations.get(question.id());
+            for (Integer tagId : question.tagIds()) {
+                for (TrendGranularity granularity : TrendGranularity.values()) {
+                    long[] delta = deltas.computeIfAbsent(
+                            new BucketKey(tagId, granularity, granularity.bucketStart(created)), key -> new long[5]);
+                    delta[0]++;
+                    delta[1] += orZero(item.getScore());
+                    delta[2] += orZero(item.getViewCount());
+                    delta[3] += orZero(item.getAnswerCount());
+                    delta[4] += orZero(reputation);
+                }
+            }
+        }
+        writeDeltas(deltas);
+    }
+
+    // Question id -> reputation of its owners row, read in the transaction that just wrote them
+    private Map<Integer, Long> storedOwnerReputations(List<SavedQuestion> questions) {
+        Map<Integer, Long> reputations = new HashMap<>();
+        if (questions.isEmpty()) {
+            return reputations;
+        }
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT q.id, o.reputation FROM questions q JOIN owners o ON o.id = q.owner_id " +
+                    "WHERE q.id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("integer", questions.stream().map(SavedQuestion::id).toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> reputations.put(rs.getInt(1), rs.getObject(2, Long.class)));
+        return reputations;
+    }
+
+    @Override
+    public void onQuestionsUpdated(List<UpdatedQuestion> questions) {
+        // The buckets and question counts stay, the sums move by how much each counter changed
+        Map<BucketKey, long[]> deltas = new TreeMap<>(BUCKET_ORDER);
+        for (UpdatedQuestion question : questions) {
+            StackExchangeResponse.QuestionItem item = question.item();
+            if (item.getCreationDate() == null) continue;
+            LocalDate created = Instant.ofEpochSecond(item.getCreationDate()).atZone(ZoneOffset.UTC).toLocalDate();
+            for (Integer tagId : question.tagIds()) {
+                for (TrendGranularity granularity : TrendGranularity.values()) {
+                    long[] delta = deltas.computeIfAbsent(
+                            new BucketKey(tagId, granularity, granularity.bucketStart(created)), key -> new long[5]);
+                    delta[1] += orZero(item.getScore()) - orZero(question.previousScore());
+                    delta[2] += orZero(item.getViewCount()) - orZero(question.previousViewCount());
+                    delta[3] += orZero(item.getAnswerCount()) - orZero(question.previousAnswerCount());
+                }
+            }
+        }
+        writeDeltas(deltas);
+    }
+
+    private void writeDeltas(Map<BucketKey, long[]> deltas) {
+        // Sorted by key, so concurrent chunks lock shared rows in the same order
+        List<Map.Entry<BucketKey, long[]>> rows = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_TREND, rows, batchSize, (ps, row) -> {
+            BucketKey key = row.getKey();
+            long[] delta = row.getValue();
+            ps.setInt(1, key.tagId());
+            ps.setString(2, key.granularity().name());
+            ps.setDate(3, Date.valueOf(key.bucketStart()));
+            for (int i = 0; i < delta.length; i++) {
+                ps.setLong(4 + i, delta[i]);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        Boolean built = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM tag_trends)", Boolean.class);
+        Boolean hasLinks = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM questions_tags)", Boolean.class);
+        if (!Boolean.TRUE.equals(built) && Boolean.TRUE.equals(hasLinks) && rebuild() > 0) {
+            eventPublisher.publishEvent(new DatasetChangedEvent("tag_trends rebuild at startup"));
+        }
+    }
+
+    // Recomputes every bucket from the questions table and returns the number of rows written
+    public int rebuild() {
+        long start = System.nanoTime();
+        Integer rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE tag_trends IN EXCLUSIVE MODE");
+            jdbcTemplate.update("DELETE FROM tag_trends");
+            int written = 0;
+            for (TrendGranularity granularity : TrendGranularity.values()) {
+                written += jdbcTemplate.update(INSERT_FROM_QUESTIONS, granularity.name(), granularity.sqlUnit());
+            }
+            return written;
+        });
+        logger.info("Rebuilt {} tag trend buckets in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return rows != null ? rows : 0;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private record BucketKey(Integer tagId, TrendGranularity granularity, LocalDate bucketStart) {
+    }
+}
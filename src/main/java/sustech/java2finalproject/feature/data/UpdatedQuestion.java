@@ -0,0 +1,16 @@
+package sustech.java2finalproject.feature.data;
+
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.util.List;
+
+// A question that was already stored and whose counters were just refreshed: the API item holds the new values
+public record UpdatedQuestion(
+        Integer id,
+        StackExchangeResponse.QuestionItem item,
+        List<Integer> tagIds,
+        Long previousScore,
+        Long previousViewCount,
+        Long previousAnswerCount
+) {
+}
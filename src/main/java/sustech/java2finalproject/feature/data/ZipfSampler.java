@@ -0,0 +1,27 @@
+package sustech.java2finalproject.feature.data;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Draws ranks 0..n-1 with probability proportional to 1 / (rank + 1)^exponent, by binary search over the CDF
+final class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int n, double exponent) {
+        cdf = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cdf[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= total;
+        }
+    }
+
+    int sample(SplittableRandom random) {
+        int rank = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(cdf.length - 1, rank >= 0 ? rank : -rank - 1);
+    }
+}
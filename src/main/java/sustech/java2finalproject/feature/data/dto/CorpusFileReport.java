@@ -0,0 +1,10 @@
+package sustech.java2finalproject.feature.data.dto;
+
+public record CorpusFileReport(
+        String directory,
+        Integer questions,
+        Integer files,
+        Long bytes,
+        Long elapsedMillis
+) {
+}
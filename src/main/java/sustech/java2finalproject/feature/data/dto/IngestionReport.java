@@ -0,0 +1,24 @@
+package sustech.java2finalproject.feature.data.dto;
+
+// failedQuestions were part of a write that rolled back, they are counted in questions too;
+// failedPages are API pages that could not be fetched, which ended the fetch
+public record IngestionReport(
+        String mode,
+        Integer questions,
+        Integer failedQuestions,
+        Integer failedPages,
+        Long rowsInserted,
+        Long elapsedMillis,
+        Double rowsPerSecond
+) {
+
+    public static IngestionReport of(String mode, int questions, int failedQuestions, long rowsInserted, long elapsedNanos) {
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        double rowsPerSecond = elapsedNanos > 0 ? rowsInserted * 1_000_000_000.0 / elapsedNanos : 0.0;
+        return new IngestionReport(mode, questions, failedQuestions, 0, rowsInserted, elapsedMillis, rowsPerSecond);
+    }
+
+    public IngestionReport withFailedPages(int failedPages) {
+        return new IngestionReport(mode, questions, failedQuestions, failedPages, rowsInserted, elapsedMillis, rowsPerSecond);
+    }
+}
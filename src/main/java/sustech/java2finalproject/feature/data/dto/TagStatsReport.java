@@ -0,0 +1,12 @@
+package sustech.java2finalproject.feature.data.dto;
+
+import java.util.List;
+
+// Outcome of rebuilding tag_stats: how many tags it held that disagreed with the live join, and a few of them
+public record TagStatsReport(
+        Integer tags,
+        Integer mismatchedTags,
+        List<String> sampleMismatches,
+        Long elapsedMillis
+) {
+}
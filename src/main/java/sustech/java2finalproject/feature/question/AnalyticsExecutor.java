@@ -0,0 +1,202 @@
+package sustech.java2finalproject.feature.question;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sustech.java2finalproject.config.MetricsConfig;
+import sustech.java2finalproject.config.MetricsConfig.StatementCounter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs expensive analytics off the request thread, with a concurrency limit and a timeout per endpoint.
+ * <p>
+ * Each endpoint name gets its own semaphore, sized by {@code analytics.endpoints.<name>.max-concurrent}
+ * (default {@code analytics.max-concurrent}). A call that cannot start and finish within
+ * {@code analytics.endpoints.<name>.timeout} (default {@code analytics.timeout}) fails with 503, so a
+ * burst of heavy dashboard loads queues up against its own limit instead of against everything else.
+ * <p>
+ * The work runs on a thread of its own, so the statements it sends are recorded here as
+ * {@code analytics.statements} per endpoint rather than by the per-request filter in {@link MetricsConfig}.
+ */
+@Component
+public class AnalyticsExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsExecutor.class);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+    private final Environment environment;
+    private final MeterRegistry registry;
+    private final int defaultMaxConcurrent;
+    private final Duration defaultTimeout;
+
+    public AnalyticsExecutor(Environment environment, MeterRegistry registry,
+                             @Value("${analytics.max-concurrent:4}") int defaultMaxConcurrent,
+                             @Value("${analytics.timeout:PT30S}") Duration defaultTimeout) {
+        this.environment = environment;
+        this.registry = registry;
+        this.defaultMaxConcurrent = defaultMaxConcurrent;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public <T> CompletableFuture<T> submit(String endpoint, Supplier<T> work) {
+        Limit limit = limits.computeIfAbsent(endpoint, this::newLimit);
+        long deadline = System.nanoTime() + limit.timeout().toNanos();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                // Waiting for a permit counts against the timeout too
+                if (!limit.permits().tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            StatementCounter.reset();
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = work.get();
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                // Released and recorded before the caller sees the result
+                limit.permits().release();
+                registry.summary("analytics.statements", "endpoint", endpoint).record(StatementCounter.reset());
+            }
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        });
+
+        return result
+                .orTimeout(limit.timeout().toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error instanceof TimeoutException) {
+                        task.cancel(true);
+                    }
+                })
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        throw timedOut(endpoint, limit);
+                    }
+                    throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                });
+    }
+
+    /**
+     * Puts a streamed response under the endpoint's limit as well.
+     * <p>
+     * The body already runs on an async thread of its own, so the permit is taken there: a stream that
+     * cannot get one within the timeout fails with 503 before writing anything. Once it writes, the
+     * response is committed, so a stream still running past the deadline is cut off instead.
+     */
+    public ResponseEntity<StreamingResponseBody> stream(String endpoint, ResponseEntity<StreamingResponseBody> response) {
+        StreamingResponseBody body = response.getBody();
+        StreamingResponseBody limited = out -> {
+            Limit limit = limits.computeIfAbsent(endpoint, this::newLimit);
+            long deadline = System.nanoTime() + limit.timeout().toNanos();
+            try {
+                if (!limit.permits().tryAcquire(limit.timeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw timedOut(endpoint, limit);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(endpoint + " was interrupted waiting for a permit");
+            }
+            StatementCounter.reset();
+            try {
+                body.writeTo(new DeadlineOutputStream(out, endpoint, limit, deadline));
+            } finally {
+                limit.permits().release();
+                registry.summary("analytics.statements", "endpoint", endpoint).record(StatementCounter.reset());
+            }
+        };
+        return new ResponseEntity<>(limited, response.getHeaders(), response.getStatusCode());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Limit newLimit(String endpoint) {
+        int maxConcurrent = environment.getProperty("analytics.endpoints." + endpoint + ".max-concurrent",
+                Integer.class, defaultMaxConcurrent);
+        Duration timeout = environment.getProperty("analytics.endpoints." + endpoint + ".timeout",
+                Duration.class, defaultTimeout);
+        Semaphore permits = new Semaphore(maxConcurrent, true);
+        registry.gauge("analytics.executor.active", Tags.of("endpoint", endpoint),
+                permits, semaphore -> maxConcurrent - semaphore.availablePermits());
+        return new Limit(permits, timeout);
+    }
+
+    private ResponseStatusException timedOut(String endpoint, Limit limit) {
+        registry.counter("analytics.executor.timeouts", "endpoint", endpoint).increment();
+        logger.warn("{} did not finish within {}", endpoint, limit.timeout());
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, endpoint + " is busy, try again later");
+    }
+
+    private record Limit(Semaphore permits, Duration timeout) {
+    }
+
+    // Fails the next write once the deadline has passed, which ends the producer feeding the stream
+    private final class DeadlineOutputStream extends FilterOutputStream {
+
+        private final String endpoint;
+        private final Limit limit;
+        private final long deadline;
+
+        DeadlineOutputStream(OutputStream out, String endpoint, Limit limit, long deadline) {
+            super(out);
+            this.endpoint = endpoint;
+            this.limit = limit;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkDeadline();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkDeadline();
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            checkDeadline();
+            out.flush();
+        }
+
+        private void checkDeadline() throws IOException {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException(timedOut(endpoint, limit).getReason());
+            }
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package sustech.java2finalproject.feature.question;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import sustech.java2finalproject.feature.question.dto.AnswerResponse;
+import sustech.java2finalproject.feature.question.dto.CacheStatsResponse;
+import sustech.java2finalproject.feature.question.dto.FailingPackagesResponse;
 import sustech.java2finalproject.feature.question.dto.MistakeResponse;
+import sustech.java2finalproject.feature.question.dto.RelatedTagResponse;
+import sustech.java2finalproject.feature.question.dto.SearchResponse;
+import sustech.java2finalproject.feature.question.dto.TagTrendResponse;
+import sustech.java2finalproject.feature.question.dto.SnapshotResponse;
 import sustech.java2finalproject.feature.question.dto.TopEngagementResponse;
 import sustech.java2finalproject.feature.question.dto.TopNResponse;
 import sustech.java2finalproject.init.StackExchangeResponse;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.Map;
 
 @RestController
@@ -16,6 +28,9 @@ import java.util.Map;
 @RequestMapping("/api/v1/questions")
 public class QuestionController {
     private final QuestionService questionService;
+    // Heavy endpoints run through here, each with its own concurrency limit and timeout
+    private final AnalyticsExecutor analyticsExecutor;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/top-tags/{topN}")
     @CrossOrigin
@@ -29,21 +44,34 @@ public class QuestionController {
         return questionService.getFrequencyOfTopic(tagName);
     }
 
+    @GetMapping("/frequency")
+    @CrossOrigin
+    public List<TopNResponse> frequencyOfQuestions(@RequestParam List<String> tagNames){
+        return questionService.getFrequencyOfTopics(tagNames);
+    }
+
+    @GetMapping("/related-tags/{tag}")
+    @CrossOrigin
+    public List<RelatedTagResponse> relatedTags(@PathVariable String tag,
+                                                @RequestParam(defaultValue = "10") Integer limit){
+        return questionService.getRelatedTags(tag, limit);
+    }
+
     @GetMapping("/top-engagement-tags/{topN}")
     @CrossOrigin
-    public List<TopEngagementResponse> getTopEngagementTag(@PathVariable Integer topN){
-        return questionService.getTopEngagementTag(topN);
+    public CompletableFuture<List<TopEngagementResponse>> getTopEngagementTag(@PathVariable Integer topN){
+        return analyticsExecutor.submit("engagement", () -> questionService.getTopEngagementTag(topN));
     }
     @GetMapping("/top-engagement-tags-top-users/{topN}/{reputation}")
     @CrossOrigin
-    public List<TopEngagementResponse> getTopEngagementTag(@PathVariable Integer topN,
-                                                           @PathVariable Integer reputation){
-        return questionService.getTopEngagementTagByTopUser(topN, reputation);
+    public CompletableFuture<List<TopEngagementResponse>> getTopEngagementTag(@PathVariable Integer topN,
+                                                                              @PathVariable Integer reputation){
+        return analyticsExecutor.submit("engagement", () -> questionService.getTopEngagementTagByTopUser(topN, reputation));
     }
     @GetMapping("/common-error/{topN}")
     @CrossOrigin
-    public List<MistakeResponse> commonError(@PathVariable Integer topN){
-        return questionService.ErrorAnalysis(topN);
+    public CompletableFuture<List<MistakeResponse>> commonError(@PathVariable Integer topN){
+        return analyticsExecutor.submit("common-error", () -> questionService.ErrorAnalysis(topN));
     }
 
     @GetMapping("/mistake-frequency/{mistake}")
@@ -52,11 +80,72 @@ public class QuestionController {
         return questionService.getExceptionFrequency(mistake);
     }
 
+    // Ranked from the stack traces parsed at ingest, prefix narrows it to one library, e.g. org.hibernate
+    @GetMapping("/failing-packages/{topN}")
+    @CrossOrigin
+    public FailingPackagesResponse failingPackages(@PathVariable Integer topN,
+                                                   @RequestParam(defaultValue = "") String prefix){
+        return questionService.getFailingPackages(topN, prefix);
+    }
 
     @GetMapping("/overall-answer-quality/{topN}")
     @CrossOrigin
-    public List<AnswerResponse> overAnswerQuality(@PathVariable Integer topN){
-        return questionService.overallAnswerQuality(topN);
+    public CompletableFuture<List<AnswerResponse>> overAnswerQuality(@PathVariable Integer topN){
+        return analyticsExecutor.submit("answer-quality", () -> questionService.overallAnswerQuality(topN));
+    }
+
+    @GetMapping("/trends")
+    @CrossOrigin
+    public CompletableFuture<List<TagTrendResponse>> tagTrends(@RequestParam(defaultValue = "month") String granularity,
+                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                               @RequestParam(required = false) List<String> tags){
+        return analyticsExecutor.submit("trends", () -> questionService.getTagTrends(granularity, from, to, tags));
+    }
+
+    @GetMapping("/search")
+    @CrossOrigin
+    public SearchResponse search(@RequestParam String q,
+                                 @RequestParam(defaultValue = "10") Integer limit){
+        return questionService.search(q, limit);
+    }
+
+    // Streaming variants of the top-N endpoints, format=ndjson (one object per line) or array (one chunked JSON array)
+    @GetMapping("/stream/top-tags/{topN}")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> streamTopTags(@PathVariable Integer topN,
+                                                               @RequestParam(defaultValue = "ndjson") String format){
+        return StreamingResults.<TopNResponse>stream(format, objectMapper,
+                sink -> questionService.streamTopNQuestionsByTag(topN, sink));
+    }
+
+    @GetMapping("/stream/top-engagement-tags/{topN}")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> streamTopEngagementTag(@PathVariable Integer topN,
+                                                                        @RequestParam(defaultValue = "ndjson") String format){
+        return analyticsExecutor.stream("engagement", StreamingResults.<TopEngagementResponse>stream(format, objectMapper,
+                sink -> questionService.streamTopEngagementTag(topN, sink)));
+    }
+
+    @GetMapping("/stream/overall-answer-quality/{topN}")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> streamAnswerQuality(@PathVariable Integer topN,
+                                                                     @RequestParam(defaultValue = "ndjson") String format){
+        // Holds no more than topN rows: the stored scores are read by an indexed LIMIT scan and written as they arrive
+        return analyticsExecutor.stream("answer-quality", StreamingResults.<AnswerResponse>stream(format, objectMapper,
+                sink -> questionService.streamOverallAnswerQuality(topN, sink)));
+    }
+
+    @GetMapping("/snapshot")
+    @CrossOrigin
+    public SnapshotResponse snapshotStats(){
+        return questionService.getSnapshotStats();
+    }
+
+    @GetMapping("/cache")
+    @CrossOrigin
+    public List<CacheStatsResponse> cacheStats(){
+        return questionService.getCacheStats();
     }
 
 
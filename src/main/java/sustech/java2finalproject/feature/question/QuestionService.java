@@ -1,24 +1,52 @@
 package sustech.java2finalproject.feature.question;
 
 import sustech.java2finalproject.feature.question.dto.AnswerResponse;
+import sustech.java2finalproject.feature.question.dto.CacheStatsResponse;
+import sustech.java2finalproject.feature.question.dto.FailingPackagesResponse;
 import sustech.java2finalproject.feature.question.dto.MistakeResponse;
+import sustech.java2finalproject.feature.question.dto.RelatedTagResponse;
+import sustech.java2finalproject.feature.question.dto.SearchResponse;
+import sustech.java2finalproject.feature.question.dto.TagTrendResponse;
+import sustech.java2finalproject.feature.question.dto.SnapshotResponse;
 import sustech.java2finalproject.feature.question.dto.TopEngagementResponse;
 import sustech.java2finalproject.feature.question.dto.TopNResponse;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 public interface QuestionService {
 
     List<TopNResponse> getTopNQuestionsByTag(int topN);
+    void streamTopNQuestionsByTag(int topN, Consumer<TopNResponse> sink);
     Long getFrequencyOfTopic(String tag);
+    List<TopNResponse> getFrequencyOfTopics(List<String> tags);
+    //Tags most often asked about together with tag, with their lift and PMI
+    List<RelatedTagResponse> getRelatedTags(String tag, int topN);
     List<TopEngagementResponse> getTopEngagementTag(int topN);
+    void streamTopEngagementTag(int topN, Consumer<TopEngagementResponse> sink);
     List<TopEngagementResponse> getTopEngagementTagByTopUser(int topN, int reputation);
 
     List<MistakeResponse> ErrorAnalysis(Integer topN);
     MistakeResponse getExceptionFrequency(String mistake);
+    //Packages the stack traces in questions fail in and their root-cause exceptions, under a package prefix
+    FailingPackagesResponse getFailingPackages(Integer topN, String prefix);
 
     //Answer Quality of a specific question
     List<AnswerResponse> overallAnswerQuality(Integer topN);
+    //Same ranking handed to sink best first, without building the list
+    void streamOverallAnswerQuality(Integer topN, Consumer<AnswerResponse> sink);
+
+    SnapshotResponse getSnapshotStats();
+
+    //Per tag counts and engagement averages in day, week or month buckets between two dates
+    List<TagTrendResponse> getTagTrends(String granularity, LocalDate from, LocalDate to, List<String> tags);
+
+    //Full-text search over question titles and bodies, see SearchQuery for the syntax
+    SearchResponse search(String query, int limit);
+
+    //Hit, miss and eviction counts of the analytics result caches
+    List<CacheStatsResponse> getCacheStats();
 
 }
@@ -1,354 +1,305 @@
 package sustech.java2finalproject.feature.question;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import sustech.java2finalproject.domain.Answer;
-import sustech.java2finalproject.domain.Owner;
-import sustech.java2finalproject.domain.Question;
-import sustech.java2finalproject.domain.Tag;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import sustech.java2finalproject.config.CacheConfig;
+import sustech.java2finalproject.domain.TrendGranularity;
+import sustech.java2finalproject.feature.data.DatasetVersion;
+import sustech.java2finalproject.feature.question.analysis.AnalyticsSnapshot;
+import sustech.java2finalproject.feature.question.analysis.AnalyticsSnapshotHolder;
+import sustech.java2finalproject.feature.question.analysis.AnswerQualityScorer;
+import sustech.java2finalproject.feature.question.analysis.EngagementEngine;
+import sustech.java2finalproject.feature.question.analysis.ExceptionScanner;
+import sustech.java2finalproject.feature.question.analysis.TagCooccurrenceIndex;
 import sustech.java2finalproject.feature.question.dto.AnswerResponse;
+import sustech.java2finalproject.feature.question.dto.CacheStatsResponse;
+import sustech.java2finalproject.feature.question.dto.FailingPackagesResponse;
 import sustech.java2finalproject.feature.question.dto.MistakeResponse;
+import sustech.java2finalproject.feature.question.dto.RelatedTagResponse;
+import sustech.java2finalproject.feature.question.dto.SearchResponse;
+import sustech.java2finalproject.feature.question.dto.TagTrendResponse;
+import sustech.java2finalproject.feature.question.dto.SnapshotResponse;
 import sustech.java2finalproject.feature.question.dto.TopEngagementResponse;
 import sustech.java2finalproject.feature.question.dto.TopNResponse;
 import sustech.java2finalproject.feature.question.repository.AnswerRepository;
-import sustech.java2finalproject.feature.question.repository.OwnerRepository;
-import sustech.java2finalproject.feature.question.repository.QuestionRepository;
+import sustech.java2finalproject.feature.question.repository.ExceptionMentionRepository;
+import sustech.java2finalproject.feature.question.repository.StackTraceRepository;
 import sustech.java2finalproject.feature.question.repository.TagRepository;
-
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import sustech.java2finalproject.feature.question.repository.TagTrendRepository;
+import sustech.java2finalproject.feature.question.repository.projection.AnswerQualityRow;
+import sustech.java2finalproject.feature.question.repository.projection.NameCountRow;
+import sustech.java2finalproject.feature.question.repository.projection.TagCountRow;
+import sustech.java2finalproject.feature.question.repository.projection.TagTrendRow;
+import sustech.java2finalproject.feature.search.SearchIndex;
+
+import java.time.LocalDate;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Every method is timed as analytics.service, tagged with its class and method name
 @Service
 @RequiredArgsConstructor
+@Timed(value = "analytics.service", description = "QuestionService calls")
 public class QuestionServiceImpl implements QuestionService {
+    // Hits per search request, a page of results rather than a dump of the index
+    static final int MAX_SEARCH_LIMIT = 100;
+
     private final TagRepository tagRepository;
-    private final QuestionRepository questionRepository;
-    private final OwnerRepository ownerRepository;
+    private final TagTrendRepository tagTrendRepository;
+    private final ExceptionMentionRepository exceptionMentionRepository;
+    private final ExceptionScanner exceptionScanner;
+    private final StackTraceRepository stackTraceRepository;
     private final AnswerRepository answerRepository;
+    private final AnalyticsSnapshotHolder snapshotHolder;
+    private final EngagementEngine engagementEngine;
+    private final CacheManager cacheManager;
+    private final DatasetVersion datasetVersion;
+    private final SearchIndex searchIndex;
+    private final TagCooccurrenceIndex tagCooccurrenceIndex;
 
     @Override
+    @Cacheable(cacheNames = "topTags", keyGenerator = CacheConfig.VERSIONED_KEY)
     public List<TopNResponse> getTopNQuestionsByTag(int topN) {
-        // Fetch the top N results from the repository (with limit applied in the query)
-        List<Object[]> topNResults = tagRepository.findTopNTags(topN);
-
-        // Create a list to store the TopNResponse
-        List<TopNResponse> topNResponses = new ArrayList<>();
-
-        topNResults.stream()
-                .skip(1)
-                .limit(topN)
-                .forEach(result -> {
-                    Tag tag = (Tag) result[0];
-                    Long frequency = (Long) result[1];  // Frequency of questions
-
-                    // Map to TopNResponse
-                    topNResponses.add(new TopNResponse(tag.getName(), frequency));
-                });
-
-        return topNResponses;
+        // Kept up to date by TagStatsMaintainer, so this is a short index scan
+        return tagRepository.findTopNTags(topN).stream()
+                .map(result -> new TopNResponse(result.name(), result.frequency()))
+                .collect(Collectors.toList());
     }
 
     @Override
-    public Long getFrequencyOfTopic(String tag) {
-        List<Question> questions = questionRepository.findAll();
-
-        // Use Streams to filter questions by tag and count the frequency
-        return questions.stream()
-                .filter(question -> question.getTags()
-                        .stream()
-                        .anyMatch(tagName -> tagName.getName().equalsIgnoreCase(tag))) // Check if the question contains the tag
-                .count(); // Count the number of questions that match
+    @Transactional(readOnly = true)
+    public void streamTopNQuestionsByTag(int topN, Consumer<TopNResponse> sink) {
+        // Rows go from the cursor straight to the sink
+        try (Stream<TagCountRow> rows = tagRepository.streamTopNTags(topN)) {
+            rows.forEach(row -> sink.accept(new TopNResponse(row.name(), row.frequency())));
+        }
     }
 
     @Override
-    public List<TopEngagementResponse> getTopEngagementTag(int topN) {
-        return calculateTopEngagementTag(ownerRepository.findAll(), topN);
+    @Cacheable(cacheNames = "tagFrequency", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public Long getFrequencyOfTopic(String tag) {
+        // Counted in the database on the question/tag join table, case-insensitively
+        return tagRepository.countQuestionsByTagName(tag);
     }
 
     @Override
-    public List<TopEngagementResponse> getTopEngagementTagByTopUser(int topN, int reputation) {
-        List<Owner> topOwners = ownerRepository.findTopOwnersByReputation(reputation);
-        return calculateTopEngagementTag(topOwners, topN);
-    }
-
-    private List<TopEngagementResponse> calculateTopEngagementTag(List<Owner> owners, int topN) {
-        // Get all questions from owners
-        List<Question> questions = owners.stream()
-                .flatMap(owner -> owner.getQuestions().stream())
-                .collect(Collectors.toList());
+    @Cacheable(cacheNames = "tagFrequencies", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public List<TopNResponse> getFrequencyOfTopics(List<String> tags) {
+        Set<String> lowerCaseNames = tags.stream()
+                .map(tag -> tag.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        if (lowerCaseNames.isEmpty()) {
+            return List.of();
+        }
 
-        // Define weights for each component of engagement
-        double scoreWeight = 0.3;
-        double reputationWeight = 0.05;
-        double viewCountWeight = 0.3;
-        double answerCountWeight = 0.35;
-
-        // Calculate min and max for normalization
-        double minScore = questions.stream().mapToDouble(q -> q.getScore() != null ? q.getScore() : 0).min().orElse(0);
-        double maxScore = questions.stream().mapToDouble(q -> q.getScore() != null ? q.getScore() : 0).max().orElse(1);
-        double minView = questions.stream().mapToDouble(q -> q.getViewCount() != null ? q.getViewCount() : 0).min().orElse(0);
-        double maxView = questions.stream().mapToDouble(q -> q.getViewCount() != null ? q.getViewCount() : 0).max().orElse(1);
-        double minAnswer = questions.stream().mapToDouble(q -> q.getAnswerCount() != null ? q.getAnswerCount() : 0).min().orElse(0);
-        double maxAnswer = questions.stream().mapToDouble(q -> q.getAnswerCount() != null ? q.getAnswerCount() : 0).max().orElse(1);
-        double minReputation = owners.stream().mapToDouble(o -> o.getReputation() != null ? o.getReputation() : 0).min().orElse(0);
-        double maxReputation = owners.stream().mapToDouble(o -> o.getReputation() != null ? o.getReputation() : 0).max().orElse(1);
-
-        // Create a map of tags and their total engagement and question count
-        Map<Tag, double[]> tagEngagementMap = new HashMap<>();
-
-        for (Question question : questions) {
-            for (Tag tag : question.getTags()) {
-                // Normalize each component
-                double normalizedScore = normalize(question.getScore(), minScore, maxScore);
-                double normalizedViewCount = normalize(question.getViewCount(), minView, maxView);
-                double normalizedAnswerCount = normalize(question.getAnswerCount(), minAnswer, maxAnswer);
-                double normalizedReputation = normalize(question.getOwner().getReputation(), minReputation, maxReputation);
-
-                // Calculate engagement for the current question and tag
-                double engagement = (
-                        normalizedScore * scoreWeight +
-                                normalizedViewCount * viewCountWeight +
-                                normalizedAnswerCount * answerCountWeight +
-                                normalizedReputation * reputationWeight
-                );
-
-                // Update the map with the total engagement and question count for this tag
-                tagEngagementMap.compute(tag, (t, values) -> {
-                    if (values == null) {
-                        return new double[]{engagement, 1}; // New tag with the first question
-                    } else {
-                        values[0] += engagement; // Add to total engagement
-                        values[1] += 1;           // Increment question count
-                        return values;
-                    }
-                });
-            }
+        Map<String, Long> frequencies = new HashMap<>();
+        for (Object[] result : tagRepository.countQuestionsByTagNames(lowerCaseNames)) {
+            frequencies.put((String) result[0], ((Number) result[1]).longValue());
         }
 
-        // Calculate average engagement for each tag and round to 6 decimal places
-        Map<Tag, Double> averageEngagementByTag = tagEngagementMap.entrySet()
-                .stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> round(entry.getValue()[0] / entry.getValue()[1], 6)
-                ));
-
-        // Sort tags by average engagement in descending order and limit to top N
-        return averageEngagementByTag.entrySet()
-                .stream()
-                .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()))
-                .limit(topN)
-                .map(entry -> new TopEngagementResponse(entry.getKey().getName(), entry.getValue()))
+        // Answer in the order and spelling the tags were asked for, unknown tags count as zero
+        return tags.stream()
+                .map(tag -> new TopNResponse(tag, frequencies.getOrDefault(tag.toLowerCase(Locale.ROOT), 0L)))
                 .collect(Collectors.toList());
     }
 
-    // Helper method to normalize values
-    private double normalize(Long value, double min, double max) {
-        if (value == null) return 0;
-        return (value - min) / (max - min);
+    @Override
+    public List<RelatedTagResponse> getRelatedTags(String tag, int topN) {
+        // Read from the in-memory co-occurrence matrix, nothing to cache
+        return tagCooccurrenceIndex.related(tag.trim(), topN);
     }
 
-    // Helper method to round values to a specified number of decimal places
-    private double round(double value, int places) {
-        if (places < 0) throw new IllegalArgumentException();
-        BigDecimal bd = BigDecimal.valueOf(value);
-        bd = bd.setScale(places, RoundingMode.HALF_UP);
-        return bd.doubleValue();
+    @Override
+    @Cacheable(cacheNames = "topEngagementTags", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public List<TopEngagementResponse> getTopEngagementTag(int topN) {
+        return calculateTopEngagementTag(snapshotHolder.current(), owner -> true, topN);
     }
 
-
-    // List of common Java exceptions
-    private static final String[] COMMON_EXCEPTIONS = {
-            // Exceptions
-            "ClassNotFoundException",
-            "CloneNotSupportedException",
-            "IllegalAccessException",
-            "InstantiationException",
-            "InterruptedException",
-            "NoSuchFieldException",
-            "NoSuchMethodException",
-            "ArithmeticException",
-            "ArrayStoreException",
-            "ClassCastException",
-            "IllegalArgumentException",
-            "IllegalMonitorStateException",
-            "IllegalStateException",
-            "IndexOutOfBoundsException",
-            "NegativeArraySizeException",
-            "NullPointerException",
-            "SecurityException",
-            "UnsupportedOperationException",
-            "ArrayIndexOutOfBoundsException",
-            "StringIndexOutOfBoundsException",
-            "NumberFormatException",
-
-            // Errors
-            "AssertionError",
-            "ClassCircularityError",
-            "ClassFormatError",
-            "ExceptionInInitializerError",
-            "IncompatibleClassChangeError",
-            "NoClassDefFoundError",
-            "UnsatisfiedLinkError",
-            "VerifyError",
-            "InternalError",
-            "OutOfMemoryError",
-            "StackOverflowError",
-            "UnknownError",
-            "AbstractMethodError",
-            "IllegalAccessError",
-            "InstantiationError",
-            "NoSuchFieldError",
-            "NoSuchMethodError"
-    };
-
-    private static final String EXCEPTION_PATTERN =
-            String.join("|", COMMON_EXCEPTIONS); // "NullPointerException|ArrayIndexOutOfBoundsException|..."
-
     @Override
-    public List<MistakeResponse> ErrorAnalysis(Integer topN) {
-        List<Question> questions = questionRepository.findAll();
-        Map<String, Integer> exceptionCountMap = new HashMap<>();
-
-        // Compile the regex pattern with case-insensitivity
-        Pattern pattern = Pattern.compile(EXCEPTION_PATTERN, Pattern.CASE_INSENSITIVE);
+    public void streamTopEngagementTag(int topN, Consumer<TopEngagementResponse> sink) {
+        // At most one entry per tag, the engine's result is handed over as is
+        calculateTopEngagementTag(snapshotHolder.current(), owner -> true, topN).forEach(sink);
+    }
 
-        // Analyze questions and their answers for exception mentions
-        for (Question question : questions) {
-            // Analyze the question title for exception mentions
-            matchExceptionInText(question.getTitle(), pattern, exceptionCountMap);
+    @Override
+    @Cacheable(cacheNames = "topEngagementTagsTopUsers", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public List<TopEngagementResponse> getTopEngagementTagByTopUser(int topN, int reputation) {
+        AnalyticsSnapshot snapshot = snapshotHolder.current();
+        long[] ownerReputation = snapshot.ownerReputation();
+        // Same owners as OwnerRepository.findTopOwnersByReputation, owners without a reputation never qualify
+        return calculateTopEngagementTag(snapshot,
+                owner -> ownerReputation[owner] != AnalyticsSnapshot.NULL && ownerReputation[owner] >= reputation, topN);
+    }
 
-            // Analyze the question body for exception mentions
-            matchExceptionInText(question.getBody(), pattern, exceptionCountMap);
+    private List<TopEngagementResponse> calculateTopEngagementTag(AnalyticsSnapshot snapshot, IntPredicate ownerFilter, int topN) {
+        if (topN <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "topN must be positive");
         }
+        return engagementEngine.topTags(snapshot, ownerFilter, topN);
+    }
 
-        // Convert the exception count map to a list of MistakeResponse objects
+
+    @Override
+    @Cacheable(cacheNames = "commonErrors", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public List<MistakeResponse> ErrorAnalysis(Integer topN) {
+        // Mentions are counted per question at ingest time, this only sums them per exception
         List<MistakeResponse> errorResponses = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : exceptionCountMap.entrySet()) {
-            errorResponses.add(new MistakeResponse(entry.getKey(), entry.getValue()));
+        for (Object[] result : exceptionMentionRepository.sumMentionsByException()) {
+            int id = (Integer) result[0];
+            long frequency = ((Number) result[1]).longValue();
+            if (id < exceptionScanner.size() && frequency > 0) {
+                errorResponses.add(new MistakeResponse(exceptionScanner.name(id), Math.toIntExact(frequency)));
+            }
         }
 
         // Sort by frequency in descending order and return the top N
-        errorResponses.sort((e1, e2) -> e2.frequency().compareTo(e1.frequency()));
+        errorResponses.sort(Comparator.comparing(MistakeResponse::frequency).reversed()
+                .thenComparing(MistakeResponse::name));
         return errorResponses.size() > topN ? errorResponses.subList(0, topN) : errorResponses;
     }
 
-    private void matchExceptionInText(String text, Pattern pattern, Map<String, Integer> exceptionCountMap) {
-        if (text != null) {
-            Matcher matcher = pattern.matcher(text);
-            while (matcher.find()) {
-                String matchedException = matcher.group(); // Use the matched exception as it is
-                exceptionCountMap.put(matchedException, exceptionCountMap.getOrDefault(matchedException, 0) + 1);
-            }
+    @Override
+    @Cacheable(cacheNames = "exceptionFrequency", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public MistakeResponse getExceptionFrequency(String exceptionName) {
+        // Any spelling of a known exception resolves to its canonical name
+        int id = exceptionScanner.idOf(exceptionName);
+        if (id < 0) {
+            return new MistakeResponse(exceptionName.trim(), 0);
         }
+        long frequency = exceptionMentionRepository.sumMentions(id);
+
+        return new MistakeResponse(exceptionScanner.name(id), Math.toIntExact(frequency));
     }
 
     @Override
-    public MistakeResponse getExceptionFrequency(String exceptionName) {
-        // Normalize the exception name (so we can compare case-insensitively)
-        String normalizedExceptionName = exceptionName.trim();
-        Map<String, Integer> exceptionCountMap = analyzeErrors();
-
-        // Check if the exception exists in the map
-        Integer frequency = exceptionCountMap.getOrDefault(normalizedExceptionName, 0);
+    @Cacheable(cacheNames = "failingPackages", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public FailingPackagesResponse getFailingPackages(Integer topN, String prefix) {
+        // Traces are parsed at ingest time, each one has a single failing frame to count
+        String pattern = prefix.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return new FailingPackagesResponse(
+                counts(stackTraceRepository.findTopFailingPackages(pattern, topN)),
+                counts(stackTraceRepository.findTopRootCauses(pattern, topN)));
+    }
 
-        return new MistakeResponse(normalizedExceptionName, frequency);
+    private static List<TopNResponse> counts(List<NameCountRow> rows) {
+        return rows.stream()
+                .map(row -> new TopNResponse(row.name(), row.frequency()))
+                .collect(Collectors.toList());
     }
 
     @Override
+    @Cacheable(cacheNames = "answerQuality", keyGenerator = CacheConfig.VERSIONED_KEY)
+    @Transactional(readOnly = true)
     public List<AnswerResponse> overallAnswerQuality(Integer topN) {
-        List<Answer> answers = answerRepository.findAll();
-
-        // Define weights for each criterion
-        double isAcceptedWeight = 0.4;
-        double elapsedTimeWeight = 0.2;
-        double reputationWeight = 0.2;
-        double scoreWeight = 0.2;
-
-        // Process answers and map to responses with quality scores
-        List<AnswerResponse> processedAnswers = answers.stream()
-                .map(answer -> new AnswerResponse(
-                        calculateQualityScore(answer, isAcceptedWeight, elapsedTimeWeight, reputationWeight, scoreWeight),
-                        calculateElapseTime(answer),
-                        answer.getOwnerReputation(),
-                        answer.getScore(),
-                        answer.getIsAccepted(),  // Pass isAccepted from Answer to AnswerResponse
-                        answer.getAnswerLength(),
-                        answer.getAnswerId()
-                ))
-                .sorted((a1, a2) -> Double.compare(a2.qualityScore(), a1.qualityScore())) // Sort by qualityScore descending
-                .limit(topN)
-                .collect(Collectors.toList());
-
-        // Return the processed answers
+        List<AnswerResponse> processedAnswers = new ArrayList<>(Math.max(0, Math.min(topN, 1024)));
+        rankAnswers(topN, processedAnswers::add);
         return processedAnswers;
     }
 
-
-    private double calculateElapseTime(Answer answer) {
-        if (answer.getCreatedDate() == null || answer.getQuestion() == null) {
-            return Double.MAX_VALUE; // Use a large value for missing data
-        }
-        long elapsedTime = Math.abs(
-                java.time.Duration.between(answer.getQuestion().getCreationDate(), answer.getCreatedDate()).toHours()
-        );
-        return elapsedTime > 0 ? elapsedTime : 1.0; // Avoid division by zero
+    @Override
+    @Transactional(readOnly = true)
+    public void streamOverallAnswerQuality(Integer topN, Consumer<AnswerResponse> sink) {
+        rankAnswers(topN, sink);
     }
 
+    private void rankAnswers(int topN, Consumer<AnswerResponse> sink) {
+        if (topN <= 0) {
+            return;
+        }
 
-    private double calculateQualityScore(Answer answer, double isAcceptedWeight, double elapsedTimeWeight,
-                                         double reputationWeight, double scoreWeight) {
-
-        // Calculate elapsed time in hours
-        long elapsedTime = answer.getCreatedDate() != null && answer.getQuestion() != null
-                ? Math.abs(java.time.Duration.between(answer.getQuestion().getCreationDate(), answer.getCreatedDate()).toHours())
-                : Long.MAX_VALUE;
-
-        // Calculate individual scores
-        double acceptedScore = answer.getIsAccepted() ? 1.0 : 0.0;
-        double elapsedTimeScore = elapsedTime > 0 ? 1.0 / elapsedTime : 0.0; // Normalize inverse of elapsed time
-        double reputationScore = answer.getOwnerReputation() != null ? Math.log10(answer.getOwnerReputation() + 1) : 0.0; // Log scale
-        double score = answer.getScore() != null ? answer.getScore() : 0;
-
-        // Combine scores using weights
-        double qualityScore = (isAcceptedWeight * acceptedScore) +
-                (elapsedTimeWeight * elapsedTimeScore) +
-                (reputationWeight * reputationScore) +
-                (scoreWeight * score);
-
-        // Round to 2 decimal places using BigDecimal
-        return BigDecimal.valueOf(qualityScore)
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
+        // Scores are computed at ingest, this is an index scan that stops after topN rows
+        try (Stream<AnswerQualityRow> rows = answerRepository.streamTopByQuality(topN)) {
+            rows.forEach(row -> sink.accept(new AnswerResponse(
+                    row.qualityScore(),
+                    AnswerQualityScorer.elapseTime(row.elapsedHours()),
+                    row.ownerReputation(),
+                    row.score(),
+                    row.isAccepted(),
+                    row.answerLength(),
+                    row.answerId()
+            )));
+        }
     }
 
+    @Override
+    public SnapshotResponse getSnapshotStats() {
+        AnalyticsSnapshot snapshot = snapshotHolder.current();
+        return new SnapshotResponse(snapshot.ownerCount(), snapshot.questionCount(), snapshot.tagCount(),
+                snapshot.questionTags().length, snapshot.footprintBytes(), snapshot.builtAt());
+    }
 
+    @Override
+    @Cacheable(cacheNames = "tagTrends", keyGenerator = CacheConfig.VERSIONED_KEY)
+    public List<TagTrendResponse> getTagTrends(String granularity, LocalDate from, LocalDate to, List<String> tags) {
+        TrendGranularity trendGranularity;
+        try {
+            trendGranularity = TrendGranularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown granularity: " + granularity);
+        }
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
 
-    private Map<String, Integer> analyzeErrors() {
-
-        List<Question> questions = questionRepository.findAll();
-
-        Map<String, Integer> exceptionCountMap = new HashMap<>();
-
-        // Compile the regex pattern with case-insensitivity
-        Pattern pattern = Pattern.compile(EXCEPTION_PATTERN, Pattern.CASE_INSENSITIVE);
-
-        // Analyze questions and their answers for exception mentions
-        for (Question question : questions) {
-            // Analyze the question title for exception mentions
-            matchExceptionInText(question.getTitle(), pattern, exceptionCountMap);
+        // Start at the bucket that contains from, so its first bucket is not cut off
+        LocalDate firstBucket = trendGranularity.bucketStart(from);
+        List<TagTrendRow> rows;
+        if (tags == null || tags.isEmpty()) {
+            rows = tagTrendRepository.findTrends(trendGranularity, firstBucket, to);
+        } else {
+            Set<String> lowerCaseNames = tags.stream()
+                    .map(tag -> tag.toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet());
+            rows = tagTrendRepository.findTrendsByTagNames(trendGranularity, firstBucket, to, lowerCaseNames);
+        }
 
-            // Analyze the question body for exception mentions
-            matchExceptionInText(question.getBody(), pattern, exceptionCountMap);
+        List<TagTrendResponse> trends = new ArrayList<>(rows.size());
+        for (TagTrendRow row : rows) {
+            double questions = row.questionCount();
+            trends.add(new TagTrendResponse(row.name(), row.bucketStart(), row.questionCount(),
+                    round(row.scoreSum() / questions), round(row.viewSum() / questions),
+                    round(row.answerCountSum() / questions), round(row.reputationSum() / questions)));
         }
+        return trends;
+    }
 
-        return exceptionCountMap;
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
     }
 
+    @Override
+    public SearchResponse search(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        return searchIndex.search(query, limit);
+    }
 
+    @Override
+    public List<CacheStatsResponse> getCacheStats() {
+        long version = datasetVersion.current();
+        List<CacheStatsResponse> stats = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = cache.getNativeCache();
+                CacheStats cacheStats = nativeCache.stats();
+                stats.add(new CacheStatsResponse(name, version, nativeCache.estimatedSize(), cacheStats.hitCount(),
+                        cacheStats.missCount(), cacheStats.evictionCount(), cacheStats.hitRate()));
+            }
+        }
+        stats.sort(Comparator.comparing(CacheStatsResponse::name));
+        return stats;
+    }
 
 }
@@ -0,0 +1,70 @@
+package sustech.java2finalproject.feature.question;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes records to the response while they are being produced, as NDJSON (one object per line)
+ * or as one JSON array, without collecting them into a list first.
+ */
+final class StreamingResults {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // Records between flushes, so the first ones reach the client without waiting for a full buffer
+    private static final int FLUSH_EVERY = 64;
+
+    private StreamingResults() {
+    }
+
+    // producer is handed a sink and calls it once per record, in order
+    static <T> ResponseEntity<StreamingResponseBody> stream(String format, ObjectMapper objectMapper,
+                                                            Consumer<Consumer<T>> producer) {
+        boolean array = "array".equalsIgnoreCase(format);
+        if (!array && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or array");
+        }
+
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                if (array) {
+                    generator.writeStartArray();
+                } else {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                }
+                int[] written = {0};
+                producer.accept(record -> {
+                    try {
+                        writer.writeValue(generator, record);
+                        if (++written[0] % FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (array) {
+                    generator.writeEndArray();
+                } else if (written[0] > 0) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(array ? MediaType.APPLICATION_JSON : NDJSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,72 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only columnar copy of the fields the analytics read.
+ * <p>
+ * Rows are addressed by position: owner i is {@code ownerReputation[i]}, question j is
+ * {@code questionScore[j]} etc. and its owner is the owner at {@code questionOwner[j]} (-1 when it
+ * has none). The tags of question j are {@code questionTags[questionTagOffsets[j] ..
+ * questionTagOffsets[j + 1])}, positions into {@code tagNames}. Missing values are {@link #NULL}.
+ * The arrays are shared, never write to them.
+ */
+public record AnalyticsSnapshot(
+        long[] ownerReputation,
+
+        int[] questionOwner,
+        long[] questionScore,
+        long[] questionViewCount,
+        long[] questionAnswerCount,
+        int[] questionTagOffsets,
+        int[] questionTags,
+
+        String[] tagNames,
+
+        LocalDateTime builtAt
+) {
+
+    public static final long NULL = Long.MIN_VALUE;
+
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_OVERHEAD = 24;
+
+    public static AnalyticsSnapshot empty() {
+        return new AnalyticsSnapshot(new long[0], new int[0], new long[0], new long[0], new long[0], new int[1],
+                new int[0], new String[0], LocalDateTime.now());
+    }
+
+    public int ownerCount() {
+        return ownerReputation.length;
+    }
+
+    public int questionCount() {
+        return questionScore.length;
+    }
+
+    public int tagCount() {
+        return tagNames.length;
+    }
+
+    // Approximate heap used by the columns, array headers included
+    public long footprintBytes() {
+        long bytes = longs(ownerReputation)
+                + ints(questionOwner) + longs(questionScore) + longs(questionViewCount) + longs(questionAnswerCount)
+                + ints(questionTagOffsets) + ints(questionTags);
+        bytes += ARRAY_HEADER + (long) tagNames.length * REFERENCE;
+        for (String name : tagNames) {
+            // String object plus its byte[] of latin-1 characters
+            bytes += STRING_OVERHEAD + ARRAY_HEADER + name.length();
+        }
+        return bytes;
+    }
+
+    private static long longs(long[] column) {
+        return ARRAY_HEADER + 8L * column.length;
+    }
+
+    private static long ints(int[] column) {
+        return ARRAY_HEADER + 4L * column.length;
+    }
+}
@@ -0,0 +1,168 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.feature.data.DatasetChangedEvent;
+import sustech.java2finalproject.feature.question.repository.OwnerRepository;
+import sustech.java2finalproject.feature.question.repository.QuestionRepository;
+import sustech.java2finalproject.feature.question.repository.TagRepository;
+import sustech.java2finalproject.feature.question.repository.projection.OwnerReputationRow;
+import sustech.java2finalproject.feature.question.repository.projection.QuestionEngagementRow;
+import sustech.java2finalproject.feature.question.repository.projection.QuestionTagRow;
+import sustech.java2finalproject.feature.question.repository.projection.TagNameRow;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Owns the current {@link AnalyticsSnapshot}.
+ * <p>
+ * The snapshot is rebuilt from the database at startup and after every ingestion, and swapped in
+ * with a single volatile write, so readers always see one complete snapshot.
+ */
+@Component
+public class AnalyticsSnapshotHolder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsSnapshotHolder.class);
+
+    private final OwnerRepository ownerRepository;
+    private final QuestionRepository questionRepository;
+    private final TagRepository tagRepository;
+    private final TransactionTemplate snapshotTransaction;
+
+    private volatile AnalyticsSnapshot snapshot;
+
+    public AnalyticsSnapshotHolder(OwnerRepository ownerRepository, QuestionRepository questionRepository,
+                                   TagRepository tagRepository, PlatformTransactionManager transactionManager) {
+        this.ownerRepository = ownerRepository;
+        this.questionRepository = questionRepository;
+        this.tagRepository = tagRepository;
+        // Every query of one build has to see the same data
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    public AnalyticsSnapshot current() {
+        AnalyticsSnapshot current = snapshot;
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    // Before DatasetVersion moves on, so a new cache key never sees the old snapshot
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDatasetChanged(DatasetChangedEvent event) {
+        logger.info("Rebuilding analytics snapshot after {}", event.source());
+        rebuild();
+    }
+
+    public synchronized AnalyticsSnapshot rebuild() {
+        long start = System.nanoTime();
+        AnalyticsSnapshot built = snapshotTransaction.execute(status -> load());
+        snapshot = built;
+        logger.info("Analytics snapshot built in {} ms: {} owners, {} questions, {} tags, {} KiB",
+                (System.nanoTime() - start) / 1_000_000, built.ownerCount(), built.questionCount(), built.tagCount(),
+                built.footprintBytes() / 1024);
+        return built;
+    }
+
+    // One flat projection query per table, each read through a forward-only cursor
+    private AnalyticsSnapshot load() {
+        // Owners
+        int owners = Math.toIntExact(ownerRepository.count());
+        long[] ownerReputation = new long[owners];
+        Map<Integer, Integer> ownerIndex = new HashMap<>(owners * 2);
+        int[] row = {0};
+        try (Stream<OwnerReputationRow> rows = ownerRepository.streamReputations()) {
+            rows.limit(owners).forEach(owner -> {
+                ownerIndex.put(owner.id(), row[0]);
+                ownerReputation[row[0]++] = orNull(owner.reputation());
+            });
+        }
+
+        // Tags
+        int tags = Math.toIntExact(tagRepository.count());
+        String[] tagNames = new String[tags];
+        Map<Integer, Integer> tagIndex = new HashMap<>(tags * 2);
+        row[0] = 0;
+        try (Stream<TagNameRow> rows = tagRepository.streamNames()) {
+            rows.limit(tags).forEach(tag -> {
+                tagIndex.put(tag.id(), row[0]);
+                tagNames[row[0]++] = tag.name();
+            });
+        }
+
+        // Questions
+        int questions = Math.toIntExact(questionRepository.count());
+        int[] questionOwner = new int[questions];
+        long[] questionScore = new long[questions];
+        long[] questionViewCount = new long[questions];
+        long[] questionAnswerCount = new long[questions];
+        Map<Integer, Integer> questionIndex = new HashMap<>(questions * 2);
+        row[0] = 0;
+        try (Stream<QuestionEngagementRow> rows = questionRepository.streamEngagementRows()) {
+            rows.limit(questions).forEach(question -> {
+                int i = row[0]++;
+                questionIndex.put(question.id(), i);
+                questionOwner[i] = question.ownerId() != null ? ownerIndex.getOrDefault(question.ownerId(), -1) : -1;
+                questionScore[i] = orNull(question.score());
+                questionViewCount[i] = orNull(question.viewCount());
+                questionAnswerCount[i] = orNull(question.answerCount());
+            });
+        }
+
+        // Question tags as CSR: count per question, prefix sum into offsets, then fill
+        int links = Math.toIntExact(questionRepository.countTagLinks());
+        int[] linkQuestion = new int[links];
+        int[] linkTag = new int[links];
+        row[0] = 0;
+        try (Stream<QuestionTagRow> rows = questionRepository.streamTagLinks()) {
+            rows.limit(links).forEach(link -> {
+                Integer question = questionIndex.get(link.questionId());
+                Integer tag = tagIndex.get(link.tagId());
+                if (question != null && tag != null) {
+                    linkQuestion[row[0]] = question;
+                    linkTag[row[0]++] = tag;
+                }
+            });
+        }
+        int linkCount = row[0];
+        int[] questionTagOffsets = new int[questions + 1];
+        for (int i = 0; i < linkCount; i++) {
+            questionTagOffsets[linkQuestion[i] + 1]++;
+        }
+        for (int i = 0; i < questions; i++) {
+            questionTagOffsets[i + 1] += questionTagOffsets[i];
+        }
+        int[] questionTags = new int[linkCount];
+        int[] fill = Arrays.copyOf(questionTagOffsets, questions);
+        for (int i = 0; i < linkCount; i++) {
+            questionTags[fill[linkQuestion[i]]++] = linkTag[i];
+        }
+
+        return new AnalyticsSnapshot(ownerReputation,
+                questionOwner, questionScore, questionViewCount, questionAnswerCount, questionTagOffsets, questionTags,
+                tagNames,
+                LocalDateTime.now());
+    }
+
+    private static long orNull(Long value) {
+        return value != null ? value : AnalyticsSnapshot.NULL;
+    }
+}
@@ -0,0 +1,63 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+// The answer quality formula, shared by everything that scores answers
+public final class AnswerQualityScorer {
+
+    // Define weights for each criterion
+    public static final double IS_ACCEPTED_WEIGHT = 0.4;
+    public static final double ELAPSED_TIME_WEIGHT = 0.2;
+    public static final double REPUTATION_WEIGHT = 0.2;
+    public static final double SCORE_WEIGHT = 0.2;
+
+    // Stored with the persisted scores, bump the version whenever qualityScore changes in a way the weights don't show
+    public static final String FINGERPRINT = String.format(Locale.ROOT, "v1 accepted=%s elapsed=%s reputation=%s score=%s",
+            IS_ACCEPTED_WEIGHT, ELAPSED_TIME_WEIGHT, REPUTATION_WEIGHT, SCORE_WEIGHT);
+
+    private AnswerQualityScorer() {
+    }
+
+    // Whole hours between question and answer, or null when either date is missing
+    public static Long elapsedHours(LocalDateTime questionCreationDate, LocalDateTime answerCreatedDate) {
+        if (questionCreationDate == null || answerCreatedDate == null) {
+            return null;
+        }
+        // Same as Math.abs(Duration.between(...).toHours()) without creating the Duration
+        long seconds = answerCreatedDate.toEpochSecond(ZoneOffset.UTC) - questionCreationDate.toEpochSecond(ZoneOffset.UTC);
+        return Math.abs(seconds / 3600);
+    }
+
+    // Elapsed time as reported in responses
+    public static double elapseTime(Long elapsedHours) {
+        if (elapsedHours == null) {
+            return Double.MAX_VALUE; // Use a large value for missing data
+        }
+        return elapsedHours > 0 ? elapsedHours : 1.0; // Avoid division by zero
+    }
+
+    public static double qualityScore(Boolean isAccepted, Long elapsedHours, Long ownerReputation, Integer answerScore) {
+        long elapsedTime = elapsedHours != null ? elapsedHours : Long.MAX_VALUE;
+
+        // Calculate individual scores
+        double acceptedScore = Boolean.TRUE.equals(isAccepted) ? 1.0 : 0.0;
+        double elapsedTimeScore = elapsedTime > 0 ? 1.0 / elapsedTime : 0.0; // Normalize inverse of elapsed time
+        double reputationScore = ownerReputation != null ? Math.log10(ownerReputation + 1) : 0.0; // Log scale
+        double score = answerScore != null ? answerScore : 0;
+
+        // Combine scores using weights
+        double qualityScore = (IS_ACCEPTED_WEIGHT * acceptedScore) +
+                (ELAPSED_TIME_WEIGHT * elapsedTimeScore) +
+                (REPUTATION_WEIGHT * reputationScore) +
+                (SCORE_WEIGHT * score);
+
+        // Round to 2 decimal places using BigDecimal
+        return BigDecimal.valueOf(qualityScore)
+                .setScale(2, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+}
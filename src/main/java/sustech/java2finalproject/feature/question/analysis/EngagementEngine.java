@@ -0,0 +1,240 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.springframework.stereotype.Component;
+import sustech.java2finalproject.feature.question.dto.TopEngagementResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Average engagement per tag over the questions of a set of owners.
+ * <p>
+ * Engagement of a question is the weighted sum of its min-max normalized score, view count,
+ * answer count and owner reputation. Two parallel passes over the snapshot compute it:
+ * <ol>
+ *     <li>all eight bounds at once, with mergeable {@link Bounds} accumulators;</li>
+ *     <li>per tag sums, one primitive {@link TagSums} per worker chunk, merged at the end.</li>
+ * </ol>
+ * All sums are kept as exact longs and normalized once per tag. That matches summing the
+ * per-question normalized doubles within floating-point tolerance (the rounding happens in a
+ * different order), and since the long sums are exact the result does not depend on how the work
+ * was split. A component whose range is zero adds nothing. The top N comes out of a bounded heap,
+ * ties ordered by tag name.
+ */
+@Component
+public class EngagementEngine {
+
+    // Define weights for each component of engagement
+    static final double SCORE_WEIGHT = 0.3;
+    static final double REPUTATION_WEIGHT = 0.05;
+    static final double VIEW_COUNT_WEIGHT = 0.3;
+    static final double ANSWER_COUNT_WEIGHT = 0.35;
+
+    private static final int SCORE = 0;
+    private static final int VIEW_COUNT = 1;
+    private static final int ANSWER_COUNT = 2;
+    private static final int REPUTATION = 3;
+    private static final int COMPONENTS = 4;
+
+    private static final double[] WEIGHTS = {SCORE_WEIGHT, VIEW_COUNT_WEIGHT, ANSWER_COUNT_WEIGHT, REPUTATION_WEIGHT};
+
+    // Ranking order: highest average first, ties by name
+    private static final Comparator<TopEngagementResponse> RANKING =
+            Comparator.comparing(TopEngagementResponse::avgEngagement).reversed()
+                    .thenComparing(TopEngagementResponse::name);
+
+    public List<TopEngagementResponse> topTags(AnalyticsSnapshot snapshot, IntPredicate ownerFilter, int topN) {
+        if (topN <= 0) {
+            return new ArrayList<>();
+        }
+        Bounds bounds = bounds(snapshot, ownerFilter);
+        if (bounds.questions == 0) {
+            return new ArrayList<>();
+        }
+        TagSums sums = tagSums(snapshot, ownerFilter);
+        return topN(snapshot, bounds, sums, topN);
+    }
+
+    // Pass 1: owners and questions in one range, owners first
+    private Bounds bounds(AnalyticsSnapshot snapshot, IntPredicate ownerFilter) {
+        int owners = snapshot.ownerCount();
+        int[] questionOwner = snapshot.questionOwner();
+        return IntStream.range(0, owners + snapshot.questionCount())
+                .parallel()
+                .collect(Bounds::new, (bounds, i) -> {
+                    if (i < owners) {
+                        if (ownerFilter.test(i)) {
+                            bounds.accept(REPUTATION, snapshot.ownerReputation()[i]);
+                        }
+                    } else {
+                        int question = i - owners;
+                        int owner = questionOwner[question];
+                        if (owner >= 0 && ownerFilter.test(owner)) {
+                            bounds.accept(SCORE, snapshot.questionScore()[question]);
+                            bounds.accept(VIEW_COUNT, snapshot.questionViewCount()[question]);
+                            bounds.accept(ANSWER_COUNT, snapshot.questionAnswerCount()[question]);
+                            bounds.questions++;
+                        }
+                    }
+                }, Bounds::merge);
+    }
+
+    // Pass 2: one accumulator per chunk of questions rather than per split, so memory stays at parallelism x tags
+    private TagSums tagSums(AnalyticsSnapshot snapshot, IntPredicate ownerFilter) {
+        int questions = snapshot.questionCount();
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), questions / 1024 + 1));
+        int chunkSize = (questions + chunks - 1) / chunks;
+
+        List<TagSums> partials = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    TagSums sums = new TagSums(snapshot.tagCount());
+                    int from = chunk * chunkSize;
+                    int to = Math.min(questions, from + chunkSize);
+                    for (int question = from; question < to; question++) {
+                        int owner = snapshot.questionOwner()[question];
+                        if (owner >= 0 && ownerFilter.test(owner)) {
+                            sums.accept(snapshot, question, owner);
+                        }
+                    }
+                    return sums;
+                })
+                .toList();
+
+        TagSums total = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            total.merge(partials.get(i));
+        }
+        return total;
+    }
+
+    private List<TopEngagementResponse> topN(AnalyticsSnapshot snapshot, Bounds bounds, TagSums sums, int topN) {
+        // Min-heap on the ranking, the head is the weakest of the current top N
+        PriorityQueue<TopEngagementResponse> heap = new PriorityQueue<>(Math.min(topN, sums.questions.length) + 1, RANKING.reversed());
+        for (int tag = 0; tag < sums.questions.length; tag++) {
+            int questions = sums.questions[tag];
+            if (questions == 0) continue;
+
+            double total = 0;
+            for (int component = 0; component < COMPONENTS; component++) {
+                long range = bounds.max[component] - bounds.min[component];
+                if (range == 0) continue;
+                // Sum over non-null values of (value - min) / range, as one exact long sum
+                long shifted = sums.sum[component][tag] - sums.present[component][tag] * bounds.min[component];
+                total += WEIGHTS[component] * ((double) shifted / range);
+            }
+            double average = round(total / questions, 6);
+
+            if (heap.size() == topN) {
+                TopEngagementResponse weakest = heap.peek();
+                if (average < weakest.avgEngagement()
+                        || (average == weakest.avgEngagement() && snapshot.tagNames()[tag].compareTo(weakest.name()) > 0)) {
+                    continue;
+                }
+                heap.poll();
+            }
+            heap.add(new TopEngagementResponse(snapshot.tagNames()[tag], average));
+        }
+
+        List<TopEngagementResponse> result = new ArrayList<>(heap);
+        Collections.sort(result, RANKING);
+        return result;
+    }
+
+    // Helper method to round values to a specified number of decimal places
+    private static double round(double value, int places) {
+        return BigDecimal.valueOf(value).setScale(places, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static long orZero(long value) {
+        return value == AnalyticsSnapshot.NULL ? 0 : value;
+    }
+
+    // Min and max of each component, missing values count as 0 like they always have
+    static final class Bounds {
+        final long[] min = new long[COMPONENTS];
+        final long[] max = new long[COMPONENTS];
+        final boolean[] seen = new boolean[COMPONENTS];
+        int questions;
+
+        void accept(int component, long value) {
+            long v = orZero(value);
+            if (!seen[component]) {
+                min[component] = v;
+                max[component] = v;
+                seen[component] = true;
+            } else {
+                min[component] = Math.min(min[component], v);
+                max[component] = Math.max(max[component], v);
+            }
+        }
+
+        void merge(Bounds other) {
+            for (int component = 0; component < COMPONENTS; component++) {
+                if (other.seen[component]) {
+                    accept(component, other.min[component]);
+                    accept(component, other.max[component]);
+                }
+            }
+            questions += other.questions;
+        }
+    }
+
+    // Per tag: number of questions, and per component the sum and count of the non-null values
+    static final class TagSums {
+        final int[] questions;
+        final long[][] sum = new long[COMPONENTS][];
+        final long[][] present = new long[COMPONENTS][];
+
+        TagSums(int tags) {
+            questions = new int[tags];
+            for (int component = 0; component < COMPONENTS; component++) {
+                sum[component] = new long[tags];
+                present[component] = new long[tags];
+            }
+        }
+
+        void accept(AnalyticsSnapshot snapshot, int question, int owner) {
+            long score = snapshot.questionScore()[question];
+            long viewCount = snapshot.questionViewCount()[question];
+            long answerCount = snapshot.questionAnswerCount()[question];
+            long reputation = snapshot.ownerReputation()[owner];
+            int[] tags = snapshot.questionTags();
+            for (int t = snapshot.questionTagOffsets()[question]; t < snapshot.questionTagOffsets()[question + 1]; t++) {
+                int tag = tags[t];
+                questions[tag]++;
+                add(SCORE, tag, score);
+                add(VIEW_COUNT, tag, viewCount);
+                add(ANSWER_COUNT, tag, answerCount);
+                add(REPUTATION, tag, reputation);
+            }
+        }
+
+        private void add(int component, int tag, long value) {
+            if (value != AnalyticsSnapshot.NULL) {
+                sum[component][tag] += value;
+                present[component][tag]++;
+            }
+        }
+
+        void merge(TagSums other) {
+            for (int tag = 0; tag < questions.length; tag++) {
+                questions[tag] += other.questions[tag];
+            }
+            for (int component = 0; component < COMPONENTS; component++) {
+                for (int tag = 0; tag < questions.length; tag++) {
+                    sum[component][tag] += other.sum[component][tag];
+                    present[component][tag] += other.present[component][tag];
+                }
+            }
+        }
+    }
+}
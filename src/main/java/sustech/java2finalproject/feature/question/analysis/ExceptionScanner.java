@@ -0,0 +1,205 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive Aho-Corasick scanner for exception names.
+ * <p>
+ * The automaton is built once over the exception names and only whole words are counted, so
+ * "java.lang.NullPointerException:" counts as NullPointerException but "MyIndexOutOfBoundsException"
+ * counts as nothing. Every spelling of a name lands on the same id, which is the position of the
+ * name in the list the scanner was built from. Scanning allocates nothing, counts go into an int[]
+ * indexed by that id.
+ */
+@Component
+public class ExceptionScanner {
+
+    // List of common Java exceptions, ids are positions in this array so only ever append to it
+    public static final String[] COMMON_EXCEPTIONS = {
+            // Exceptions
+            "ClassNotFoundException",
+            "CloneNotSupportedException",
+            "IllegalAccessException",
+            "InstantiationException",
+            "InterruptedException",
+            "NoSuchFieldException",
+            "NoSuchMethodException",
+            "ArithmeticException",
+            "ArrayStoreException",
+            "ClassCastException",
+            "IllegalArgumentException",
+            "IllegalMonitorStateException",
+            "IllegalStateException",
+            "IndexOutOfBoundsException",
+            "NegativeArraySizeException",
+            "NullPointerException",
+            "SecurityException",
+            "UnsupportedOperationException",
+            "ArrayIndexOutOfBoundsException",
+            "StringIndexOutOfBoundsException",
+            "NumberFormatException",
+
+            // Errors
+            "AssertionError",
+            "ClassCircularityError",
+            "ClassFormatError",
+            "ExceptionInInitializerError",
+            "IncompatibleClassChangeError",
+            "NoClassDefFoundError",
+            "UnsatisfiedLinkError",
+            "VerifyError",
+            "InternalError",
+            "OutOfMemoryError",
+            "StackOverflowError",
+            "UnknownError",
+            "AbstractMethodError",
+            "IllegalAccessError",
+            "InstantiationError",
+            "NoSuchFieldError",
+            "NoSuchMethodError"
+    };
+
+    private static final int ALPHABET = 26;
+
+    private final String[] names;
+    private final int[] lengths;
+    private final Map<String, Integer> idsByLowerCaseName = new HashMap<>();
+
+    // Automaton: full transition table over a-z, the pattern ending in each state (or -1),
+    // and the nearest proper suffix state that also ends a pattern (or 0)
+    private final int[] transitions;
+    private final int[] output;
+    private final int[] outputLink;
+
+    public ExceptionScanner() {
+        this(COMMON_EXCEPTIONS);
+    }
+
+    public ExceptionScanner(String[] names) {
+        this.names = names.clone();
+        this.lengths = new int[names.length];
+
+        int maxStates = 1;
+        for (String name : names) {
+            maxStates += name.length();
+        }
+        int[] trie = new int[maxStates * ALPHABET];
+        Arrays.fill(trie, -1);
+        int[] patternAt = new int[maxStates];
+        Arrays.fill(patternAt, -1);
+        int states = 1;
+
+        for (int id = 0; id < names.length; id++) {
+            String name = names[id];
+            lengths[id] = name.length();
+            idsByLowerCaseName.put(name.toLowerCase(Locale.ROOT), id);
+
+            int state = 0;
+            for (int i = 0; i < name.length(); i++) {
+                int letter = letterIndex(name.charAt(i));
+                if (letter < 0) {
+                    throw new IllegalArgumentException("Exception names may only contain ASCII letters: " + name);
+                }
+                int slot = state * ALPHABET + letter;
+                if (trie[slot] < 0) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            patternAt[state] = id;
+        }
+
+        this.transitions = new int[states * ALPHABET];
+        this.output = Arrays.copyOf(patternAt, states);
+        this.outputLink = new int[states];
+        int[] failure = new int[states];
+
+        // Breadth-first over the trie turns it into a complete automaton
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int letter = 0; letter < ALPHABET; letter++) {
+            int next = trie[letter];
+            if (next < 0) {
+                transitions[letter] = 0;
+            } else {
+                transitions[letter] = next;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputLink[state] = output[failure[state]] >= 0 ? failure[state] : outputLink[failure[state]];
+            for (int letter = 0; letter < ALPHABET; letter++) {
+                int next = trie[state * ALPHABET + letter];
+                if (next < 0) {
+                    transitions[state * ALPHABET + letter] = transitions[failure[state] * ALPHABET + letter];
+                } else {
+                    transitions[state * ALPHABET + letter] = next;
+                    failure[next] = transitions[failure[state] * ALPHABET + letter];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    // Id of an exception name in any letter case, or -1 when it is not one of ours
+    public int idOf(String name) {
+        return idsByLowerCaseName.getOrDefault(name.trim().toLowerCase(Locale.ROOT), -1);
+    }
+
+    public int[] newCounts() {
+        return new int[names.length];
+    }
+
+    // Adds the number of whole-word mentions of each exception in text to counts[id]
+    public void scan(CharSequence text, int[] counts) {
+        if (text == null) return;
+
+        int length = text.length();
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            int letter = letterIndex(text.charAt(i));
+            if (letter < 0) {
+                // Names are letters only, so any other character restarts the automaton
+                state = 0;
+                continue;
+            }
+            state = transitions[state * ALPHABET + letter];
+
+            if (i + 1 < length && isWordChar(text.charAt(i + 1))) {
+                continue;
+            }
+            int matched = output[state] >= 0 ? state : outputLink[state];
+            while (matched > 0) {
+                int id = output[matched];
+                int start = i + 1 - lengths[id];
+                if (start == 0 || !isWordChar(text.charAt(start - 1))) {
+                    counts[id]++;
+                }
+                matched = outputLink[matched];
+            }
+        }
+    }
+
+    private static int letterIndex(char c) {
+        int lower = c | 0x20;
+        return lower >= 'a' && lower <= 'z' ? lower - 'a' : -1;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,182 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds Java stack traces in a block of code and splits them into their "Caused by" chain and frames.
+ * <p>
+ * A trace starts at an exception line ({@code pkg.SomeException: message}, optionally behind
+ * {@code Exception in thread "main"}) that is followed by {@code at pkg.Class.method(File:line)}
+ * frames; an exception line without frames after it is just text. {@code Caused by:} lines continue the
+ * current trace, {@code ... 12 more} ends a cause whose remaining frames are the enclosing ones, and
+ * {@code Suppressed:} sections are skipped.
+ * <p>
+ * Each trace is blamed on one failing frame: the first frame outside the JDK in the root cause, or
+ * otherwise in the causes around it, so a NullPointerException thrown from
+ * {@code java.util.Objects.requireNonNull} lands on the application or library code that called it.
+ */
+@Component
+public class StackTraceParser {
+
+    // Bump whenever what gets extracted changes, stored traces are parsed again at startup
+    public static final String VERSION = "1";
+
+    // Bounds per code block, a pasted log can hold thousands of frames
+    static final int MAX_TRACES = 16;
+    static final int MAX_CAUSES = 16;
+    static final int MAX_FRAMES = 64;
+    // Lines a multi-line message may take between an exception line and its first frame
+    private static final int MAX_MESSAGE_LINES = 5;
+    // Column width of the names in stack_trace_causes and stack_frames
+    private static final int MAX_NAME = 255;
+
+    private static final String[] JDK_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+
+    private static final Pattern EXCEPTION = Pattern.compile(
+            "\\s*(?:Exception in thread \"[^\"]*\"\\s+)?(Caused by:\\s*)?((?:[a-zA-Z_$][\\w$]*\\.)+[A-Z][\\w$]*)(?::.*)?\\s*");
+    // Module and class loader prefixes (java.base/, app//) are dropped, hidden classes keep their /0x... suffix
+    private static final Pattern FRAME = Pattern.compile(
+            "\\s*at\\s+(?:[\\w.@-]*/)*((?:[\\w$]+\\.)*)([\\w$]+(?:/0x[0-9a-f]+)?)\\.([\\w$<>]+)\\(([^)]*)\\)");
+    private static final Pattern MORE = Pattern.compile("\\s*\\.\\.\\.\\s*\\d+\\s+(?:more|common frames omitted)\\s*");
+    private static final Pattern SUPPRESSED = Pattern.compile("\\s*Suppressed:.*");
+    private static final Pattern LINE_NUMBER = Pattern.compile(":(\\d{1,9})$");
+
+    public List<StackTrace> parse(String code) {
+        List<StackTrace> traces = new ArrayList<>();
+        if (code == null || code.indexOf("at ") < 0) {
+            return traces;
+        }
+
+        List<Cause> trace = null;
+        String pending = null;
+        boolean pendingIsCause = false;
+        int messageLines = 0;
+        boolean suppressed = false;
+        for (String line : code.split("\\R")) {
+            Matcher frame = FRAME.matcher(line);
+            if (frame.lookingAt()) {
+                if (suppressed) continue;
+                if (pending != null) {
+                    trace = open(trace, pending, pendingIsCause, traces);
+                    pending = null;
+                }
+                if (trace != null) {
+                    List<Frame> frames = trace.get(trace.size() - 1).frames();
+                    if (frames.size() < MAX_FRAMES) {
+                        frames.add(frame(frame));
+                    }
+                }
+                continue;
+            }
+            if (MORE.matcher(line).matches()) {
+                // A cause whose frames are all shared with the enclosing one
+                if (!suppressed && pending != null && pendingIsCause && trace != null) {
+                    trace = open(trace, pending, true, traces);
+                }
+                pending = null;
+                continue;
+            }
+            if (SUPPRESSED.matcher(line).matches()) {
+                suppressed = trace != null;
+                pending = null;
+                continue;
+            }
+            Matcher exception = EXCEPTION.matcher(line);
+            if (exception.matches()) {
+                boolean isCause = exception.group(1) != null;
+                if (suppressed) {
+                    // The suppressed section ends at the next line that is not indented below it
+                    if (Character.isWhitespace(line.charAt(0))) continue;
+                    suppressed = false;
+                }
+                // An exception line straight before a "Caused by" still belongs to the chain
+                if (pending != null && isCause) {
+                    trace = open(trace, pending, pendingIsCause, traces);
+                }
+                pending = truncate(exception.group(2));
+                pendingIsCause = isCause;
+                messageLines = 0;
+                continue;
+            }
+            if (pending != null && ++messageLines > MAX_MESSAGE_LINES) {
+                pending = null;
+            }
+        }
+        finish(trace, traces);
+        return traces;
+    }
+
+    static boolean isJdk(String packageName) {
+        for (String prefix : JDK_PACKAGES) {
+            if (packageName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Adds the exception to the current trace, or starts a new trace for an exception that is not a cause
+    private static List<Cause> open(List<Cause> trace, String exceptionClass, boolean isCause, List<StackTrace> traces) {
+        if (!isCause || trace == null) {
+            finish(trace, traces);
+            trace = new ArrayList<>();
+        }
+        if (trace.size() < MAX_CAUSES) {
+            trace.add(new Cause(exceptionClass, new ArrayList<>()));
+        }
+        return trace;
+    }
+
+    private static void finish(List<Cause> trace, List<StackTrace> traces) {
+        if (trace == null || traces.size() >= MAX_TRACES) {
+            return;
+        }
+        // From the root cause outwards, the first frame outside the JDK
+        for (int cause = trace.size() - 1; cause >= 0; cause--) {
+            List<Frame> frames = trace.get(cause).frames();
+            for (int frame = 0; frame < frames.size(); frame++) {
+                if (!isJdk(frames.get(frame).packageName())) {
+                    traces.add(new StackTrace(trace, cause, frame));
+                    return;
+                }
+            }
+        }
+        // All JDK, blame the top of the innermost cause that has frames
+        for (int cause = trace.size() - 1; cause >= 0; cause--) {
+            if (!trace.get(cause).frames().isEmpty()) {
+                traces.add(new StackTrace(trace, cause, 0));
+                return;
+            }
+        }
+    }
+
+    private static Frame frame(Matcher frame) {
+        String packageName = frame.group(1);
+        if (!packageName.isEmpty()) {
+            packageName = packageName.substring(0, packageName.length() - 1);
+        }
+        Matcher lineNumber = LINE_NUMBER.matcher(frame.group(4));
+        return new Frame(truncate(packageName), truncate(frame.group(2)), truncate(frame.group(3)),
+                lineNumber.find() ? Integer.valueOf(lineNumber.group(1)) : null);
+    }
+
+    private static String truncate(String name) {
+        return name.length() > MAX_NAME ? name.substring(0, MAX_NAME) : name;
+    }
+
+    // causes[0] is the outermost exception and the last one the root cause
+    public record StackTrace(List<Cause> causes, int failingCause, int failingFrame) {
+    }
+
+    public record Cause(String exceptionClass, List<Frame> frames) {
+    }
+
+    // lineNumber is null for "Native Method", "Unknown Source" and the like
+    public record Frame(String packageName, String className, String methodName, Integer lineNumber) {
+    }
+}
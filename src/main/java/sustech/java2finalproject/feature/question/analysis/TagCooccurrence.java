@@ -0,0 +1,163 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Symmetric sparse matrix of how many questions each pair of tags shares.
+ * <p>
+ * Tags are interned to dense ints in the order they are first seen. Row i holds the tags that
+ * appear together with tag i as an open-addressing int to int map, so the neighbours of a tag are
+ * read without touching any other row and adding a question costs one increment per tag pair.
+ * Only questions with at least one tag are counted. Not thread-safe, {@link TagCooccurrenceIndex}
+ * guards it.
+ */
+final class TagCooccurrence {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[64];
+    private int[] questionCounts = new int[64];
+    private IntCounts[] rows = new IntCounts[64];
+    private int tags;
+    private int questions;
+    private long pairs;
+
+    // Tag names are matched case-insensitively, like the frequency endpoints do
+    int intern(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (tags == names.length) {
+            names = Arrays.copyOf(names, tags * 2);
+            questionCounts = Arrays.copyOf(questionCounts, tags * 2);
+            rows = Arrays.copyOf(rows, tags * 2);
+        }
+        names[tags] = name;
+        rows[tags] = new IntCounts();
+        ids.put(key, tags);
+        return tags++;
+    }
+
+    int idOf(String name) {
+        return ids.getOrDefault(name.toLowerCase(Locale.ROOT), -1);
+    }
+
+    // tags are interned ids, duplicates are counted once
+    void addQuestion(int[] tags) {
+        int[] distinct = Arrays.stream(tags).sorted().distinct().toArray();
+        if (distinct.length == 0) {
+            return;
+        }
+        questions++;
+        for (int i = 0; i < distinct.length; i++) {
+            questionCounts[distinct[i]]++;
+            for (int j = i + 1; j < distinct.length; j++) {
+                if (rows[distinct[i]].increment(distinct[j]) == 1) {
+                    pairs++;
+                }
+                rows[distinct[j]].increment(distinct[i]);
+            }
+        }
+    }
+
+    String name(int tag) {
+        return names[tag];
+    }
+
+    int questionCount(int tag) {
+        return questionCounts[tag];
+    }
+
+    IntCounts row(int tag) {
+        return rows[tag];
+    }
+
+    int tagCount() {
+        return tags;
+    }
+
+    int questionCount() {
+        return questions;
+    }
+
+    // Distinct tag pairs seen together at least once
+    long pairCount() {
+        return pairs;
+    }
+
+    // Open-addressing int -> count map with linear probing, keys are tag ids so -1 marks a free slot
+    static final class IntCounts {
+        private static final int FREE = -1;
+
+        private int[] keys = newKeys(8);
+        private int[] counts = new int[8];
+        private int size;
+
+        // Returns the new count
+        int increment(int key) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != FREE && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == FREE) {
+                keys[slot] = key;
+                size++;
+            }
+            return ++counts[slot];
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Slots are iterated as 0 .. capacity() - 1, skipping those where key(slot) < 0
+        int capacity() {
+            return keys.length;
+        }
+
+        int key(int slot) {
+            return keys[slot];
+        }
+
+        int count(int slot) {
+            return counts[slot];
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = newKeys(oldKeys.length * 2);
+            counts = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == FREE) continue;
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        private static int[] newKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, FREE);
+            return keys;
+        }
+
+        // Ids are dense and sequential, spread them before masking
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
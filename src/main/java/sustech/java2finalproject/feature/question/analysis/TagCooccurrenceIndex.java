@@ -0,0 +1,200 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sustech.java2finalproject.feature.data.IngestionListener;
+import sustech.java2finalproject.feature.data.SavedQuestion;
+import sustech.java2finalproject.feature.question.dto.RelatedTagResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tags that appear together on questions, kept in memory as a {@link TagCooccurrence}.
+ * <p>
+ * The matrix is built from the question/tag join at startup and every question is added to it as
+ * it is ingested, once its chunk has committed. Related tags are ranked by how many questions they
+ * share with the tag, and scored with lift, {@code P(a,b) / (P(a) P(b))}, and PMI, {@code log2(lift)},
+ * over the questions that have tags.
+ */
+@Component
+public class TagCooccurrenceIndex implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagCooccurrenceIndex.class);
+
+    // Ranking order: most shared questions first, ties by name
+    private static final Comparator<RelatedTagResponse> RANKING =
+            Comparator.comparing(RelatedTagResponse::questions).reversed()
+                    .thenComparing(RelatedTagResponse::name);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TagCooccurrence matrix = new TagCooccurrence();
+    // Questions added while a rebuild reads the links, replayed into the rebuilt matrix; null when none runs
+    private List<TaggedQuestion> pending;
+
+    public TagCooccurrenceIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void onQuestionsSaved(List<SavedQuestion> questions) {
+        List<TaggedQuestion> tags = new ArrayList<>(questions.size());
+        for (SavedQuestion question : questions) {
+            if (question.item().getTags() != null) {
+                tags.add(new TaggedQuestion(question.id(), question.item().getTags()));
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addAll(tags);
+                }
+            });
+        } else {
+            addAll(tags);
+        }
+    }
+
+    public List<RelatedTagResponse> related(String tag, int topN) {
+        lock.readLock().lock();
+        try {
+            int id = matrix.idOf(tag);
+            if (id < 0 || topN <= 0) {
+                return new ArrayList<>();
+            }
+            double questions = matrix.questionCount();
+            double tagQuestions = matrix.questionCount(id);
+            TagCooccurrence.IntCounts row = matrix.row(id);
+
+            // Min-heap on the ranking, the head is the weakest of the current top N
+            PriorityQueue<RelatedTagResponse> heap = new PriorityQueue<>(Math.min(topN, row.size()) + 1, RANKING.reversed());
+            for (int slot = 0; slot < row.capacity(); slot++) {
+                int other = row.key(slot);
+                if (other < 0) continue;
+                int shared = row.count(slot);
+                if (heap.size() == topN) {
+                    RelatedTagResponse weakest = heap.peek();
+                    if (shared < weakest.questions()
+                            || (shared == weakest.questions() && matrix.name(other).compareTo(weakest.name()) > 0)) {
+                        continue;
+                    }
+                    heap.poll();
+                }
+                double lift = shared * questions / (tagQuestions * matrix.questionCount(other));
+                heap.add(new RelatedTagResponse(matrix.name(other), shared, round(lift), round(Math.log(lift) / Math.log(2))));
+            }
+
+            List<RelatedTagResponse> result = new ArrayList<>(heap);
+            Collections.sort(result, RANKING);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Reads the links without the lock, searches keep using the old matrix until the swap
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        TagCooccurrence rebuilt = new TagCooccurrence();
+        BitSet read = new BitSet();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            // Links come grouped by question, each group is one question's tags
+            int[] current = {-1};
+            List<Integer> questionTags = new ArrayList<>();
+            jdbcTemplate.query(
+                    "SELECT qt.question_id, t.name FROM questions_tags qt JOIN tags t ON t.id = qt.tag_id " +
+                            "ORDER BY qt.question_id",
+                    rs -> {
+                        int questionId = rs.getInt(1);
+                        if (questionId != current[0]) {
+                            rebuilt.addQuestion(toArray(questionTags));
+                            questionTags.clear();
+                            current[0] = questionId;
+                            read.set(questionId);
+                        }
+                        questionTags.add(rebuilt.intern(rs.getString(2)));
+                    });
+            rebuilt.addQuestion(toArray(questionTags));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Questions that committed after the query's snapshot was taken
+            for (TaggedQuestion question : pending) {
+                if (!read.get(question.id())) {
+                    rebuilt.addQuestion(intern(rebuilt, question.tags()));
+                }
+            }
+            matrix = rebuilt;
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Tag co-occurrence built in {} ms: {} tags, {} tagged questions, {} tag pairs",
+                (System.nanoTime() - start) / 1_000_000, rebuilt.tagCount(), rebuilt.questionCount(), rebuilt.pairCount());
+    }
+
+    private void addAll(List<TaggedQuestion> questions) {
+        lock.writeLock().lock();
+        try {
+            for (TaggedQuestion question : questions) {
+                matrix.addQuestion(intern(matrix, question.tags()));
+            }
+            if (pending != null) {
+                pending.addAll(questions);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int[] intern(TagCooccurrence matrix, List<String> names) {
+        int[] tags = new int[names.size()];
+        int count = 0;
+        for (String name : names) {
+            if (name != null) tags[count++] = matrix.intern(name);
+        }
+        return count == tags.length ? tags : Arrays.copyOf(tags, count);
+    }
+
+    private static int[] toArray(List<Integer> tags) {
+        return tags.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+
+    private record TaggedQuestion(int id, List<String> tags) {
+    }
+}
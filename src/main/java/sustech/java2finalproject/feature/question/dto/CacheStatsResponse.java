@@ -0,0 +1,12 @@
+package sustech.java2finalproject.feature.question.dto;
+
+public record CacheStatsResponse(
+        String name,
+        Long datasetVersion,
+        Long size,
+        Long hits,
+        Long misses,
+        Long evictions,
+        Double hitRate
+) {
+}
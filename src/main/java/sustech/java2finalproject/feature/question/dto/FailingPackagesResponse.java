@@ -0,0 +1,9 @@
+package sustech.java2finalproject.feature.question.dto;
+
+import java.util.List;
+
+public record FailingPackagesResponse(
+        List<TopNResponse> packages,
+        List<TopNResponse> rootCauses
+) {
+}
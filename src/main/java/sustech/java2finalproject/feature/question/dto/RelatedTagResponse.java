@@ -0,0 +1,9 @@
+package sustech.java2finalproject.feature.question.dto;
+
+public record RelatedTagResponse(
+        String name,
+        Integer questions,
+        Double lift,
+        Double pmi
+) {
+}
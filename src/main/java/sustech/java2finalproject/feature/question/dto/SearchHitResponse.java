@@ -0,0 +1,9 @@
+package sustech.java2finalproject.feature.question.dto;
+
+public record SearchHitResponse(
+        Integer id,
+        Long questionStackId,
+        String title,
+        Double score
+) {
+}
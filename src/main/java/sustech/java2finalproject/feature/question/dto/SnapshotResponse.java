@@ -0,0 +1,13 @@
+package sustech.java2finalproject.feature.question.dto;
+
+import java.time.LocalDateTime;
+
+public record SnapshotResponse(
+        Integer owners,
+        Integer questions,
+        Integer tags,
+        Integer questionTags,
+        Long footprintBytes,
+        LocalDateTime builtAt
+) {
+}
@@ -0,0 +1,14 @@
+package sustech.java2finalproject.feature.question.dto;
+
+import java.time.LocalDate;
+
+public record TagTrendResponse(
+        String tag,
+        LocalDate bucketStart,
+        Long questions,
+        Double avgScore,
+        Double avgViewCount,
+        Double avgAnswerCount,
+        Double avgReputation
+) {
+}
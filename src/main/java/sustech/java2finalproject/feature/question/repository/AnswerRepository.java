@@ -1,15 +1,32 @@
 package sustech.java2finalproject.feature.question.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sustech.java2finalproject.domain.Answer;
+import sustech.java2finalproject.feature.question.repository.projection.AnswerQualityRow;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AnswerRepository extends JpaRepository<Answer, Integer> {
 
     Optional<Answer> findByAnswerId(Long id);
 
+    // The best topN by stored quality score, read off idx_answer_quality_score. Ties keep insertion order.
+    // Forward-only cursor, has to be consumed inside a transaction so the driver fetches in batches
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.AnswerQualityRow(" +
+            "a.answerId, a.score, a.isAccepted, a.ownerReputation, a.answerLength, a.elapsedHours, a.qualityScore) " +
+            "FROM Answer a ORDER BY a.qualityScore DESC NULLS LAST, a.id LIMIT :topN")
+    Stream<AnswerQualityRow> streamTopByQuality(@Param("topN") int topN);
 
 }
@@ -0,0 +1,19 @@
+package sustech.java2finalproject.feature.question.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import sustech.java2finalproject.domain.ExceptionMention;
+
+import java.util.List;
+
+@Repository
+public interface ExceptionMentionRepository extends JpaRepository<ExceptionMention, ExceptionMention.Key> {
+
+    @Query("SELECT m.exceptionId, SUM(m.mentionCount) FROM ExceptionMention m GROUP BY m.exceptionId")
+    List<Object[]> sumMentionsByException();
+
+    @Query("SELECT COALESCE(SUM(m.mentionCount), 0) FROM ExceptionMention m WHERE m.exceptionId = ?1")
+    long sumMentions(int exceptionId);
+
+}
@@ -1,11 +1,16 @@
 package sustech.java2finalproject.feature.question.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import sustech.java2finalproject.domain.Owner;
+import sustech.java2finalproject.feature.question.repository.projection.OwnerReputationRow;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OwnerRepository extends JpaRepository<Owner, Integer> {
@@ -13,4 +18,12 @@ public interface OwnerRepository extends JpaRepository<Owner, Integer> {
     @Query("SELECT o FROM Owner o WHERE o.reputation >= ?1 ORDER BY o.reputation DESC")
     List<Owner> findTopOwnersByReputation(int reputation);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.OwnerReputationRow(o.id, o.reputation) " +
+            "FROM Owner o ORDER BY o.id")
+    Stream<OwnerReputationRow> streamReputations();
+
 }
@@ -1,11 +1,46 @@
 package sustech.java2finalproject.feature.question.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sustech.java2finalproject.domain.Question;
+import sustech.java2finalproject.feature.question.repository.projection.QuestionEngagementRow;
+import sustech.java2finalproject.feature.question.repository.projection.QuestionTagRow;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Integer> {
 
+    // Older runs may have stored a question more than once, the first row is the one that gets refreshed
+    Optional<Question> findFirstByQuestionStackIdOrderByIdAsc(Long questionStackId);
+
+    @Query("SELECT t.id FROM Question q JOIN q.tags t WHERE q.id = :id")
+    List<Integer> findTagIds(@Param("id") Integer id);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.QuestionEngagementRow(" +
+            "q.id, o.id, q.score, q.viewCount, q.answerCount) FROM Question q LEFT JOIN q.owner o ORDER BY q.id")
+    Stream<QuestionEngagementRow> streamEngagementRows();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.QuestionTagRow(q.id, t.id) " +
+            "FROM Question q JOIN q.tags t")
+    Stream<QuestionTagRow> streamTagLinks();
+
+    @Query("SELECT COUNT(t) FROM Question q JOIN q.tags t")
+    long countTagLinks();
 
 }
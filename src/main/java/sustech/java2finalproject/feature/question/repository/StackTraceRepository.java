@@ -0,0 +1,31 @@
+package sustech.java2finalproject.feature.question.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sustech.java2finalproject.domain.StackTraceCause;
+import sustech.java2finalproject.feature.question.repository.projection.NameCountRow;
+
+import java.util.List;
+
+// Rankings over the parsed stack traces, counted in questions; pattern is a LIKE pattern escaped with \, PostgreSQL's default
+@Repository
+public interface StackTraceRepository extends JpaRepository<StackTraceCause, StackTraceCause.Key> {
+
+    // Served by idx_stack_frames_failing_package, one row per trace
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.NameCountRow(" +
+            "f.packageName, COUNT(DISTINCT f.questionId)) " +
+            "FROM StackFrame f WHERE f.failing = true AND f.packageName LIKE :pattern " +
+            "GROUP BY f.packageName ORDER BY COUNT(DISTINCT f.questionId) DESC, f.packageName LIMIT :topN")
+    List<NameCountRow> findTopFailingPackages(@Param("pattern") String pattern, @Param("topN") int topN);
+
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.NameCountRow(" +
+            "c.exceptionClass, COUNT(DISTINCT c.questionId)) " +
+            "FROM StackTraceCause c WHERE c.rootCause = true AND EXISTS (SELECT 1 FROM StackFrame f " +
+            "WHERE f.questionId = c.questionId AND f.trace = c.trace AND f.failing = true " +
+            "AND f.packageName LIKE :pattern) " +
+            "GROUP BY c.exceptionClass ORDER BY COUNT(DISTINCT c.questionId) DESC, c.exceptionClass LIMIT :topN")
+    List<NameCountRow> findTopRootCauses(@Param("pattern") String pattern, @Param("topN") int topN);
+
+}
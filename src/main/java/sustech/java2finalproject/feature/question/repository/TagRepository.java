@@ -1,16 +1,54 @@
 package sustech.java2finalproject.feature.question.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sustech.java2finalproject.domain.Tag;
+import sustech.java2finalproject.feature.question.repository.projection.TagCountRow;
+import sustech.java2finalproject.feature.question.repository.projection.TagNameRow;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Integer> {
     Tag findByName(String name);
 
-    @Query("SELECT t, COUNT(q) FROM Tag t JOIN t.questions q GROUP BY t ORDER BY COUNT(q) DESC")
-    List<Object[]> findTopNTags(int topN);
+    // Reads tag_stats through idx_tag_stats_question_count, the most used tag is skipped like it always has been
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.TagCountRow(t.name, s.questionCount) " +
+            "FROM TagStats s JOIN Tag t ON t.id = s.tagId " +
+            "WHERE s.questionCount > 0 ORDER BY s.questionCount DESC, s.tagId LIMIT :topN OFFSET 1")
+    List<TagCountRow> findTopNTags(@Param("topN") int topN);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.TagCountRow(t.name, s.questionCount) " +
+            "FROM TagStats s JOIN Tag t ON t.id = s.tagId " +
+            "WHERE s.questionCount > 0 ORDER BY s.questionCount DESC, s.tagId LIMIT :topN OFFSET 1")
+    Stream<TagCountRow> streamTopNTags(@Param("topN") int topN);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.TagNameRow(t.id, t.name) " +
+            "FROM Tag t ORDER BY t.id")
+    Stream<TagNameRow> streamNames();
+
+    // Both counts go through idx_tags_lower_name and idx_questions_tags_tag_id (see schema.sql)
+    @Query(value = "SELECT COUNT(DISTINCT qt.question_id) FROM tags t JOIN questions_tags qt ON qt.tag_id = t.id " +
+            "WHERE lower(t.name) = lower(:name)", nativeQuery = true)
+    long countQuestionsByTagName(@Param("name") String name);
+
+    @Query(value = "SELECT lower(t.name), COUNT(DISTINCT qt.question_id) FROM tags t JOIN questions_tags qt ON qt.tag_id = t.id " +
+            "WHERE lower(t.name) IN (:names) GROUP BY lower(t.name)", nativeQuery = true)
+    List<Object[]> countQuestionsByTagNames(@Param("names") Collection<String> lowerCaseNames);
 
 }
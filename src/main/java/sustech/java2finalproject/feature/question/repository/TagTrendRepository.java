@@ -0,0 +1,35 @@
+package sustech.java2finalproject.feature.question.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sustech.java2finalproject.domain.TagTrend;
+import sustech.java2finalproject.domain.TrendGranularity;
+import sustech.java2finalproject.feature.question.repository.projection.TagTrendRow;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+// Range reads over idx_tag_trends_granularity_bucket, they only ever touch the buckets in the range
+@Repository
+public interface TagTrendRepository extends JpaRepository<TagTrend, TagTrend.Key> {
+
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.TagTrendRow(" +
+            "t.name, tt.bucketStart, tt.questionCount, tt.scoreSum, tt.viewSum, tt.answerCountSum, tt.reputationSum) " +
+            "FROM TagTrend tt JOIN Tag t ON t.id = tt.tagId " +
+            "WHERE tt.granularity = :granularity AND tt.bucketStart BETWEEN :from AND :to " +
+            "ORDER BY tt.bucketStart, tt.questionCount DESC, t.name")
+    List<TagTrendRow> findTrends(@Param("granularity") TrendGranularity granularity,
+                                 @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new sustech.java2finalproject.feature.question.repository.projection.TagTrendRow(" +
+            "t.name, tt.bucketStart, tt.questionCount, tt.scoreSum, tt.viewSum, tt.answerCountSum, tt.reputationSum) " +
+            "FROM TagTrend tt JOIN Tag t ON t.id = tt.tagId " +
+            "WHERE tt.granularity = :granularity AND tt.bucketStart BETWEEN :from AND :to AND lower(t.name) IN :names " +
+            "ORDER BY tt.bucketStart, tt.questionCount DESC, t.name")
+    List<TagTrendRow> findTrendsByTagNames(@Param("granularity") TrendGranularity granularity,
+                                           @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                           @Param("names") Collection<String> lowerCaseNames);
+}
@@ -0,0 +1,13 @@
+package sustech.java2finalproject.feature.question.repository.projection;
+
+// An answer with its stored quality score, everything an AnswerResponse needs
+public record AnswerQualityRow(
+        Long answerId,
+        Integer score,
+        Boolean isAccepted,
+        Long ownerReputation,
+        Long answerLength,
+        Long elapsedHours,
+        Double qualityScore
+) {
+}
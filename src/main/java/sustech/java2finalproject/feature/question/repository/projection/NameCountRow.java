@@ -0,0 +1,7 @@
+package sustech.java2finalproject.feature.question.repository.projection;
+
+public record NameCountRow(
+        String name,
+        Long frequency
+) {
+}
@@ -0,0 +1,7 @@
+package sustech.java2finalproject.feature.question.repository.projection;
+
+public record OwnerReputationRow(
+        Integer id,
+        Long reputation
+) {
+}
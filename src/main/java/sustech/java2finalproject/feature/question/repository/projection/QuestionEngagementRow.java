@@ -0,0 +1,11 @@
+package sustech.java2finalproject.feature.question.repository.projection;
+
+// The numeric fields of a question that feed the engagement score, ownerId is null for questions without owner
+public record QuestionEngagementRow(
+        Integer id,
+        Integer ownerId,
+        Long score,
+        Long viewCount,
+        Long answerCount
+) {
+}
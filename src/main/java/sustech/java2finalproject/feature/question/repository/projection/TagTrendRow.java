@@ -0,0 +1,14 @@
+package sustech.java2finalproject.feature.question.repository.projection;
+
+import java.time.LocalDate;
+
+public record TagTrendRow(
+        String name,
+        LocalDate bucketStart,
+        Long questionCount,
+        Long scoreSum,
+        Long viewSum,
+        Long answerCountSum,
+        Long reputationSum
+) {
+}
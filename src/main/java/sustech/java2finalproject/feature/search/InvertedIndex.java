@@ -0,0 +1,292 @@
+package sustech.java2finalproject.feature.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Positional inverted index over question title and body text, plus the question's tags.
+ * <p>
+ * Documents are numbered in the order they are added. Adding a question id that is already indexed
+ * marks the old document deleted, so an index only grows until it is rebuilt. Not thread-safe,
+ * {@link SearchIndex} guards it with a read/write lock.
+ */
+final class InvertedIndex {
+
+    private static final int MAGIC = 0x51534958; // "QSIX"
+    private static final int FORMAT_VERSION = 1;
+
+    // BM25 parameters, the usual defaults
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Integer> docsByQuestionId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private int docs;
+    private int[] questionIds = new int[64];
+    private long[] questionStackIds = new long[64];
+    private String[] titles = new String[64];
+    private int[] lengths = new int[64];
+    private long liveLength;
+
+    // Title and body are indexed as one field, with a position gap between them so phrases do not span both
+    void add(int questionId, Long questionStackId, String title, String bodyText, Collection<String> tags) {
+        Integer previous = docsByQuestionId.get(questionId);
+        if (previous != null) {
+            delete(previous);
+        }
+
+        int doc = docs++;
+        if (doc == questionIds.length) {
+            int capacity = doc * 2;
+            questionIds = Arrays.copyOf(questionIds, capacity);
+            questionStackIds = Arrays.copyOf(questionStackIds, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        questionIds[doc] = questionId;
+        questionStackIds[doc] = questionStackId != null ? questionStackId : 0;
+        titles[doc] = title != null ? title : "";
+        docsByQuestionId.put(questionId, doc);
+
+        // Term -> positions of this document, in position order
+        Map<String, PositionList> termPositions = new LinkedHashMap<>();
+        int position = 0;
+        for (String token : Tokenizer.tokens(title)) {
+            addPosition(termPositions, token, position++);
+        }
+        position++;
+        for (String token : Tokenizer.tokens(bodyText)) {
+            addPosition(termPositions, token, position++);
+        }
+        int length = position - 1;
+        for (Map.Entry<String, PositionList> entry : termPositions.entrySet()) {
+            PositionList positions = entry.getValue();
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, positions.values, positions.size);
+        }
+
+        // Tags do not count towards the document length
+        if (tags != null) {
+            for (String tag : new LinkedHashSet<>(tags)) {
+                postings.computeIfAbsent(SearchQuery.tagKey(tag), key -> new Postings()).add(doc, new int[]{0}, 1);
+            }
+        }
+
+        lengths[doc] = length;
+        liveLength += length;
+    }
+
+    boolean contains(int questionId) {
+        return docsByQuestionId.containsKey(questionId);
+    }
+
+    int liveDocs() {
+        return docs - deleted.cardinality();
+    }
+
+    int terms() {
+        return postings.size();
+    }
+
+    long postingsBytes() {
+        long bytes = 0;
+        for (Postings list : postings.values()) {
+            bytes += list.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    List<Hit> search(SearchQuery query, int limit, int[] total) {
+        total[0] = 0;
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Every term, phrase term and tag is required; the text terms are the ones that score
+        LinkedHashSet<String> scored = new LinkedHashSet<>(query.terms());
+        query.phrases().forEach(scored::addAll);
+        List<String> required = new ArrayList<>(scored);
+        for (String tag : query.tags()) {
+            required.add(SearchQuery.tagKey(tag));
+        }
+
+        Map<String, Postings.Cursor> cursors = new HashMap<>();
+        List<Postings> lists = new ArrayList<>();
+        for (String key : required) {
+            Postings list = postings.get(key);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            lists.add(list);
+        }
+        // Drive the intersection from the rarest list
+        List<Postings.Cursor> ordered = new ArrayList<>();
+        Integer[] byDocFreq = new Integer[required.size()];
+        for (int i = 0; i < byDocFreq.length; i++) byDocFreq[i] = i;
+        Arrays.sort(byDocFreq, Comparator.comparingInt(i -> lists.get(i).docFreq()));
+        for (int i : byDocFreq) {
+            Postings.Cursor cursor = lists.get(i).cursor();
+            cursors.put(required.get(i), cursor);
+            ordered.add(cursor);
+        }
+
+        int live = liveDocs();
+        double averageLength = live > 0 ? (double) liveLength / live : 0;
+        Map<String, Double> idf = new HashMap<>();
+        for (String term : scored) {
+            // Document frequencies still count deleted documents, so compare them with all documents
+            int df = postings.get(term).docFreq();
+            idf.put(term, Math.log(1 + (docs - df + 0.5) / (df + 0.5)));
+        }
+
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed().thenComparingInt(Hit::questionId);
+        // No more hits than documents on the rarest list
+        PriorityQueue<Hit> heap = new PriorityQueue<>(Math.min(limit, lists.get(byDocFreq[0]).docFreq()) + 1, ranking.reversed());
+
+        Postings.Cursor lead = ordered.get(0);
+        int doc = lead.next();
+        while (doc != Integer.MAX_VALUE) {
+            int candidate = doc;
+            for (int i = 1; i < ordered.size() && candidate != Integer.MAX_VALUE; i++) {
+                int at = ordered.get(i).advance(candidate);
+                if (at > candidate) {
+                    candidate = at;
+                }
+            }
+            if (candidate == Integer.MAX_VALUE) break;
+            if (candidate != doc) {
+                // Some list had nothing at doc, restart from the furthest one
+                doc = lead.advance(candidate);
+                continue;
+            }
+
+            if (!deleted.get(doc) && phrasesMatch(query.phrases(), cursors)) {
+                total[0]++;
+                double score = 0;
+                for (String term : scored) {
+                    int freq = cursors.get(term).freq();
+                    double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                    score += idf.get(term) * freq * (K1 + 1) / (freq + norm);
+                }
+                Hit hit = new Hit(questionIds[doc], questionStackIds[doc], titles[doc], score);
+                if (heap.size() < limit) {
+                    heap.add(hit);
+                } else if (ranking.compare(hit, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(hit);
+                }
+            }
+            doc = lead.next();
+        }
+
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(ranking);
+        return hits;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(docs);
+        for (int doc = 0; doc < docs; doc++) {
+            out.writeInt(questionIds[doc]);
+            out.writeLong(questionStackIds[doc]);
+            writeString(out, titles[doc]);
+            out.writeInt(lengths[doc]);
+            out.writeBoolean(deleted.get(doc));
+        }
+        out.writeLong(liveLength);
+        out.writeInt(postings.size());
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            writeString(out, entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+
+    static InvertedIndex read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a search index file of format version " + FORMAT_VERSION);
+        }
+        InvertedIndex index = new InvertedIndex();
+        int docs = in.readInt();
+        int capacity = Math.max(64, docs);
+        index.questionIds = new int[capacity];
+        index.questionStackIds = new long[capacity];
+        index.titles = new String[capacity];
+        index.lengths = new int[capacity];
+        for (int doc = 0; doc < docs; doc++) {
+            index.questionIds[doc] = in.readInt();
+            index.questionStackIds[doc] = in.readLong();
+            index.titles[doc] = readString(in);
+            index.lengths[doc] = in.readInt();
+            if (in.readBoolean()) {
+                index.deleted.set(doc);
+            } else {
+                index.docsByQuestionId.put(index.questionIds[doc], doc);
+            }
+        }
+        index.docs = docs;
+        index.liveLength = in.readLong();
+        int terms = in.readInt();
+        for (int i = 0; i < terms; i++) {
+            String term = readString(in);
+            index.postings.put(term, Postings.read(in));
+        }
+        return index;
+    }
+
+    private void delete(int doc) {
+        deleted.set(doc);
+        liveLength -= lengths[doc];
+    }
+
+    // For every phrase some start position has to be followed by each next term at the next position
+    private static boolean phrasesMatch(List<List<String>> phrases, Map<String, Postings.Cursor> cursors) {
+        for (List<String> phrase : phrases) {
+            Postings.Cursor first = cursors.get(phrase.get(0));
+            boolean found = false;
+            for (int i = 0; i < first.freq() && !found; i++) {
+                int start = first.positions()[i];
+                found = true;
+                for (int offset = 1; offset < phrase.size() && found; offset++) {
+                    Postings.Cursor next = cursors.get(phrase.get(offset));
+                    found = Arrays.binarySearch(next.positions(), 0, next.freq(), start + offset) >= 0;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private static void addPosition(Map<String, PositionList> termPositions, String term, int position) {
+        PositionList positions = termPositions.computeIfAbsent(term, t -> new PositionList());
+        if (positions.size == positions.values.length) {
+            positions.values = Arrays.copyOf(positions.values, positions.size * 2);
+        }
+        positions.values[positions.size++] = position;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class PositionList {
+        private int[] values = new int[4];
+        private int size;
+    }
+
+    record Hit(int questionId, long questionStackId, String title, double score) {
+    }
+}
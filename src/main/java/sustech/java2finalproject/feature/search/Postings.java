@@ -0,0 +1,135 @@
+package sustech.java2finalproject.feature.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Postings list of one term, stored as varints in a single byte array.
+ * <p>
+ * Each document is written as its gap to the previous document, the term frequency and then the
+ * gaps between the positions of the term in the document. Documents only ever arrive in increasing
+ * order, so the list is append-only.
+ */
+final class Postings {
+
+    private byte[] data = new byte[8];
+    private int size;
+    private int lastDoc = -1;
+    private int docFreq;
+
+    void add(int doc, int[] positions, int count) {
+        if (doc <= lastDoc) {
+            throw new IllegalArgumentException("Documents must be added in increasing order: " + doc + " after " + lastDoc);
+        }
+        writeVarint(doc - lastDoc);
+        writeVarint(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDoc = doc;
+        docFreq++;
+    }
+
+    int docFreq() {
+        return docFreq;
+    }
+
+    int sizeInBytes() {
+        return size;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(docFreq);
+        out.writeInt(lastDoc);
+        out.writeInt(size);
+        out.write(data, 0, size);
+    }
+
+    static Postings read(DataInput in) throws IOException {
+        Postings postings = new Postings();
+        postings.docFreq = in.readInt();
+        postings.lastDoc = in.readInt();
+        postings.size = in.readInt();
+        postings.data = new byte[Math.max(8, postings.size)];
+        in.readFully(postings.data, 0, postings.size);
+        return postings;
+    }
+
+    private void writeVarint(int value) {
+        if (size + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    // Forward-only reader, positions of the current document are decoded along with it
+    final class Cursor {
+        private final int end = size;
+        private int offset;
+        private int doc = -1;
+        private int freq;
+        private int[] positions = new int[4];
+
+        int doc() {
+            return doc;
+        }
+
+        int freq() {
+            return freq;
+        }
+
+        int[] positions() {
+            return positions;
+        }
+
+        // Moves to the next document, or returns Integer.MAX_VALUE when there is none
+        int next() {
+            if (offset >= end) {
+                return doc = Integer.MAX_VALUE;
+            }
+            doc += readVarint();
+            freq = readVarint();
+            if (positions.length < freq) {
+                positions = new int[Math.max(freq, positions.length * 2)];
+            }
+            int position = 0;
+            for (int i = 0; i < freq; i++) {
+                position += readVarint();
+                positions[i] = position;
+            }
+            return doc;
+        }
+
+        // Moves to the first document at or after target
+        int advance(int target) {
+            while (doc < target) {
+                next();
+            }
+            return doc;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package sustech.java2finalproject.feature.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sustech.java2finalproject.feature.data.DatasetChangedEvent;
+import sustech.java2finalproject.feature.data.IngestionListener;
+import sustech.java2finalproject.feature.data.HtmlPreprocessor;
+import sustech.java2finalproject.feature.data.SavedQuestion;
+import sustech.java2finalproject.feature.question.dto.SearchHitResponse;
+import sustech.java2finalproject.feature.question.dto.SearchResponse;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Full-text search over question titles and bodies.
+ * <p>
+ * Questions are indexed as they are ingested, once their chunk has committed. The index is written
+ * to {@code search.index-path} after every ingestion and loaded from there at startup; when the file
+ * is missing, unreadable or does not cover the questions table it is rebuilt from the database.
+ */
+@Component
+public class SearchIndex implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HtmlPreprocessor htmlPreprocessor;
+    private final Path indexPath;
+    private final int batchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    private boolean dirty;
+    // Documents added while a rebuild reads the table, replayed into the rebuilt index; null when none runs
+    private List<Document> pending;
+
+    public SearchIndex(JdbcTemplate jdbcTemplate, HtmlPreprocessor htmlPreprocessor,
+                       @Value("${search.index-path:data/search-index.bin}") String indexPath,
+                       @Value("${ingest.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.htmlPreprocessor = htmlPreprocessor;
+        this.indexPath = Path.of(indexPath);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onQuestionsSaved(List<SavedQuestion> questions) {
+        // The HTML is already stripped, but only touch the index once the rows are really there
+        List<Document> documents = new ArrayList<>(questions.size());
+        for (SavedQuestion question : questions) {
+            documents.add(new Document(question.id(), question.item().getQuestionId(), question.item().getTitle(),
+                    question.body().text(), question.item().getTags()));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addAll(documents);
+                }
+            });
+        } else {
+            addAll(documents);
+        }
+    }
+
+    public SearchResponse search(String query, int limit) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        int[] total = new int[1];
+        List<InvertedIndex.Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = index.search(parsed, limit, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SearchHitResponse> responses = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            responses.add(new SearchHitResponse(hit.questionId(), hit.questionStackId(), hit.title(),
+                    Math.round(hit.score() * 10000) / 10000.0));
+        }
+        return new SearchResponse(total[0], responses);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOrRebuild() {
+        Long questions = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM questions", Long.class);
+        if (Files.exists(indexPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+                InvertedIndex loaded = InvertedIndex.read(in);
+                if (questions != null && loaded.liveDocs() == questions) {
+                    swap(loaded);
+                    logger.info("Loaded search index of {} questions and {} terms from {}",
+                            loaded.liveDocs(), loaded.terms(), indexPath);
+                    return;
+                }
+                logger.info("Search index in {} covers {} questions but there are {}, rebuilding",
+                        indexPath, loaded.liveDocs(), questions);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not read search index from {}, rebuilding", indexPath, e);
+            }
+        }
+        rebuild();
+    }
+
+    @EventListener
+    public void onDatasetChanged(DatasetChangedEvent event) {
+        persistIfDirty();
+    }
+
+    // Reindexes every stored question in id order and returns how many were indexed
+    public synchronized int rebuild() {
+        long start = System.nanoTime();
+        InvertedIndex rebuilt = new InvertedIndex();
+        int indexed = 0;
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            // Searches keep reading the old index meanwhile
+            int lastId = 0;
+            while (true) {
+                List<Document> page = loadPage(lastId);
+                if (page.isEmpty()) break;
+                for (Document document : page) {
+                    rebuilt.add(document.questionId(), document.questionStackId(), document.title(),
+                            document.bodyText(), document.tags());
+                }
+                indexed += page.size();
+                lastId = page.get(page.size() - 1).questionId();
+            }
+        } catch (RuntimeException e) {
+            // The old index stays and kept everything added to it, nothing to replay
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            // Questions that committed after the pages covering them were read
+            for (Document document : pending) {
+                if (!rebuilt.contains(document.questionId())) {
+                    rebuilt.add(document.questionId(), document.questionStackId(), document.title(),
+                            document.bodyText(), document.tags());
+                }
+            }
+            index = rebuilt;
+            dirty = true;
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Rebuilt search index of {} questions and {} terms ({} KiB of postings) in {} ms",
+                indexed, rebuilt.terms(), rebuilt.postingsBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        persistIfDirty();
+        return indexed;
+    }
+
+    private List<Document> loadPage(int afterId) {
+        List<Document> page = jdbcTemplate.query(
+                "SELECT id, question_stack_id, title, body_text, body FROM questions WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Document(rs.getInt(1), (Long) rs.getObject(2), rs.getString(3),
+                        text(rs.getString(4), rs.getString(5)), new ArrayList<>()),
+                afterId, batchSize);
+        if (page.isEmpty()) return page;
+
+        Map<Integer, Document> byId = new HashMap<>();
+        for (Document document : page) {
+            byId.put(document.questionId(), document);
+        }
+        jdbcTemplate.query("SELECT qt.question_id, t.name FROM questions_tags qt JOIN tags t ON t.id = qt.tag_id " +
+                        "WHERE qt.question_id > ? AND qt.question_id <= ?",
+                (RowCallbackHandler) rs -> {
+                    Document document = byId.get(rs.getInt(1));
+                    if (document != null) document.tags().add(rs.getString(2));
+                },
+                afterId, page.get(page.size() - 1).questionId());
+        return page;
+    }
+
+    private void addAll(List<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            for (Document document : documents) {
+                index.add(document.questionId(), document.questionStackId(), document.title(),
+                        document.bodyText(), document.tags());
+            }
+            if (pending != null) {
+                pending.addAll(documents);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void swap(InvertedIndex loaded) {
+        lock.writeLock().lock();
+        try {
+            index = loaded;
+            dirty = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Serialized in memory under the read lock, then written to a temporary file and moved over the old one
+    // without it, so ingestion never waits on the disk and a crash never leaves half an index behind
+    private synchronized void persistIfDirty() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int questions;
+        lock.readLock().lock();
+        try {
+            if (!dirty) return;
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                index.write(out);
+            }
+            questions = index.liveDocs();
+            // Writers change it only under the write lock, and persisting is synchronized
+            dirty = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            Path parent = indexPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporary = Files.createTempFile(parent, "search-index", ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote search index of {} questions to {}", questions, indexPath);
+        } catch (IOException e) {
+            logger.error("Could not write search index to " + indexPath, e);
+            lock.writeLock().lock();
+            try {
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Rows stored before body_text existed are parsed here until BodyTextMaintainer has filled them in
+    private String text(String bodyText, String html) {
+        return bodyText != null ? bodyText : htmlPreprocessor.process(html).text();
+    }
+
+    private record Document(int questionId, Long questionStackId, String title, String bodyText, List<String> tags) {
+    }
+}
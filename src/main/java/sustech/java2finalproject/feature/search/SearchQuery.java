@@ -0,0 +1,69 @@
+package sustech.java2finalproject.feature.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A parsed search query: free terms, quoted phrases and {@code tag:} filters, all of which a
+ * question has to match.
+ * <p>
+ * {@code tag:spring-boot "null pointer" hibernate} finds questions tagged spring-boot that contain
+ * the phrase "null pointer" and the term hibernate.
+ */
+public record SearchQuery(
+        List<String> terms,
+        List<List<String>> phrases,
+        List<String> tags
+) {
+
+    private static final String TAG_PREFIX = "tag:";
+
+    public static SearchQuery parse(String query) {
+        List<String> terms = new ArrayList<>();
+        List<List<String>> phrases = new ArrayList<>();
+        List<String> tags = new ArrayList<>();
+        if (query == null) {
+            return new SearchQuery(terms, phrases, tags);
+        }
+
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int close = query.indexOf('"', i + 1);
+                int end = close < 0 ? length : close;
+                List<String> phrase = Tokenizer.tokens(query.substring(i + 1, end));
+                if (phrase.size() == 1) {
+                    terms.add(phrase.get(0));
+                } else if (phrase.size() > 1) {
+                    phrases.add(phrase);
+                }
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(query.charAt(end))) end++;
+                String word = query.substring(i, end);
+                if (word.regionMatches(true, 0, TAG_PREFIX, 0, TAG_PREFIX.length()) && word.length() > TAG_PREFIX.length()) {
+                    tags.add(word.substring(TAG_PREFIX.length()).toLowerCase(Locale.ROOT));
+                } else {
+                    terms.addAll(Tokenizer.tokens(word));
+                }
+                i = end;
+            }
+        }
+        return new SearchQuery(terms, phrases, tags);
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty() && phrases.isEmpty() && tags.isEmpty();
+    }
+
+    // Key a tag is indexed under, the tokenizer never produces a ':' so it cannot clash with a text term
+    static String tagKey(String tag) {
+        return TAG_PREFIX + tag.toLowerCase(Locale.ROOT);
+    }
+}
@@ -15,6 +15,17 @@ public class StackExchangeResponse {
     @JsonProperty("items")
     private List<QuestionItem> items;
 
+    // Paging and throttling metadata from the response wrapper
+    @JsonProperty("has_more")
+    private Boolean hasMore;
+
+    @JsonProperty("quota_remaining")
+    private Integer quotaRemaining;
+
+    // Seconds to wait before calling the same method again, only present when the API asks for it
+    @JsonProperty("backoff")
+    private Integer backoff;
+
     // Nested class to represent each question item
     @Getter
     @Setter
@@ -51,6 +62,10 @@ public class StackExchangeResponse {
         @JsonProperty("question_id")
         private Long questionId;
 
+        // Last time the question, one of its answers or comments changed, the incremental sync watermark
+        @JsonProperty("last_activity_date")
+        private Long lastActivityDate;
+
         private String link;
 
         private String title;
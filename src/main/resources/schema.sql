@@ -0,0 +1,68 @@
+-- Runs on every startup after Hibernate has updated the schema, so every statement must be idempotent.
+
+-- Case-insensitive tag lookups and tag -> question counts
+CREATE INDEX IF NOT EXISTS idx_tags_lower_name ON tags (lower(name));
+CREATE INDEX IF NOT EXISTS idx_questions_tags_tag_id ON questions_tags (tag_id);
+
+-- Top-N tags by question count, see TagRepository.findTopNTags
+CREATE INDEX IF NOT EXISTS idx_tag_stats_question_count ON tag_stats (question_count DESC, tag_id);
+
+-- /overall-answer-quality/{topN} reads the first topN entries, see AnswerRepository.streamTopByQuality
+CREATE INDEX IF NOT EXISTS idx_answer_quality_score ON answer (quality_score DESC NULLS LAST, id);
+
+-- /failing-packages/{topN}?prefix=..., the one failing frame of each stack trace by package prefix, see StackTraceRepository
+CREATE INDEX IF NOT EXISTS idx_stack_frames_failing_package ON stack_frames (package_name text_pattern_ops) WHERE failing;
+
+-- Natural keys. Runs before this one could store the same owner, tag, question or answer more than once,
+-- so duplicates are folded into their oldest row before the unique indexes go on. Once there are none
+-- these statements find nothing to do.
+
+-- Per-tag totals counted the duplicates, empty them so they are rebuilt from the cleaned tables at startup
+DELETE FROM tag_stats
+WHERE EXISTS (SELECT 1 FROM questions WHERE question_stack_id IS NOT NULL GROUP BY question_stack_id HAVING COUNT(*) > 1)
+   OR EXISTS (SELECT 1 FROM tags GROUP BY name HAVING COUNT(*) > 1);
+DELETE FROM tag_trends
+WHERE EXISTS (SELECT 1 FROM questions WHERE question_stack_id IS NOT NULL GROUP BY question_stack_id HAVING COUNT(*) > 1)
+   OR EXISTS (SELECT 1 FROM tags GROUP BY name HAVING COUNT(*) > 1)
+   OR EXISTS (SELECT 1 FROM owners WHERE account_id IS NOT NULL GROUP BY account_id HAVING COUNT(*) > 1);
+
+-- Owners: questions point at the oldest row
+UPDATE questions q SET owner_id = d.keep_id
+FROM (SELECT id, MIN(id) OVER (PARTITION BY account_id) AS keep_id FROM owners WHERE account_id IS NOT NULL) d
+WHERE q.owner_id = d.id AND d.id <> d.keep_id;
+DELETE FROM owners o USING owners k WHERE o.account_id = k.account_id AND o.id > k.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_owners_account_id ON owners (account_id);
+
+-- Tags: links move to the oldest row unless the question already has it
+DELETE FROM questions_tags qt
+USING (SELECT id, MIN(id) OVER (PARTITION BY name) AS keep_id FROM tags) d
+WHERE qt.tag_id = d.id AND d.id <> d.keep_id
+  AND EXISTS (SELECT 1 FROM questions_tags k WHERE k.question_id = qt.question_id AND k.tag_id = d.keep_id);
+UPDATE questions_tags qt SET tag_id = d.keep_id
+FROM (SELECT id, MIN(id) OVER (PARTITION BY name) AS keep_id FROM tags) d
+WHERE qt.tag_id = d.id AND d.id <> d.keep_id;
+DELETE FROM tags t USING tags k WHERE t.name = k.name AND t.id > k.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_tags_name ON tags (name);
+
+-- Questions: a copy carries the same tags, mentions, code blocks and stack traces as the oldest row, its answers move over
+DELETE FROM questions_tags qt USING questions q, questions k
+WHERE qt.question_id = q.id AND q.question_stack_id = k.question_stack_id AND q.id > k.id;
+DELETE FROM question_exceptions e USING questions q, questions k
+WHERE e.question_id = q.id AND q.question_stack_id = k.question_stack_id AND q.id > k.id;
+DELETE FROM code_blocks c USING questions q, questions k
+WHERE c.question_id = q.id AND q.question_stack_id = k.question_stack_id AND q.id > k.id;
+DELETE FROM stack_frames f USING questions q, questions k
+WHERE f.question_id = q.id AND q.question_stack_id = k.question_stack_id AND q.id > k.id;
+DELETE FROM stack_trace_causes c USING questions q, questions k
+WHERE c.question_id = q.id AND q.question_stack_id = k.question_stack_id AND q.id > k.id;
+UPDATE answer a SET question_id = d.keep_id
+FROM (SELECT id, MIN(id) OVER (PARTITION BY question_stack_id) AS keep_id FROM questions WHERE question_stack_id IS NOT NULL) d
+WHERE a.question_id = d.id AND d.id <> d.keep_id;
+DELETE FROM questions q USING questions k WHERE q.question_stack_id = k.question_stack_id AND q.id > k.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_questions_question_stack_id ON questions (question_stack_id);
+
+-- Answers, a copy carries the same code blocks as the oldest row
+DELETE FROM code_blocks c USING answer a, answer k
+WHERE c.answer_id = a.id AND a.answer_id = k.answer_id AND a.id > k.id;
+DELETE FROM answer a USING answer k WHERE a.answer_id = k.answer_id AND a.id > k.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_answer_answer_id ON answer (answer_id);
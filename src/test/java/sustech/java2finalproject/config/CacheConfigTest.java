@@ -0,0 +1,95 @@
+package sustech.java2finalproject.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import sustech.java2finalproject.feature.data.DatasetChangedEvent;
+import sustech.java2finalproject.feature.data.DatasetVersion;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {CacheConfig.class, DatasetVersion.class, CacheConfigTest.Rows.class},
+        properties = "analytics.cache.maximum-rows=10")
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+class CacheConfigTest {
+
+    // Stands in for an analytics method, cached the way QuestionServiceImpl caches them
+    @Component
+    static class Rows {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        // Through a method, the bean is a proxy whose own fields are never set
+        public AtomicInteger calls() {
+            return calls;
+        }
+
+        @Cacheable(cacheNames = "topTags", keyGenerator = CacheConfig.VERSIONED_KEY)
+        public List<Integer> first(int n) {
+            calls.incrementAndGet();
+            return Collections.nCopies(n, 0);
+        }
+    }
+
+    @Autowired
+    private Rows rows;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache("topTags").clear();
+        rows.calls().set(0);
+    }
+
+    @Test
+    void aDatasetChangeRetiresCachedResults() {
+        rows.first(3);
+        rows.first(3);
+        assertThat(rows.calls()).hasValue(1);
+
+        eventPublisher.publishEvent(new DatasetChangedEvent("test"));
+
+        assertThat(cache().estimatedSize()).isZero();
+        rows.first(3);
+        assertThat(rows.calls()).hasValue(2);
+    }
+
+    @Test
+    void cachesAreBoundedByResultRows() {
+        rows.first(6);
+        rows.first(6);
+        // A second result of 6 rows does not fit next to the first one
+        rows.first(7);
+        cache().cleanUp();
+
+        assertThat(cache().estimatedSize()).isEqualTo(1);
+        assertThat(cache().policy().eviction().orElseThrow().weightedSize().getAsLong()).isLessThanOrEqualTo(10);
+
+        // Larger than the whole cache, evicted as soon as the cache does its upkeep
+        rows.first(50);
+        cache().cleanUp();
+        rows.first(50);
+        assertThat(rows.calls()).hasValue(4);
+    }
+
+    private Cache<Object, Object> cache() {
+        return ((CaffeineCache) cacheManager.getCache("topTags")).getNativeCache();
+    }
+}
@@ -0,0 +1,116 @@
+package sustech.java2finalproject.feature.data;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sustech.java2finalproject.feature.question.analysis.AnswerQualityScorer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Stored answer scores are recomputed once after the weights change, the stored fingerprint then
+ * keeps later startups from doing it again. Pages of 2 answers, so the recompute pages.
+ */
+@DataJpaTest(properties = "ingest.batch-size=2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AnswerQualityMaintainer.class, AppSettings.class})
+@RecordApplicationEvents
+@EnabledIf("sustech.java2finalproject.feature.data.PostgresTestDatabase#available")
+class AnswerQualityMaintainerPostgresTest {
+
+    private static final LocalDateTime ASKED = LocalDateTime.of(2024, 3, 4, 10, 0);
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private AnswerQualityMaintainer maintainer;
+
+    @Autowired
+    private AppSettings appSettings;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.truncate(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO questions (id, question_stack_id, creation_date) VALUES (1, 100, ?)", ASKED);
+        // Scored with other weights: made-up scores that a recompute must replace
+        jdbcTemplate.update("INSERT INTO answer (id, answer_id, question_id, is_accepted, owner_reputation, score, " +
+                        "created_date, quality_score) VALUES (1, 500, 1, true, 12000, 7, ?, 0.5), (2, 501, 1, false, 10, -1, ?, 0.5), " +
+                        "(3, 502, 1, false, NULL, 0, ?, 0.5)",
+                ASKED.plusHours(2), ASKED.plusDays(3), ASKED.plusMinutes(5));
+        events.clear();
+    }
+
+    @Test
+    void changedWeightsRescoreOnceAndTheNextStartupSkipsIt() {
+        appSettings.put(AnswerQualityMaintainer.FINGERPRINT_SETTING, "v1 accepted=0.5 elapsed=0.1 reputation=0.2 score=0.2");
+
+        maintainer.recomputeIfStale();
+
+        assertThat(events.stream(DatasetChangedEvent.class)).hasSize(1);
+        assertThat(appSettings.get(AnswerQualityMaintainer.FINGERPRINT_SETTING)).contains(AnswerQualityScorer.FINGERPRINT);
+        assertThat(score(1)).isCloseTo(AnswerQualityScorer.qualityScore(true, 2L, 12000L, 7), within(1e-9));
+        assertThat(score(2)).isCloseTo(AnswerQualityScorer.qualityScore(false, 72L, 10L, -1), within(1e-9));
+        assertThat(score(3)).isCloseTo(AnswerQualityScorer.qualityScore(false, 0L, null, 0), within(1e-9));
+        assertThat(jdbcTemplate.queryForList("SELECT elapsed_hours FROM answer ORDER BY id", Long.class))
+                .containsExactly(2L, 72L, 0L);
+
+        // The next startup: a score no recompute would write stays, nothing is published
+        jdbcTemplate.update("UPDATE answer SET quality_score = 0.5 WHERE id = 1");
+        maintainer.recomputeIfStale();
+
+        assertThat(events.stream(DatasetChangedEvent.class)).hasSize(1);
+        assertThat(score(1)).isEqualTo(0.5);
+    }
+
+    @Test
+    void anUnscoredAnswerRescoresEvenWithTheCurrentWeights() {
+        appSettings.put(AnswerQualityMaintainer.FINGERPRINT_SETTING, AnswerQualityScorer.FINGERPRINT);
+        jdbcTemplate.update("UPDATE answer SET quality_score = NULL WHERE id = 2");
+
+        maintainer.recomputeIfStale();
+
+        assertThat(events.stream(DatasetChangedEvent.class)).hasSize(1);
+        assertThat(jdbcTemplate.queryForList("SELECT quality_score FROM answer WHERE quality_score = 0.5", Double.class))
+                .isEmpty();
+    }
+
+    @Test
+    void currentWeightsAndScoresNeedNoRecompute() {
+        appSettings.put(AnswerQualityMaintainer.FINGERPRINT_SETTING, AnswerQualityScorer.FINGERPRINT);
+
+        maintainer.recomputeIfStale();
+
+        assertThat(events.stream(DatasetChangedEvent.class)).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT quality_score FROM answer ORDER BY id", Double.class))
+                .isEqualTo(List.of(0.5, 0.5, 0.5));
+    }
+
+    private double score(int answerId) {
+        return jdbcTemplate.queryForObject("SELECT quality_score FROM answer WHERE id = ?", Double.class, answerId);
+    }
+}
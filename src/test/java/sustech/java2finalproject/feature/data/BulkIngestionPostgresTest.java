@@ -0,0 +1,176 @@
+package sustech.java2finalproject.feature.data;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sustech.java2finalproject.feature.data.dto.IngestionReport;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The bulk ingestion path against PostgreSQL: the {@code ON CONFLICT} upserts, the ids that come
+ * back from {@code RETURNING}, the inserts counted by {@code xmax = 0} and the {@code ANY(?)} lookups.
+ * Each test commits, the tables are emptied before it.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BulkIngestionService.class, BulkUpsertRepository.class, HtmlPreprocessor.class, IngestionMetrics.class,
+        BulkIngestionPostgresTest.Config.class})
+@EnabledIf("sustech.java2finalproject.feature.data.PostgresTestDatabase#available")
+class BulkIngestionPostgresTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private BulkIngestionService ingestion;
+
+    @Autowired
+    private BulkUpsertRepository upserts;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.truncate(jdbcTemplate);
+    }
+
+    @Test
+    void ingestingTheSameItemsAgainWritesNothing() {
+        IngestionReport first = ingestion.ingest(corpus());
+        List<Long> counts = counts();
+
+        IngestionReport second = ingestion.ingest(corpus());
+
+        assertThat(first.rowsInserted()).isPositive();
+        assertThat(first.rowsInserted()).isEqualTo(counts.stream().mapToLong(Long::longValue).sum());
+        assertThat(second.failedQuestions()).isZero();
+        assertThat(second.rowsInserted()).isZero();
+        assertThat(counts()).isEqualTo(counts);
+    }
+
+    @Test
+    void aStoredQuestionOnlyGetsItsCountersAndNewAnswers() {
+        List<StackExchangeResponse.QuestionItem> items = new ArrayList<>();
+        new SyntheticCorpus(spec()).forEachRemaining(items::add);
+        StackExchangeResponse.QuestionItem item = items.get(0);
+        ingestion.ingest(List.of(item).iterator());
+
+        item.setScore(1234L);
+        StackExchangeResponse.Answer answer = new StackExchangeResponse.Answer();
+        answer.setAnswerId(42L);
+        answer.setScore(3);
+        answer.setIsAccepted(false);
+        answer.setCreatedDate(item.getCreationDate() + 3600);
+        answer.setBody("<p>Use <code>Optional</code></p>");
+        List<StackExchangeResponse.Answer> answers = new ArrayList<>(item.getAnswers());
+        answers.add(answer);
+        item.setAnswers(answers);
+        IngestionReport report = ingestion.ingest(List.of(item).iterator());
+
+        // The answer and its code block
+        assertThat(report.rowsInserted()).isEqualTo(2);
+        Map<Long, BulkUpsertRepository.StoredQuestion> stored = upserts.findStoredQuestions(List.of(item.getQuestionId(), 1L));
+        assertThat(stored).containsOnlyKeys(item.getQuestionId());
+        assertThat(stored.get(item.getQuestionId()).score()).isEqualTo(1234L);
+        assertThat(upserts.findStoredAnswerIds(List.of(42L, 43L))).containsExactly(42L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM questions", Long.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT c.code FROM code_blocks c JOIN answer a ON a.id = c.answer_id " +
+                "WHERE a.answer_id = 42", String.class)).containsExactly("Optional");
+    }
+
+    @Test
+    void concurrentRunsOfTheSameChunkStoreEverythingOnce() throws Exception {
+        ingestion.ingest(corpus());
+        List<Long> expected = counts();
+        PostgresTestDatabase.truncate(jdbcTemplate);
+
+        int runs = 3;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(runs);
+        try {
+            List<Future<IngestionReport>> reports = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                reports.add(executor.submit(() -> {
+                    start.await();
+                    return ingestion.ingest(corpus());
+                }));
+            }
+            start.countDown();
+
+            long rows = 0;
+            for (Future<IngestionReport> report : reports) {
+                assertThat(report.get().failedQuestions()).isZero();
+                rows += report.get().rowsInserted();
+            }
+            assertThat(counts()).isEqualTo(expected);
+            assertThat(rows).isEqualTo(expected.stream().mapToLong(Long::longValue).sum());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rowsBeyondOneStatementAreSplitAcrossStatements() {
+        // One bind parameter per tag, so this needs two statements
+        List<String> names = IntStream.range(0, BulkUpsertRepository.MAX_PARAMETERS + 100).mapToObj(i -> "tag-" + i).toList();
+
+        BulkUpsertRepository.Upserted<String> first = upserts.upsertTags(names);
+        BulkUpsertRepository.Upserted<String> second = upserts.upsertTags(names);
+
+        assertThat(first.inserted()).isEqualTo(names.size());
+        assertThat(first.ids()).hasSize(names.size());
+        assertThat(second.inserted()).isZero();
+        assertThat(second.ids()).isEqualTo(first.ids());
+    }
+
+    private static SyntheticCorpus.Spec spec() {
+        return new SyntheticCorpus.Spec(7, 200, 30, 40, 1.5, 1.0);
+    }
+
+    private static SyntheticCorpus corpus() {
+        return new SyntheticCorpus(spec());
+    }
+
+    // Rows of every table a chunk writes to
+    private List<Long> counts() {
+        return List.of("owners", "tags", "questions", "questions_tags", "code_blocks", "answer").stream()
+                .map(table -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class))
+                .toList();
+    }
+}
@@ -0,0 +1,68 @@
+package sustech.java2finalproject.feature.data;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import sustech.java2finalproject.feature.data.dto.IngestionReport;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkIngestionServiceTest {
+
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final BulkIngestionService service = new BulkIngestionService(mock(JdbcTemplate.class), transactionTemplate,
+            mock(BulkUpsertRepository.class), mock(HtmlPreprocessor.class), List.of());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    void failedChunksAreReportedAndHandedBack() {
+        // Chunks of 2, 2 and 1: the second one rolls back
+        when(transactionTemplate.execute(any()))
+                .thenReturn(10L)
+                .thenThrow(new IllegalStateException("deadlock"))
+                .thenReturn(4L);
+        List<StackExchangeResponse.QuestionItem> items = items(5);
+        List<StackExchangeResponse.QuestionItem> failed = new ArrayList<>();
+
+        IngestionReport report = service.ingest(items.iterator(), failed::addAll);
+
+        assertThat(report.questions()).isEqualTo(5);
+        assertThat(report.failedQuestions()).isEqualTo(2);
+        assertThat(report.rowsInserted()).isEqualTo(14);
+        assertThat(failed).containsExactly(items.get(2), items.get(3));
+    }
+
+    @Test
+    void aRunWithoutFailuresReportsNone() {
+        when(transactionTemplate.execute(any())).thenReturn(3L);
+
+        IngestionReport report = service.ingest(items(3).iterator());
+
+        assertThat(report.questions()).isEqualTo(3);
+        assertThat(report.failedQuestions()).isZero();
+        assertThat(report.rowsInserted()).isEqualTo(6);
+    }
+
+    private static List<StackExchangeResponse.QuestionItem> items(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            StackExchangeResponse.QuestionItem item = new StackExchangeResponse.QuestionItem();
+            item.setQuestionId(id);
+            item.setLastActivityDate(1_700_000_000L + id);
+            return item;
+        }).toList();
+    }
+}
@@ -0,0 +1,111 @@
+package sustech.java2finalproject.feature.data;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sustech.java2finalproject.feature.question.analysis.ExceptionScanner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ExceptionMentionIndexer#backfill()} must give questions stored before the indexer existed
+ * the same question_exceptions rows ingestion gives new ones. Pages of 7 questions, so it pages.
+ */
+@DataJpaTest(properties = "ingest.batch-size=7")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BulkIngestionService.class, BulkUpsertRepository.class, HtmlPreprocessor.class, IngestionMetrics.class,
+        ExceptionMentionIndexer.class, ExceptionScanner.class, ExceptionMentionIndexerPostgresTest.Config.class})
+@EnabledIf("sustech.java2finalproject.feature.data.PostgresTestDatabase#available")
+class ExceptionMentionIndexerPostgresTest {
+
+    private static final String MENTIONS =
+            "SELECT question_id, exception_id, mention_count FROM question_exceptions ORDER BY 1, 2";
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private BulkIngestionService ingestion;
+
+    @Autowired
+    private ExceptionMentionIndexer indexer;
+
+    @Autowired
+    private ExceptionScanner scanner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.truncate(jdbcTemplate);
+    }
+
+    @Test
+    void backfillFindsWhatIngestionWouldHave() {
+        ingestion.ingest(new SyntheticCorpus(new SyntheticCorpus.Spec(5, 60, 10, 20, 0, 1.0)));
+        List<Map<String, Object>> ingested = jdbcTemplate.queryForList(MENTIONS);
+        jdbcTemplate.update("DELETE FROM question_exceptions");
+
+        int scanned = indexer.backfill();
+
+        assertThat(ingested).isNotEmpty();
+        assertThat(scanned).isEqualTo(60);
+        assertThat(jdbcTemplate.queryForList(MENTIONS)).isEqualTo(ingested);
+    }
+
+    @Test
+    void questionsWithoutBodyTextAreParsedFromTheirHtml() {
+        // Rows as they were stored before body_text existed, only the HTML body is there
+        jdbcTemplate.update("INSERT INTO questions (id, question_stack_id, title, body) VALUES " +
+                "(1, 100, 'NullPointerException in a stream', '<p>A <code>NullPointerException</code> then &quot;NullPointerException&quot;</p>'), " +
+                "(2, 101, 'Markup', '<p>Null<b>Pointer</b>Exception</p>'), " +
+                "(3, 102, 'Casting', '<pre>java.lang.ClassCastException: A cannot be cast to B</pre>')");
+
+        indexer.backfillIfEmpty();
+
+        assertThat(jdbcTemplate.queryForList(MENTIONS)).containsExactly(
+                Map.of("question_id", 1, "exception_id", scanner.idOf("NullPointerException"), "mention_count", 3),
+                // Markup inside a name does not split it
+                Map.of("question_id", 2, "exception_id", scanner.idOf("NullPointerException"), "mention_count", 1),
+                Map.of("question_id", 3, "exception_id", scanner.idOf("ClassCastException"), "mention_count", 1));
+    }
+
+    @Test
+    void anIndexThatHasRowsIsLeftAloneAtStartup() {
+        jdbcTemplate.update("INSERT INTO questions (id, question_stack_id, title) VALUES (1, 100, 'IllegalStateException')");
+        jdbcTemplate.update("INSERT INTO question_exceptions (question_id, exception_id, mention_count) VALUES (1, 0, 9)");
+
+        indexer.backfillIfEmpty();
+
+        assertThat(jdbcTemplate.queryForList(MENTIONS))
+                .containsExactly(Map.of("question_id", 1, "exception_id", 0, "mention_count", 9));
+    }
+}
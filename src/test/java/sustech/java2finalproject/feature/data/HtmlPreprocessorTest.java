@@ -0,0 +1,71 @@
+package sustech.java2finalproject.feature.data;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlPreprocessorTest {
+
+    private static final String TRACE = "java.lang.NullPointerException\n    at Main.main";
+
+    private final HtmlPreprocessor preprocessor = new HtmlPreprocessor(new IngestionMetrics(new SimpleMeterRegistry()), 4);
+
+    @AfterEach
+    void tearDown() {
+        preprocessor.shutdown();
+    }
+
+    @Test
+    void blocksAndInlineSpansComeOutInDocumentOrder() {
+        PreprocessedHtml processed = preprocessor.process(
+                "<p>Calling <code>list.stream()</code> throws:</p><pre>" + TRACE + "</pre><p>Why does <code>map</code> fail?</p>");
+
+        assertThat(processed.codeBlocks()).containsExactly(
+                new PreprocessedHtml.Block("list.stream()", true),
+                new PreprocessedHtml.Block(TRACE, false),
+                new PreprocessedHtml.Block("map", true));
+        assertThat(processed.text()).startsWith("Calling list.stream() throws:").endsWith("Why does map fail?");
+        assertThat(processed.codeLength()).isEqualTo("list.stream()".length() + TRACE.length() + "map".length());
+    }
+
+    @Test
+    void codeInsidePreIsOneBlock() {
+        PreprocessedHtml processed = preprocessor.process("<pre><code>int a = 1;\n<b>int</b> b = 2;</code></pre>");
+
+        assertThat(processed.codeBlocks()).containsExactly(new PreprocessedHtml.Block("int a = 1;\nint b = 2;", false));
+    }
+
+    @Test
+    void entitiesAreDecoded() {
+        PreprocessedHtml processed = preprocessor.process("<p>if <code>a &lt; b &amp;&amp; c &gt; d</code> &quot;ok&quot;</p>");
+
+        assertThat(processed.codeBlocks()).containsExactly(new PreprocessedHtml.Block("a < b && c > d", true));
+        assertThat(processed.text()).isEqualTo("if a < b && c > d \"ok\"");
+    }
+
+    @Test
+    void aMissingBodyHasNoText() {
+        assertThat(preprocessor.process(null)).isSameAs(PreprocessedHtml.EMPTY);
+        assertThat(preprocessor.process("").codeBlocks()).isEmpty();
+    }
+
+    @Test
+    void processAllKeepsInputOrderAcrossThreads() {
+        // Many slices, so the pool finishes them out of order
+        List<String> htmls = IntStream.range(0, 500)
+                .mapToObj(i -> i % 7 == 0 ? null : "<p>question " + i + "</p><pre>" + "x".repeat(i % 50) + i + "</pre>")
+                .toList();
+
+        List<PreprocessedHtml> processed = preprocessor.processAll(htmls);
+
+        assertThat(processed).hasSize(htmls.size());
+        for (int i = 0; i < htmls.size(); i++) {
+            assertThat(processed.get(i)).as("body %d", i).isEqualTo(preprocessor.process(htmls.get(i)));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package sustech.java2finalproject.feature.data;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * The PostgreSQL database of the tests that run native SQL: upserts with {@code ON CONFLICT},
+ * {@code RETURNING}, {@code ANY(?)} lookups, {@code date_trunc} and schema.sql itself.
+ * <p>
+ * {@code TEST_POSTGRES_URL} (with {@code TEST_POSTGRES_USERNAME} and {@code TEST_POSTGRES_PASSWORD})
+ * points the tests at a running server, otherwise a container is started once for the whole run.
+ * Without either the tests are skipped. The tests empty every table they write to, so the database
+ * must be a scratch one.
+ * <pre>
+ * &#64;EnabledIf("sustech.java2finalproject.feature.data.PostgresTestDatabase#available")
+ * class SomePostgresTest {
+ *     &#64;DynamicPropertySource
+ *     static void postgres(DynamicPropertyRegistry registry) {
+ *         PostgresTestDatabase.register(registry);
+ *     }
+ * }
+ * </pre>
+ */
+final class PostgresTestDatabase {
+
+    private static final String URL = System.getenv("TEST_POSTGRES_URL");
+
+    private static PostgreSQLContainer<?> container;
+
+    private PostgresTestDatabase() {
+    }
+
+    static boolean available() {
+        return URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    static synchronized void register(DynamicPropertyRegistry registry) {
+        if (URL != null) {
+            registry.add("spring.datasource.url", () -> URL);
+            registry.add("spring.datasource.username", () -> env("TEST_POSTGRES_USERNAME", "postgres"));
+            registry.add("spring.datasource.password", () -> env("TEST_POSTGRES_PASSWORD", ""));
+            return;
+        }
+        if (container == null) {
+            // Stopped by the Testcontainers reaper when the test JVM exits
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        registry.add("spring.datasource.url", container::getJdbcUrl);
+        registry.add("spring.datasource.username", container::getUsername);
+        registry.add("spring.datasource.password", container::getPassword);
+    }
+
+    // Empties every table the application writes to, ids start over
+    static void truncate(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("TRUNCATE owners, tags, questions, questions_tags, answer, code_blocks, question_exceptions, " +
+                "stack_frames, stack_trace_causes, tag_stats, tag_trends, app_settings RESTART IDENTITY CASCADE");
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value != null ? value : fallback;
+    }
+}
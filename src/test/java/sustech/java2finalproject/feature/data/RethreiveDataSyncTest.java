@@ -0,0 +1,102 @@
+package sustech.java2finalproject.feature.data;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import sustech.java2finalproject.feature.data.dto.IngestionReport;
+import sustech.java2finalproject.feature.question.repository.AnswerRepository;
+import sustech.java2finalproject.feature.question.repository.OwnerRepository;
+import sustech.java2finalproject.feature.question.repository.QuestionRepository;
+import sustech.java2finalproject.feature.question.repository.TagRepository;
+import sustech.java2finalproject.feature.search.SearchIndex;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RethreiveDataSyncTest {
+
+    private static final String WATERMARK = "sync.last-activity-date";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final BulkIngestionService bulkIngestionService = mock(BulkIngestionService.class);
+    private final AppSettings appSettings = mock(AppSettings.class);
+    private final RethreiveData controller = new RethreiveData(mock(OwnerRepository.class), mock(QuestionRepository.class),
+            mock(TagRepository.class), mock(AnswerRepository.class), bulkIngestionService,
+            new StackExchangeFetcher(restTemplate, new IngestionMetrics(new SimpleMeterRegistry()),
+                    "https://api.example", "filter", 4, 1000, 0, 1),
+            mock(ExceptionMentionIndexer.class), mock(TagStatsMaintainer.class), mock(TagTrendMaintainer.class),
+            mock(AnswerQualityMaintainer.class), appSettings, mock(StackTraceIndexer.class),
+            mock(BodyTextMaintainer.class), mock(HtmlPreprocessor.class), mock(BulkUpsertRepository.class),
+            mock(SearchIndex.class), new IngestionMetrics(new SimpleMeterRegistry()), List.of(),
+            mock(ApplicationEventPublisher.class), mock(TransactionTemplate.class));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aFailedPageHoldsTheWatermarkAtTheLastPageBeforeIt() {
+        when(appSettings.get(WATERMARK)).thenReturn(Optional.of("1000"));
+        // Oldest activity first: page 1 is 1001-1003, page 2 fails, page 3 and later would be 1007-1009
+        when(restTemplate.getForObject(any(URI.class), eq(String.class))).thenAnswer(invocation -> {
+            String page = UriComponentsBuilder.fromUri(invocation.getArgument(0)).build().getQueryParams().getFirst("page");
+            return switch (page) {
+                case "1" -> page(1001, true);
+                case "2" -> throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+                default -> page(1007, false);
+            };
+        });
+        List<StackExchangeResponse.QuestionItem> ingested = new ArrayList<>();
+        when(bulkIngestionService.ingest(any(), any())).thenAnswer(invocation -> {
+            ((Iterator<StackExchangeResponse.QuestionItem>) invocation.getArgument(0)).forEachRemaining(ingested::add);
+            return IngestionReport.of("bulk", ingested.size(), 0, ingested.size(), 1);
+        });
+
+        IngestionReport report = controller.init(true, false);
+
+        assertThat(report.failedPages()).isEqualTo(1);
+        assertThat(ingested).extracting(StackExchangeResponse.QuestionItem::getLastActivityDate)
+                .containsExactly(1001L, 1002L, 1003L);
+        // Written once, at page 1's last activity
+        verify(appSettings).put(eq(WATERMARK), anyString());
+        verify(appSettings).put(WATERMARK, "1003");
+    }
+
+    @Test
+    void aFailedFirstPageLeavesTheWatermarkAlone() {
+        when(appSettings.get(WATERMARK)).thenReturn(Optional.of("1000"));
+        when(restTemplate.getForObject(any(URI.class), eq(String.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+        when(bulkIngestionService.ingest(any(), any())).thenReturn(IngestionReport.of("bulk", 0, 0, 0, 1));
+
+        IngestionReport report = controller.init(true, false);
+
+        assertThat(report.failedPages()).isEqualTo(1);
+        verify(appSettings, never()).put(eq(WATERMARK), anyString());
+    }
+
+    private static String page(long firstActivity, boolean hasMore) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) items.append(',');
+            items.append("{\"question_id\":").append(firstActivity + i)
+                    .append(",\"last_activity_date\":").append(firstActivity + i).append('}');
+        }
+        return "{\"items\":[" + items + "],\"has_more\":" + hasMore + ",\"quota_remaining\":1000}";
+    }
+}
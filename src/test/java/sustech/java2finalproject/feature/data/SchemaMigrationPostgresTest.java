@@ -0,0 +1,134 @@
+package sustech.java2finalproject.feature.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * schema.sql runs on every startup. On a database written before the unique indexes existed it
+ * folds duplicate owners, tags, questions and answers into their oldest row, after that it must
+ * find nothing to do.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("sustech.java2finalproject.feature.data.PostgresTestDatabase#available")
+class SchemaMigrationPostgresTest {
+
+    private static final List<String> UNIQUE_INDEXES =
+            List.of("uq_owners_account_id", "uq_tags_name", "uq_questions_question_stack_id", "uq_answer_answer_id");
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.truncate(jdbcTemplate);
+    }
+
+    // Puts the unique indexes back should a test have stopped half way
+    @AfterEach
+    void tearDown() {
+        PostgresTestDatabase.truncate(jdbcTemplate);
+        runSchema();
+    }
+
+    @Test
+    void duplicatesAreFoldedIntoTheOldestRow() {
+        for (String index : UNIQUE_INDEXES) {
+            jdbcTemplate.execute("DROP INDEX " + index);
+        }
+        // Owner 2, tag 2, question 2 and answer row 2 are copies of the rows with id 1
+        jdbcTemplate.update("INSERT INTO owners (id, account_id) VALUES (1, 10), (2, 10), (3, 30)");
+        jdbcTemplate.update("INSERT INTO tags (id, name) VALUES (1, 'java'), (2, 'java'), (3, 'spring')");
+        jdbcTemplate.update("INSERT INTO questions (id, question_stack_id, owner_id, title) " +
+                "VALUES (1, 100, 1, 'first'), (2, 100, 2, 'copy'), (3, 101, 2, 'other')");
+        jdbcTemplate.update("INSERT INTO questions_tags (question_id, tag_id) VALUES (1, 1), (1, 2), (2, 2), (3, 2), (3, 3)");
+        jdbcTemplate.update("INSERT INTO answer (id, answer_id, question_id) VALUES (1, 500, 1), (2, 500, 2), (3, 501, 2)");
+        jdbcTemplate.update("INSERT INTO code_blocks (question_id, answer_id, position, code) " +
+                "VALUES (1, NULL, 0, 'a'), (2, NULL, 0, 'a'), (NULL, 1, 0, 'b'), (NULL, 2, 0, 'b'), (NULL, 3, 0, 'c')");
+        jdbcTemplate.update("INSERT INTO question_exceptions (question_id, exception_id, mention_count) VALUES (1, 1, 1), (2, 1, 1)");
+        jdbcTemplate.update("INSERT INTO stack_trace_causes (question_id, trace, position) VALUES (1, 0, 0), (2, 0, 0)");
+        jdbcTemplate.update("INSERT INTO stack_frames (question_id, trace, cause, position) VALUES (1, 0, 0, 0), (2, 0, 0, 0)");
+        jdbcTemplate.update("INSERT INTO tag_stats (tag_id, question_count) VALUES (1, 2), (2, 2), (3, 1)");
+
+        runSchema();
+
+        assertThat(ids("SELECT id FROM owners")).containsExactly(1, 3);
+        assertThat(jdbcTemplate.queryForList("SELECT id, owner_id FROM questions ORDER BY id"))
+                .containsExactly(Map.of("id", 1, "owner_id", 1), Map.of("id", 3, "owner_id", 1));
+        assertThat(ids("SELECT id FROM tags")).containsExactly(1, 3);
+        assertThat(jdbcTemplate.queryForList("SELECT question_id, tag_id FROM questions_tags ORDER BY 1, 2"))
+                .containsExactly(Map.of("question_id", 1, "tag_id", 1), Map.of("question_id", 3, "tag_id", 1),
+                        Map.of("question_id", 3, "tag_id", 3));
+        assertThat(jdbcTemplate.queryForList("SELECT id, answer_id, question_id FROM answer ORDER BY id"))
+                .containsExactly(Map.of("id", 1, "answer_id", 500L, "question_id", 1),
+                        Map.of("id", 3, "answer_id", 501L, "question_id", 1));
+        assertThat(ids("SELECT answer_id FROM code_blocks WHERE answer_id IS NOT NULL")).containsExactly(1, 3);
+        for (String table : List.of("code_blocks", "question_exceptions", "stack_trace_causes", "stack_frames")) {
+            assertThat(ids("SELECT question_id FROM " + table + " WHERE question_id IS NOT NULL")).as(table).containsExactly(1);
+        }
+        // Rebuilt from the cleaned tables by TagStatsMaintainer at startup
+        assertThat(ids("SELECT tag_id FROM tag_stats")).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE indexname LIKE 'uq\\_%'", String.class))
+                .containsExactlyInAnyOrderElementsOf(UNIQUE_INDEXES);
+    }
+
+    @Test
+    void aSecondStartupChangesNothing() {
+        jdbcTemplate.update("INSERT INTO owners (id, account_id) VALUES (1, 10), (2, NULL), (3, NULL)");
+        jdbcTemplate.update("INSERT INTO tags (id, name) VALUES (1, 'java')");
+        jdbcTemplate.update("INSERT INTO questions (id, question_stack_id, owner_id) VALUES (1, 100, 1), (2, 101, 2), (3, 102, 3)");
+        jdbcTemplate.update("INSERT INTO questions_tags (question_id, tag_id) VALUES (1, 1), (2, 1)");
+        jdbcTemplate.update("INSERT INTO answer (id, answer_id, question_id) VALUES (1, 500, 1)");
+        jdbcTemplate.update("INSERT INTO tag_stats (tag_id, question_count) VALUES (1, 2)");
+        List<Map<String, Object>> before = snapshot();
+
+        runSchema();
+        runSchema();
+
+        assertThat(snapshot()).isEqualTo(before);
+    }
+
+    private void runSchema() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    }
+
+    private List<Integer> ids(String sql) {
+        return jdbcTemplate.queryForList(sql + " ORDER BY 1", Integer.class);
+    }
+
+    private List<Map<String, Object>> snapshot() {
+        return jdbcTemplate.queryForList(
+                "SELECT (SELECT array_agg(id || ':' || coalesce(account_id, 0) ORDER BY id) FROM owners)::text AS owners, " +
+                        "(SELECT array_agg(id || ':' || coalesce(owner_id, 0) ORDER BY id) FROM questions)::text AS questions, " +
+                        "(SELECT array_agg(question_id || ':' || tag_id ORDER BY question_id, tag_id) FROM questions_tags)::text AS links, " +
+                        "(SELECT array_agg(id || ':' || question_id ORDER BY id) FROM answer)::text AS answers, " +
+                        "(SELECT array_agg(tag_id ORDER BY tag_id) FROM tag_stats)::text AS tag_stats");
+    }
+}
@@ -0,0 +1,82 @@
+package sustech.java2finalproject.feature.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StackExchangeDumpReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsPlainAndGzippedPagesInFileNameOrder() throws IOException {
+        Files.writeString(directory.resolve("questions-000001.json"),
+                "{\"quota_remaining\": 5, \"items\": [" + item(1) + "," + item(2) + "], \"has_more\": true}");
+        writeGzip(directory.resolve("questions-000002.json.gz"), "{\"items\": [" + item(3) + "]}");
+
+        assertThat(readAll()).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void acceptsBareArraysAndSkipsFilesWithoutItems() throws IOException {
+        Files.writeString(directory.resolve("a.json"), "[" + item(1) + "]");
+        Files.writeString(directory.resolve("b.json"), "{\"error_id\": 502}");
+        Files.writeString(directory.resolve("c.json"), "{\"items\": []}");
+        Files.writeString(directory.resolve("d.json"), "{\"has_more\": false, \"items\": [" + item(4) + "]}");
+        Files.writeString(directory.resolve("notes.txt"), "[" + item(9) + "]");
+
+        assertThat(readAll()).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void bindsTheItemFields() throws IOException {
+        Files.writeString(directory.resolve("page.json"), "{\"items\": [{\"question_id\": 7, \"title\": \"t\", " +
+                "\"tags\": [\"java\", \"jpa\"], \"last_activity_date\": 1700000000, \"answers\": [{\"answer_id\": 70}]}]}");
+
+        try (StackExchangeDumpReader reader = new StackExchangeDumpReader(directory, objectMapper)) {
+            StackExchangeResponse.QuestionItem item = reader.next();
+            assertThat(item.getQuestionId()).isEqualTo(7L);
+            assertThat(item.getTitle()).isEqualTo("t");
+            assertThat(item.getTags()).containsExactly("java", "jpa");
+            assertThat(item.getLastActivityDate()).isEqualTo(1700000000L);
+            assertThat(item.getAnswers()).singleElement().extracting(StackExchangeResponse.Answer::getAnswerId).isEqualTo(70L);
+            assertThat(reader.hasNext()).isFalse();
+            assertThatThrownBy(reader::next).isInstanceOf(NoSuchElementException.class);
+        }
+    }
+
+    private List<Long> readAll() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (StackExchangeDumpReader reader = new StackExchangeDumpReader(directory, objectMapper)) {
+            reader.forEachRemaining(item -> ids.add(item.getQuestionId()));
+        }
+        return ids;
+    }
+
+    private static String item(long questionId) {
+        return "{\"question_id\": " + questionId + ", \"title\": \"q" + questionId + "\", \"tags\": [\"java\"]}";
+    }
+
+    private static void writeGzip(Path file, String json) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package sustech.java2finalproject.feature.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SyntheticCorpusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void theSameSpecProducesTheSameItems() throws IOException {
+        SyntheticCorpus.Spec spec = new SyntheticCorpus.Spec(7, 300, 50, 40, 1.5, 1.0);
+
+        assertThat(json(new SyntheticCorpus(spec))).isEqualTo(json(new SyntheticCorpus(spec)));
+        assertThat(json(new SyntheticCorpus(new SyntheticCorpus.Spec(8, 300, 50, 40, 1.5, 1.0))))
+                .isNotEqualTo(json(new SyntheticCorpus(spec)));
+    }
+
+    @ParameterizedTest(name = "{0} tags")
+    @ValueSource(ints = {1, 2, 3})
+    void fewerTagsThanExtraSlotsStillFinishes(int tags) {
+        SyntheticCorpus corpus = new SyntheticCorpus(new SyntheticCorpus.Spec(1, 500, tags, 10, 0, 1.0));
+
+        List<StackExchangeResponse.QuestionItem> items = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> drain(corpus));
+
+        assertThat(items).hasSize(500).allSatisfy(item -> {
+            assertThat(item.getTags()).first().isEqualTo("java");
+            assertThat(item.getTags()).doesNotHaveDuplicates().hasSizeLessThanOrEqualTo(tags + 1);
+        });
+        // Every tag gets used
+        assertThat(items.stream().flatMap(item -> item.getTags().stream()).distinct()).hasSize(tags + 1);
+    }
+
+    @Test
+    void questionAndAnswerIdsAreUniqueAndAcceptedAnswersExist() {
+        List<StackExchangeResponse.QuestionItem> items = drain(
+                new SyntheticCorpus(new SyntheticCorpus.Spec(3, 1000, 200, 100, 2, 1.0)));
+
+        assertThat(items).extracting(StackExchangeResponse.QuestionItem::getQuestionId).doesNotHaveDuplicates();
+        assertThat(items.stream().flatMap(item -> item.getAnswers().stream()).map(StackExchangeResponse.Answer::getAnswerId))
+                .doesNotHaveDuplicates();
+        for (StackExchangeResponse.QuestionItem item : items) {
+            assertThat(item.getAnswerCount()).isEqualTo(item.getAnswers().size());
+            if (item.getAcceptedAnswerId() != null) {
+                assertThat(item.getAnswers()).filteredOn(StackExchangeResponse.Answer::getIsAccepted)
+                        .singleElement().extracting(StackExchangeResponse.Answer::getAnswerId)
+                        .isEqualTo(item.getAcceptedAnswerId());
+            }
+        }
+    }
+
+    @Test
+    void writesPagesTheDumpReaderReadsBack() throws IOException {
+        SyntheticCorpus.Spec spec = new SyntheticCorpus.Spec(11, 250, 30, 20, 1, 1.0);
+        Files.writeString(directory.resolve("notes.txt"), "not a page");
+
+        List<Path> files = new SyntheticCorpus(spec).writePages(directory, 100, objectMapper);
+
+        assertThat(files).extracting(file -> file.getFileName().toString())
+                .containsExactly("questions-000001.json.gz", "questions-000002.json.gz", "questions-000003.json.gz");
+        List<Long> read = new ArrayList<>();
+        try (StackExchangeDumpReader reader = new StackExchangeDumpReader(directory, objectMapper)) {
+            reader.forEachRemaining(item -> read.add(item.getQuestionId()));
+        }
+        assertThat(read).isEqualTo(drain(new SyntheticCorpus(spec)).stream()
+                .map(StackExchangeResponse.QuestionItem::getQuestionId).toList());
+    }
+
+    @Test
+    void rejectsPagesWithoutRoom() {
+        SyntheticCorpus corpus = new SyntheticCorpus(new SyntheticCorpus.Spec(1, 10, 5, 5, 1, 1.0));
+
+        assertThatThrownBy(() -> corpus.writePages(directory, 0, objectMapper))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    @Test
+    void rejectsInvalidSpecs() {
+        assertThatThrownBy(() -> new SyntheticCorpus.Spec(1, 10, 0, 5, 1, 1.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SyntheticCorpus.Spec(1, 10, 5, 0, 1, 1.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SyntheticCorpus.Spec(1, 10, 5, 5, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String json(SyntheticCorpus corpus) throws IOException {
+        return objectMapper.writeValueAsString(drain(corpus));
+    }
+
+    private static List<StackExchangeResponse.QuestionItem> drain(SyntheticCorpus corpus) {
+        List<StackExchangeResponse.QuestionItem> items = new ArrayList<>();
+        corpus.forEachRemaining(items::add);
+        return items;
+    }
+}
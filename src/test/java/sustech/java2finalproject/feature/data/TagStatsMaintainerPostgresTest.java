@@ -0,0 +1,128 @@
+package sustech.java2finalproject.feature.data;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sustech.java2finalproject.feature.data.dto.TagStatsReport;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tag_stats as ingestion keeps it must equal the question/tag join it is a rollup of, and
+ * {@link TagStatsMaintainer#rebuild()} must find and repair rows that do not.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BulkIngestionService.class, BulkUpsertRepository.class, HtmlPreprocessor.class, IngestionMetrics.class,
+        TagStatsMaintainer.class, TagStatsMaintainerPostgresTest.Config.class})
+@EnabledIf("sustech.java2finalproject.feature.data.PostgresTestDatabase#available")
+class TagStatsMaintainerPostgresTest {
+
+    private static final String STATS =
+            "SELECT tag_id, question_count, score_sum, view_sum, answer_count_sum FROM tag_stats ORDER BY tag_id";
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private BulkIngestionService ingestion;
+
+    @Autowired
+    private TagStatsMaintainer maintainer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.truncate(jdbcTemplate);
+    }
+
+    @Test
+    void savedQuestionsAddUpToTheJoin() {
+        List<StackExchangeResponse.QuestionItem> items = corpus();
+        // Two ingests, so the second one adds to rows the first one created
+        ingestion.ingest(items.subList(0, 150).iterator());
+        ingestion.ingest(items.subList(150, items.size()).iterator());
+        List<Map<String, Object>> incremental = jdbcTemplate.queryForList(STATS);
+
+        TagStatsReport report = maintainer.rebuild();
+
+        assertThat(incremental).isNotEmpty();
+        assertThat(report.mismatchedTags()).isZero();
+        assertThat(report.tags()).isEqualTo(incremental.size());
+        assertThat(jdbcTemplate.queryForList(STATS)).isEqualTo(incremental);
+    }
+
+    @Test
+    void refreshedCountersMoveTheSums() {
+        List<StackExchangeResponse.QuestionItem> items = corpus();
+        ingestion.ingest(items.iterator());
+        List<Map<String, Object>> before = jdbcTemplate.queryForList(STATS);
+        for (int i = 0; i < items.size(); i += 3) {
+            StackExchangeResponse.QuestionItem item = items.get(i);
+            item.setScore(item.getScore() + 10);
+            item.setViewCount(i % 2 == 0 ? null : item.getViewCount() * 2);
+            item.setAnswerCount(item.getAnswerCount() + 1);
+        }
+        ingestion.ingest(items.iterator());
+        List<Map<String, Object>> incremental = jdbcTemplate.queryForList(STATS);
+
+        TagStatsReport report = maintainer.rebuild();
+
+        assertThat(incremental).isNotEqualTo(before);
+        assertThat(report.mismatchedTags()).isZero();
+        assertThat(jdbcTemplate.queryForList(STATS)).isEqualTo(incremental);
+    }
+
+    @Test
+    void rebuildReportsAndRepairsDrift() {
+        ingestion.ingest(corpus().iterator());
+        List<Map<String, Object>> correct = jdbcTemplate.queryForList(STATS);
+        Integer java = jdbcTemplate.queryForObject("SELECT id FROM tags WHERE name = 'java'", Integer.class);
+        jdbcTemplate.update("UPDATE tag_stats SET score_sum = score_sum + 5 WHERE tag_id = ?", java);
+        jdbcTemplate.update("DELETE FROM tag_stats WHERE tag_id = (SELECT MAX(tag_id) FROM tag_stats)");
+
+        TagStatsReport report = maintainer.rebuild();
+
+        assertThat(report.mismatchedTags()).isEqualTo(2);
+        assertThat(report.sampleMismatches()).hasSize(2).anySatisfy(mismatch -> assertThat(mismatch).startsWith("java: "));
+        assertThat(jdbcTemplate.queryForList(STATS)).isEqualTo(correct);
+        assertThat(maintainer.rebuild().mismatchedTags()).isZero();
+    }
+
+    private static List<StackExchangeResponse.QuestionItem> corpus() {
+        List<StackExchangeResponse.QuestionItem> items = new ArrayList<>();
+        new SyntheticCorpus(new SyntheticCorpus.Spec(11, 300, 25, 50, 1.0, 1.0)).forEachRemaining(items::add);
+        return items;
+    }
+}
@@ -0,0 +1,148 @@
+package sustech.java2finalproject.feature.data;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sustech.java2finalproject.domain.TrendGranularity;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tag_trends as ingestion keeps it, bucketed in Java by {@link TrendGranularity}, must equal the
+ * rebuild that buckets with date_trunc, in particular for questions either side of a week, month
+ * and year boundary.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BulkIngestionService.class, BulkUpsertRepository.class, HtmlPreprocessor.class, IngestionMetrics.class,
+        TagTrendMaintainer.class, TagTrendMaintainerPostgresTest.Config.class})
+@EnabledIf("sustech.java2finalproject.feature.data.PostgresTestDatabase#available")
+class TagTrendMaintainerPostgresTest {
+
+    private static final String TRENDS = "SELECT t.name, r.granularity, r.bucket_start, r.question_count, r.score_sum, " +
+            "r.view_sum, r.answer_count_sum, r.reputation_sum FROM tag_trends r JOIN tags t ON t.id = r.tag_id " +
+            "ORDER BY 1, 2, 3";
+
+    // Either side of midnight UTC on boundaries: Sunday/Monday, Feb 29/Mar 1 (a Thursday/Friday), Dec 31/Jan 1
+    private static final List<LocalDateTime> CREATED = List.of(
+            LocalDateTime.of(2024, 3, 3, 23, 59, 59), LocalDateTime.of(2024, 3, 4, 0, 0, 0),
+            LocalDateTime.of(2024, 2, 29, 23, 59, 59), LocalDateTime.of(2024, 3, 1, 0, 0, 0),
+            LocalDateTime.of(2023, 12, 31, 23, 0, 0), LocalDateTime.of(2024, 1, 1, 0, 30, 0),
+            LocalDateTime.of(2024, 2, 26, 12, 0, 0), LocalDateTime.of(2024, 3, 10, 23, 59, 59));
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private BulkIngestionService ingestion;
+
+    @Autowired
+    private TagTrendMaintainer maintainer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.truncate(jdbcTemplate);
+    }
+
+    @Test
+    void bucketStartsMatchDateTrunc() {
+        LocalDate first = LocalDate.of(2023, 12, 1);
+        for (TrendGranularity granularity : TrendGranularity.values()) {
+            List<LocalDate> truncated = jdbcTemplate.queryForList(
+                    "SELECT CAST(date_trunc(?, d) AS date) FROM generate_series(CAST(? AS timestamp), " +
+                            "CAST(? AS timestamp) + interval '400 days', interval '1 day') AS d ORDER BY d",
+                    LocalDate.class, granularity.sqlUnit(), first, first);
+
+            for (int day = 0; day < truncated.size(); day++) {
+                assertThat(granularity.bucketStart(first.plusDays(day))).as("%s of %s", granularity, first.plusDays(day))
+                        .isEqualTo(truncated.get(day));
+            }
+        }
+    }
+
+    @Test
+    void incrementalBucketsEqualARebuildAcrossBoundaries() {
+        List<StackExchangeResponse.QuestionItem> items = items();
+        // One chunk per ingest, so later questions add to buckets earlier ones created
+        ingestion.ingest(items.subList(0, 3).iterator());
+        ingestion.ingest(items.subList(3, items.size()).iterator());
+        // Refreshed counters move the sums of the buckets they were counted in
+        items.get(0).setScore(50L);
+        items.get(3).setViewCount(null);
+        items.get(5).setAnswerCount(4L);
+        ingestion.ingest(items.iterator());
+        List<Map<String, Object>> incremental = jdbcTemplate.queryForList(TRENDS);
+
+        maintainer.rebuild();
+
+        assertThat(jdbcTemplate.queryForList(TRENDS)).isEqualTo(incremental);
+        // Sunday and Monday fall in different weeks, Feb 29 and Mar 1 in the same week but different months
+        assertThat(buckets("WEEK")).containsExactly(
+                LocalDate.of(2023, 12, 25), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 26),
+                LocalDate.of(2024, 3, 4));
+        assertThat(buckets("MONTH")).containsExactly(
+                LocalDate.of(2023, 12, 1), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1));
+        assertThat(jdbcTemplate.queryForObject("SELECT question_count FROM tag_trends r JOIN tags t ON t.id = r.tag_id " +
+                "WHERE t.name = 'java' AND granularity = 'WEEK' AND bucket_start = '2024-02-26'", Long.class)).isEqualTo(4);
+    }
+
+    private List<LocalDate> buckets(String granularity) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT bucket_start FROM tag_trends WHERE granularity = ? ORDER BY 1",
+                LocalDate.class, granularity);
+    }
+
+    private static List<StackExchangeResponse.QuestionItem> items() {
+        List<StackExchangeResponse.QuestionItem> items = new ArrayList<>();
+        for (int i = 0; i < CREATED.size(); i++) {
+            StackExchangeResponse.QuestionItem item = new StackExchangeResponse.QuestionItem();
+            item.setQuestionId(100L + i);
+            item.setCreationDate(CREATED.get(i).toEpochSecond(ZoneOffset.UTC));
+            item.setTitle("question " + i);
+            item.setScore((long) i);
+            item.setViewCount(10L * i);
+            item.setAnswerCount((long) (i % 3));
+            item.setTags(i % 2 == 0 ? List.of("java", "spring") : List.of("java"));
+            StackExchangeResponse.Owner owner = new StackExchangeResponse.Owner();
+            owner.setAccountId((long) (i % 3));
+            owner.setReputation(1000L * (i + 1));
+            item.setOwner(owner);
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,96 @@
+package sustech.java2finalproject.feature.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Timing based, the lower bounds are what the bucket guarantees and the upper bounds only leave room for a slow machine
+class TokenBucketTest {
+
+    @Test
+    void aFullBucketHandsOutItsCapacityWithoutWaiting() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(3, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            bucket.acquire();
+        }
+
+        assertThat(millisSince(start)).isLessThan(500);
+    }
+
+    @Test
+    void anEmptyBucketWaitsForTheRefill() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        bucket.acquire();
+
+        long start = System.nanoTime();
+        bucket.acquire();
+        bucket.acquire();
+
+        // Two more tokens at 10 per second
+        assertThat(millisSince(start)).isBetween(180L, 2_000L);
+    }
+
+    @Test
+    void refillStopsAtCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, 100);
+        bucket.acquire();
+        bucket.acquire();
+        // Long enough for 20 tokens, of which only 2 fit
+        Thread.sleep(200);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            bucket.acquire();
+        }
+
+        assertThat(millisSince(start)).isBetween(15L, 2_000L);
+    }
+
+    @Test
+    void pauseHoldsBackEveryAcquireUntilItEnds() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(5, 100);
+        bucket.pause(Duration.ofMillis(300));
+        // A shorter pause does not cut the longer one short
+        bucket.pause(Duration.ofMillis(10));
+
+        long start = System.nanoTime();
+        bucket.acquire();
+
+        assertThat(millisSince(start)).isBetween(280L, 3_000L);
+    }
+
+    @Test
+    void aBlockedAcquireCanBeInterrupted() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        bucket.pause(Duration.ofMinutes(1));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            started.countDown();
+            try {
+                bucket.acquire();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        started.await();
+        Thread.sleep(50);
+        assertThat(waiter.isAlive()).isTrue();
+
+        waiter.interrupt();
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(interrupted).isTrue();
+    }
+
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
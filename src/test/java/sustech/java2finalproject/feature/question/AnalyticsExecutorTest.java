@@ -0,0 +1,132 @@
+package sustech.java2finalproject.feature.question;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sustech.java2finalproject.config.MetricsConfig.StatementCounter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnalyticsExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StatementCounter statements = new StatementCounter(registry);
+    private final AnalyticsExecutor executor =
+            new AnalyticsExecutor(new MockEnvironment(), registry, 2, Duration.ofSeconds(5));
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void statementsSentByOffloadedWorkAreRecordedPerEndpoint() {
+        assertThat(executor.submit("engagement", () -> {
+            statements.inspect("select 1");
+            statements.inspect("select 2");
+            return "done";
+        }).join()).isEqualTo("done");
+        executor.submit("answer-quality", () -> {
+            statements.inspect("select 1");
+            return null;
+        }).join();
+
+        assertThat(registry.get("analytics.statements").tag("endpoint", "engagement").summary().totalAmount()).isEqualTo(2);
+        assertThat(registry.get("analytics.statements").tag("endpoint", "answer-quality").summary().totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void statementsOfTheRequestThreadAreNotCarriedIntoTheWork() {
+        statements.inspect("select 1");
+        executor.submit("engagement", () -> null).join();
+
+        assertThat(registry.get("analytics.statements").tag("endpoint", "engagement").summary().totalAmount()).isZero();
+        assertThat(StatementCounter.reset()).isEqualTo(1);
+    }
+
+    @Test
+    void streamWritesTheBodyUnderTheLimitAndKeepsTheHeaders() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = executor.stream("engagement",
+                ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+                    statements.inspect("select 1");
+                    out.write("[]".getBytes());
+                }));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertThat(out.toString()).isEqualTo("[]");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(registry.get("analytics.statements").tag("endpoint", "engagement").summary().totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void streamFailsWith503WhenNoPermitFreesUpInTime() throws Exception {
+        AnalyticsExecutor busy = new AnalyticsExecutor(new MockEnvironment(), registry, 1, Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Holds the only permit without writing, so its own deadline never fires
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                busy.stream("engagement", ResponseEntity.ok().body(out -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })).getBody().writeTo(new ByteArrayOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            started.await();
+            StreamingResponseBody body = busy.stream("engagement", ResponseEntity.ok().body(out -> out.write(1))).getBody();
+
+            assertThatThrownBy(() -> body.writeTo(new ByteArrayOutputStream()))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        } finally {
+            release.countDown();
+            holder.join();
+            busy.shutdown();
+        }
+    }
+
+    @Test
+    void streamIsCutOffPastTheDeadlineAndReleasesItsPermit() throws Exception {
+        AnalyticsExecutor slow = new AnalyticsExecutor(new MockEnvironment(), registry, 1, Duration.ofMillis(50));
+        try {
+            StreamingResponseBody body = slow.stream("engagement", ResponseEntity.ok().body(out -> {
+                out.write(1);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                out.write(2);
+            })).getBody();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            assertThatThrownBy(() -> body.writeTo(out)).isInstanceOf(IOException.class);
+            assertThat(out.toByteArray()).containsExactly(1);
+            assertThat(slow.submit("engagement", () -> "next").join()).isEqualTo("next");
+        } finally {
+            slow.shutdown();
+        }
+    }
+}
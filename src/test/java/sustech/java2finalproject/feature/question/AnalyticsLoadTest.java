@@ -0,0 +1,150 @@
+package sustech.java2finalproject.feature.question;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import sustech.java2finalproject.feature.question.dto.TopEngagementResponse;
+import sustech.java2finalproject.feature.question.dto.TopNResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * The cheap endpoints keep their latency while the heavy analytics are saturated.
+ * <p>
+ * Runs the real web layer on virtual threads against a stubbed service: every engagement call holds
+ * its thread for {@link #HEAVY_MILLIS}, like a slow query would, and many clients keep asking for it.
+ * A top-tags request that had to wait behind one of them would take at least that long.
+ */
+@SpringBootTest(classes = AnalyticsLoadTest.App.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"analytics.max-concurrent=4", "analytics.timeout=PT30S"})
+class AnalyticsLoadTest {
+
+    private static final long HEAVY_MILLIS = 500;
+    private static final int HEAVY_CLIENTS = 32;
+    private static final int CHEAP_CLIENTS = 4;
+    private static final int CHEAP_REQUESTS = 100;
+
+    // Not a @SpringBootConfiguration, the repository slice tests in this package would pick it up
+    @Configuration
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+    @Import({QuestionController.class, AnalyticsExecutor.class})
+    static class App {
+    }
+
+    @MockitoBean
+    private QuestionService questionService;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void cheapEndpointP99StaysFlatWhileHeavyEndpointsRun() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger heavyDone = new AtomicInteger();
+        when(questionService.getTopNQuestionsByTag(anyInt())).thenReturn(List.of(new TopNResponse("java", 1L)));
+        when(questionService.getTopEngagementTag(anyInt())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(HEAVY_MILLIS);
+            } finally {
+                running.decrementAndGet();
+            }
+            heavyDone.incrementAndGet();
+            return List.of(new TopEngagementResponse("java", 0.5));
+        });
+
+        // Warm up the JIT and the connections, then measure on an idle server
+        for (int i = 0; i < 2; i++) {
+            latencies("/top-tags/10", CHEAP_CLIENTS, CHEAP_REQUESTS);
+        }
+        long idleP99 = p99(latencies("/top-tags/10", CHEAP_CLIENTS, CHEAP_REQUESTS));
+
+        AtomicBoolean stop = new AtomicBoolean();
+        long loadedP99;
+        try (ExecutorService heavyClients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> loops = new ArrayList<>();
+            for (int i = 0; i < HEAVY_CLIENTS; i++) {
+                loops.add(heavyClients.submit(() -> {
+                    while (!stop.get()) {
+                        assertThat(get("/top-engagement-tags/10").statusCode()).isEqualTo(200);
+                    }
+                    return null;
+                }));
+            }
+            // Every permit taken and a queue behind them before measuring
+            while (heavyDone.get() < 8) {
+                Thread.sleep(10);
+            }
+            loadedP99 = p99(latencies("/top-tags/10", CHEAP_CLIENTS, CHEAP_REQUESTS));
+            assertThat(running.get()).as("heavy calls still running while measuring").isPositive();
+            stop.set(true);
+            for (Future<?> loop : loops) {
+                loop.get();
+            }
+        }
+
+        assertThat(maxRunning.get()).as("heavy calls at once").isEqualTo(4);
+        // Generous against a busy CI machine, a request queued behind a heavy call would take HEAVY_MILLIS on its own
+        assertThat(loadedP99).as("p99 under load (idle p99 was %d ms)", idleP99 / 1_000_000)
+                .isLessThan(Math.max(3 * idleP99, idleP99 + HEAVY_MILLIS * 1_000_000 / 4))
+                .isLessThan(HEAVY_MILLIS * 1_000_000 / 2);
+    }
+
+    // Nanoseconds per request, clients running at once and each sending its requests one after another
+    private long[] latencies(String path, int clients, int requests) throws Exception {
+        long[] latencies = new long[clients * requests];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int offset = c * requests;
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < requests; r++) {
+                        long start = System.nanoTime();
+                        assertThat(get(path).statusCode()).isEqualTo(200);
+                        latencies[offset + r] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return latencies;
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/questions" + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long p99(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+}
@@ -0,0 +1,211 @@
+package sustech.java2finalproject.feature.question;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import sustech.java2finalproject.config.MetricsConfig;
+import sustech.java2finalproject.domain.Answer;
+import sustech.java2finalproject.domain.ExceptionMention;
+import sustech.java2finalproject.domain.Owner;
+import sustech.java2finalproject.domain.Question;
+import sustech.java2finalproject.domain.StackFrame;
+import sustech.java2finalproject.domain.StackTraceCause;
+import sustech.java2finalproject.domain.Tag;
+import sustech.java2finalproject.domain.TagStats;
+import sustech.java2finalproject.domain.TagTrend;
+import sustech.java2finalproject.domain.TrendGranularity;
+import sustech.java2finalproject.feature.data.DatasetVersion;
+import sustech.java2finalproject.feature.question.analysis.AnalyticsSnapshotHolder;
+import sustech.java2finalproject.feature.question.analysis.EngagementEngine;
+import sustech.java2finalproject.feature.question.analysis.ExceptionScanner;
+import sustech.java2finalproject.feature.question.analysis.TagCooccurrenceIndex;
+import sustech.java2finalproject.feature.search.SearchIndex;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every analytics call sends a fixed number of statements, however many owners, questions and
+ * tags there are. Counted by the statement inspector from {@link MetricsConfig}, with caching off.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@Import({QuestionServiceImpl.class, AnalyticsSnapshotHolder.class, EngagementEngine.class, ExceptionScanner.class,
+        DatasetVersion.class, MetricsConfig.class, QuestionServiceStatementCountTest.Config.class})
+class QuestionServiceStatementCountTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+
+    @MockitoBean
+    private SearchIndex searchIndex;
+    @MockitoBean
+    private TagCooccurrenceIndex tagCooccurrenceIndex;
+
+    @Autowired
+    private QuestionServiceImpl questionService;
+    @Autowired
+    private AnalyticsSnapshotHolder snapshotHolder;
+    @Autowired
+    private ExceptionScanner exceptionScanner;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private MeterRegistry registry;
+
+    @ParameterizedTest(name = "{0} owners")
+    @ValueSource(ints = {1, 40})
+    void statementCountDoesNotGrowWithTheData(int owners) {
+        seed(owners);
+
+        assertThat(statements(() -> snapshotHolder.rebuild())).isEqualTo(8);
+        assertThat(statements(() -> questionService.getTopNQuestionsByTag(10))).isEqualTo(1);
+        assertThat(statements(() -> questionService.streamTopNQuestionsByTag(10, row -> { }))).isEqualTo(1);
+        assertThat(statements(() -> questionService.getFrequencyOfTopic("java"))).isEqualTo(1);
+        assertThat(statements(() -> questionService.getFrequencyOfTopics(List.of("java", "Spring", "none")))).isEqualTo(1);
+        // Both engagement rankings read the snapshot
+        assertThat(statements(() -> questionService.getTopEngagementTag(10))).isZero();
+        assertThat(statements(() -> questionService.getTopEngagementTagByTopUser(10, 100))).isZero();
+        assertThat(statements(() -> questionService.ErrorAnalysis(10))).isEqualTo(1);
+        assertThat(statements(() -> questionService.getExceptionFrequency("nullpointerexception"))).isEqualTo(1);
+        assertThat(statements(() -> questionService.getFailingPackages(10, "org."))).isEqualTo(2);
+        assertThat(statements(() -> questionService.overallAnswerQuality(10))).isEqualTo(1);
+        assertThat(statements(() -> questionService.streamOverallAnswerQuality(10, row -> { }))).isEqualTo(1);
+        assertThat(statements(() -> questionService.getTagTrends("day", DAY, DAY.plusDays(7), null))).isEqualTo(1);
+        assertThat(statements(() -> questionService.getTagTrends("week", DAY, DAY.plusDays(7), List.of("java"))))
+                .isEqualTo(1);
+    }
+
+    @ParameterizedTest(name = "{0} owners")
+    @ValueSource(ints = {1, 40})
+    void resultsCoverTheWholeDataset(int owners) {
+        seed(owners);
+        snapshotHolder.rebuild();
+
+        // Each owner asks 3 questions, all tagged java, every other one spring too
+        assertThat(questionService.getFrequencyOfTopic("java")).isEqualTo(3L * owners);
+        assertThat(questionService.getTopEngagementTag(10)).hasSize(3);
+        assertThat(questionService.getExceptionFrequency("NullPointerException").frequency()).isEqualTo(3 * owners);
+        assertThat(questionService.getFailingPackages(10, "org.").packages()).singleElement()
+                .satisfies(row -> assertThat(row.frequency()).isEqualTo(3L * owners));
+        assertThat(questionService.overallAnswerQuality(1000)).hasSize(3 * owners);
+    }
+
+    private long statements(Runnable call) {
+        double before = registry.get("hibernate.statements.prepared").counter().count();
+        call.run();
+        return Math.round(registry.get("hibernate.statements.prepared").counter().count() - before);
+    }
+
+    private void seed(int owners) {
+        List<Tag> tags = new ArrayList<>();
+        for (String name : List.of("java", "spring", "jpa")) {
+            Tag tag = new Tag();
+            tag.setName(name);
+            tags.add(entityManager.persist(tag));
+        }
+        int exceptionId = exceptionScanner.idOf("NullPointerException");
+
+        for (int o = 0; o < owners; o++) {
+            Owner owner = new Owner();
+            owner.setAccountId((long) o);
+            owner.setReputation(50L * o);
+            entityManager.persist(owner);
+
+            for (int q = 0; q < 3; q++) {
+                Question question = new Question();
+                question.setOwner(owner);
+                question.setScore((long) q);
+                question.setViewCount(100L * o + q);
+                question.setAnswerCount((long) q);
+                question.setCreationDate(DAY.atStartOfDay());
+                Set<Tag> questionTags = new HashSet<>(List.of(tags.get(0), tags.get(1 + q % 2)));
+                question.setTags(questionTags);
+                entityManager.persist(question);
+
+                Answer answer = new Answer();
+                answer.setQuestion(question);
+                answer.setAnswerId((long) question.getId());
+                answer.setScore(q);
+                answer.setQualityScore(o + q / 10.0);
+                answer.setElapsedHours(1L);
+                answer.setCreatedDate(LocalDateTime.of(2024, 3, 5, 0, 0));
+                entityManager.persist(answer);
+
+                ExceptionMention mention = new ExceptionMention();
+                mention.setQuestionId(question.getId());
+                mention.setExceptionId(exceptionId);
+                mention.setMentionCount(1);
+                entityManager.persist(mention);
+
+                StackTraceCause cause = new StackTraceCause();
+                cause.setQuestionId(question.getId());
+                cause.setTrace(0);
+                cause.setPosition(0);
+                cause.setExceptionClass("java.lang.NullPointerException");
+                cause.setRootCause(true);
+                entityManager.persist(cause);
+
+                StackFrame frame = new StackFrame();
+                frame.setQuestionId(question.getId());
+                frame.setTrace(0);
+                frame.setCause(0);
+                frame.setPosition(0);
+                frame.setPackageName("org.example");
+                frame.setClassName("Service");
+                frame.setMethodName("run");
+                frame.setFailing(true);
+                entityManager.persist(frame);
+            }
+        }
+
+        for (Tag tag : tags) {
+            TagStats stats = new TagStats();
+            stats.setTagId(tag.getId());
+            stats.setQuestionCount((long) owners * tag.getId());
+            entityManager.persist(stats);
+
+            for (TrendGranularity granularity : TrendGranularity.values()) {
+                TagTrend trend = new TagTrend();
+                trend.setTagId(tag.getId());
+                trend.setGranularity(granularity);
+                trend.setBucketStart(granularity.bucketStart(DAY));
+                trend.setQuestionCount((long) owners);
+                trend.setScoreSum(1L);
+                trend.setViewSum(1L);
+                trend.setAnswerCountSum(1L);
+                trend.setReputationSum(1L);
+                entityManager.persist(trend);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,215 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.junit.jupiter.api.Test;
+import sustech.java2finalproject.feature.question.dto.TopEngagementResponse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static sustech.java2finalproject.feature.question.analysis.AnalyticsSnapshot.NULL;
+
+class EngagementEngineTest {
+
+    // Both sides round to 6 places, so they may land one unit apart
+    private static final double EPSILON = 1.5e-6;
+
+    private final EngagementEngine engine = new EngagementEngine();
+
+    @Test
+    void matchesTheBaselineFormulaOnAFixedFixture() {
+        // Owner 1 has no reputation, question 4 no owner, question 3 no score or view count
+        AnalyticsSnapshot snapshot = snapshot(
+                new long[]{10, NULL, 5000, 200},
+                new int[]{0, 0, 1, 2, -1, 3, 2},
+                new long[]{5, -2, NULL, 40, 7, 0, 13},
+                new long[]{100, 2500, NULL, 90_000, 10, 15, 640},
+                new long[]{1, 0, 3, 12, 2, 0, 5},
+                new int[][]{{0, 1}, {1}, {0, 2}, {2, 3}, {0}, {}, {1, 3}},
+                "java", "spring", "jpa", "hibernate");
+
+        assertMatchesBaseline(snapshot, owner -> true);
+        assertMatchesBaseline(snapshot, owner -> snapshot.ownerReputation()[owner] != NULL
+                && snapshot.ownerReputation()[owner] >= 200);
+    }
+
+    @Test
+    void aComponentWithZeroRangeAddsNothing() {
+        // Every answer count and reputation is the same
+        AnalyticsSnapshot snapshot = snapshot(
+                new long[]{50, 50},
+                new int[]{0, 1, 1},
+                new long[]{1, 3, 5},
+                new long[]{10, 20, 30},
+                new long[]{4, 4, 4},
+                new int[][]{{0}, {0, 1}, {1}},
+                "a", "b");
+
+        List<TopEngagementResponse> top = engine.topTags(snapshot, owner -> true, 10);
+
+        assertThat(top).extracting(TopEngagementResponse::name).containsExactly("b", "a");
+        // b: score (0.5 + 1) / 2 * 0.3 + view (0.5 + 1) / 2 * 0.3, a: (0 + 0.5) / 2 of the same
+        assertThat(top.get(0).avgEngagement()).isCloseTo(0.45, within(EPSILON));
+        assertThat(top.get(1).avgEngagement()).isCloseTo(0.15, within(EPSILON));
+        assertMatchesBaseline(snapshot, owner -> true);
+    }
+
+    @Test
+    void tiesAreOrderedByNameAndCutAtTopN() {
+        // Tags zeta, alpha and mid are on exactly the same questions, low only on the weakest one
+        AnalyticsSnapshot snapshot = snapshot(
+                new long[]{1, 100},
+                new int[]{0, 1, 1},
+                new long[]{0, 10, 4},
+                new long[]{0, 10, 8},
+                new long[]{0, 10, 1},
+                new int[][]{{0, 1, 2, 3}, {0, 1, 2}, {0, 1, 2}},
+                "zeta", "alpha", "mid", "low");
+
+        assertThat(engine.topTags(snapshot, owner -> true, 10))
+                .extracting(TopEngagementResponse::name).containsExactly("alpha", "mid", "zeta", "low");
+        assertThat(engine.topTags(snapshot, owner -> true, 2))
+                .extracting(TopEngagementResponse::name).containsExactly("alpha", "mid");
+        assertMatchesBaseline(snapshot, owner -> true);
+    }
+
+    @Test
+    void topNIsNotTrustedToSizeAnything() {
+        AnalyticsSnapshot snapshot = snapshot(
+                new long[]{1, 100},
+                new int[]{0, 1},
+                new long[]{0, 10},
+                new long[]{0, 10},
+                new long[]{0, 10},
+                new int[][]{{0}, {1}},
+                "low", "high");
+
+        assertThat(engine.topTags(snapshot, owner -> true, Integer.MAX_VALUE))
+                .extracting(TopEngagementResponse::name).containsExactly("high", "low");
+        assertThat(engine.topTags(snapshot, owner -> true, 1_000_000_000)).hasSize(2);
+        assertThat(engine.topTags(snapshot, owner -> true, 0)).isEmpty();
+        assertThat(engine.topTags(snapshot, owner -> true, -1)).isEmpty();
+    }
+
+    @Test
+    void matchesTheBaselineFormulaOnARandomFixture() {
+        Random random = new Random(42);
+        int owners = 300;
+        int questions = 5000;
+        int tags = 40;
+        long[] reputation = new long[owners];
+        for (int i = 0; i < owners; i++) {
+            reputation[i] = random.nextInt(20) == 0 ? NULL : random.nextInt(100_000);
+        }
+        int[] questionOwner = new int[questions];
+        long[] score = new long[questions];
+        long[] viewCount = new long[questions];
+        long[] answerCount = new long[questions];
+        int[][] questionTags = new int[questions][];
+        for (int i = 0; i < questions; i++) {
+            questionOwner[i] = random.nextInt(50) == 0 ? -1 : random.nextInt(owners);
+            score[i] = random.nextInt(30) == 0 ? NULL : random.nextInt(200) - 20;
+            viewCount[i] = random.nextInt(30) == 0 ? NULL : random.nextInt(1_000_000);
+            answerCount[i] = random.nextInt(30) == 0 ? NULL : random.nextInt(40);
+            questionTags[i] = random.ints(1 + random.nextInt(4), 0, tags).distinct().toArray();
+        }
+        String[] tagNames = new String[tags];
+        for (int i = 0; i < tags; i++) {
+            tagNames[i] = "tag-" + i;
+        }
+        AnalyticsSnapshot snapshot = snapshot(reputation, questionOwner, score, viewCount, answerCount, questionTags, tagNames);
+
+        assertMatchesBaseline(snapshot, owner -> true);
+        assertMatchesBaseline(snapshot, owner -> reputation[owner] != NULL && reputation[owner] >= 50_000);
+    }
+
+    private void assertMatchesBaseline(AnalyticsSnapshot snapshot, IntPredicate ownerFilter) {
+        Map<String, Double> expected = baseline(snapshot, ownerFilter);
+        List<TopEngagementResponse> actual = engine.topTags(snapshot, ownerFilter, snapshot.tagCount());
+
+        assertThat(actual).extracting(TopEngagementResponse::name).containsExactlyInAnyOrderElementsOf(expected.keySet());
+        for (TopEngagementResponse response : actual) {
+            assertThat(response.avgEngagement()).as(response.name())
+                    .isCloseTo(expected.get(response.name()), within(EPSILON));
+        }
+        // Ranked best first, ties by name
+        for (int i = 1; i < actual.size(); i++) {
+            TopEngagementResponse previous = actual.get(i - 1);
+            TopEngagementResponse current = actual.get(i);
+            int byValue = Double.compare(previous.avgEngagement(), current.avgEngagement());
+            assertThat(byValue > 0 || (byValue == 0 && previous.name().compareTo(current.name()) < 0))
+                    .as("%s before %s", previous, current).isTrue();
+        }
+    }
+
+    // The pre-snapshot formula: per question doubles summed per tag. A zero range normalizes to 0 rather than NaN.
+    private static Map<String, Double> baseline(AnalyticsSnapshot snapshot, IntPredicate ownerFilter) {
+        List<Integer> questions = new ArrayList<>();
+        for (int q = 0; q < snapshot.questionCount(); q++) {
+            int owner = snapshot.questionOwner()[q];
+            if (owner >= 0 && ownerFilter.test(owner)) {
+                questions.add(q);
+            }
+        }
+        if (questions.isEmpty()) {
+            return Map.of();
+        }
+        double[] score = bounds(questions.stream().mapToLong(q -> snapshot.questionScore()[q]).toArray());
+        double[] view = bounds(questions.stream().mapToLong(q -> snapshot.questionViewCount()[q]).toArray());
+        double[] answer = bounds(questions.stream().mapToLong(q -> snapshot.questionAnswerCount()[q]).toArray());
+        double[] reputation = bounds(IntStream.range(0, snapshot.ownerCount())
+                .filter(ownerFilter).mapToLong(owner -> snapshot.ownerReputation()[owner]).toArray());
+
+        Map<String, double[]> sums = new HashMap<>();
+        for (int q : questions) {
+            double engagement = normalize(snapshot.questionScore()[q], score) * EngagementEngine.SCORE_WEIGHT
+                    + normalize(snapshot.questionViewCount()[q], view) * EngagementEngine.VIEW_COUNT_WEIGHT
+                    + normalize(snapshot.questionAnswerCount()[q], answer) * EngagementEngine.ANSWER_COUNT_WEIGHT
+                    + normalize(snapshot.ownerReputation()[snapshot.questionOwner()[q]], reputation)
+                    * EngagementEngine.REPUTATION_WEIGHT;
+            for (int t = snapshot.questionTagOffsets()[q]; t < snapshot.questionTagOffsets()[q + 1]; t++) {
+                double[] sum = sums.computeIfAbsent(snapshot.tagNames()[snapshot.questionTags()[t]], name -> new double[2]);
+                sum[0] += engagement;
+                sum[1]++;
+            }
+        }
+        Map<String, Double> averages = new HashMap<>();
+        sums.forEach((name, sum) -> averages.put(name, Math.round(sum[0] / sum[1] * 1e6) / 1e6));
+        return averages;
+    }
+
+    // Missing values count as 0 for the bounds, like they always have
+    private static double[] bounds(long[] values) {
+        double[] bounds = {Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (long value : values) {
+            double v = value == NULL ? 0 : value;
+            bounds[0] = Math.min(bounds[0], v);
+            bounds[1] = Math.max(bounds[1], v);
+        }
+        return values.length == 0 ? new double[]{0, 1} : bounds;
+    }
+
+    private static double normalize(long value, double[] bounds) {
+        if (value == NULL || bounds[1] == bounds[0]) return 0;
+        return (value - bounds[0]) / (bounds[1] - bounds[0]);
+    }
+
+    private static AnalyticsSnapshot snapshot(long[] ownerReputation, int[] questionOwner, long[] score, long[] viewCount,
+                                              long[] answerCount, int[][] questionTags, String... tagNames) {
+        int[] offsets = new int[questionTags.length + 1];
+        for (int q = 0; q < questionTags.length; q++) {
+            offsets[q + 1] = offsets[q] + questionTags[q].length;
+        }
+        int[] tags = Arrays.stream(questionTags).flatMapToInt(Arrays::stream).toArray();
+        return new AnalyticsSnapshot(ownerReputation, questionOwner, score, viewCount, answerCount, offsets, tags,
+                tagNames, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,77 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExceptionScannerTest {
+
+    private final ExceptionScanner scanner = new ExceptionScanner();
+
+    @Test
+    void countsEveryLetterCaseAsTheSameName() {
+        assertThat(count("NullPointerException nullpointerexception NULLPOINTEREXCEPTION", "NullPointerException"))
+                .isEqualTo(3);
+        assertThat(scanner.idOf("  nullPointerException ")).isEqualTo(scanner.idOf("NullPointerException"));
+        assertThat(scanner.name(scanner.idOf("NULLPOINTEREXCEPTION"))).isEqualTo("NullPointerException");
+        assertThat(scanner.idOf("MyException")).isEqualTo(-1);
+    }
+
+    @Test
+    void countsOnlyWholeWords() {
+        assertThat(count("java.lang.NullPointerException: boom", "NullPointerException")).isEqualTo(1);
+        assertThat(count("(NullPointerException)", "NullPointerException")).isEqualTo(1);
+        assertThat(count("MyNullPointerException", "NullPointerException")).isZero();
+        assertThat(count("NullPointerExceptions", "NullPointerException")).isZero();
+        assertThat(count("NullPointerException2 _NullPointerException $NullPointerException", "NullPointerException"))
+                .isZero();
+        assertThat(count("NullPointerException", "NullPointerException")).isEqualTo(1);
+    }
+
+    @Test
+    void aLongerNameDoesNotAlsoCountTheNameItEndsWith() {
+        int[] counts = scanner.newCounts();
+        scanner.scan("ArrayIndexOutOfBoundsException and IndexOutOfBoundsException", counts);
+
+        assertThat(counts[scanner.idOf("ArrayIndexOutOfBoundsException")]).isEqualTo(1);
+        assertThat(counts[scanner.idOf("IndexOutOfBoundsException")]).isEqualTo(1);
+        assertThat(counts[scanner.idOf("StringIndexOutOfBoundsException")]).isZero();
+    }
+
+    @Test
+    void overlappingNamesAreEachCountedWhereTheyAreWholeWords() {
+        ExceptionScanner custom = new ExceptionScanner(new String[]{"Error", "InternalError", "Internal", "ErrorError"});
+        int[] counts = custom.newCounts();
+        custom.scan("InternalError, Error; Internal ErrorError internalerror", counts);
+
+        assertThat(counts).containsExactly(1, 2, 1, 1);
+    }
+
+    @Test
+    void nonLetterCharactersRestartTheMatch() {
+        assertThat(count("Null-PointerException NullPointer Exception", "NullPointerException")).isZero();
+    }
+
+    @Test
+    void countsAccumulateAcrossScansAndIgnoreNull() {
+        int[] counts = scanner.newCounts();
+        scanner.scan("OutOfMemoryError", counts);
+        scanner.scan(null, counts);
+        scanner.scan("outofmemoryerror", counts);
+
+        assertThat(counts[scanner.idOf("OutOfMemoryError")]).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsNamesThatAreNotAsciiLetters() {
+        assertThatThrownBy(() -> new ExceptionScanner(new String[]{"Foo2Exception"}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private int count(String text, String name) {
+        int[] counts = scanner.newCounts();
+        scanner.scan(text, counts);
+        return counts[scanner.idOf(name)];
+    }
+}
@@ -0,0 +1,208 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.junit.jupiter.api.Test;
+import sustech.java2finalproject.feature.question.analysis.StackTraceParser.Cause;
+import sustech.java2finalproject.feature.question.analysis.StackTraceParser.Frame;
+import sustech.java2finalproject.feature.question.analysis.StackTraceParser.StackTrace;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StackTraceParserTest {
+
+    private final StackTraceParser parser = new StackTraceParser();
+
+    @Test
+    void causedByContinuesTheTraceAndMoreEndsTheCause() {
+        List<StackTrace> traces = parser.parse("""
+                Exception in thread "main" java.lang.IllegalStateException: could not start
+                \tat com.example.App.run(App.java:10)
+                \tat com.example.App.main(App.java:5)
+                Caused by: java.lang.NullPointerException: config is null
+                \tat java.base/java.util.Objects.requireNonNull(Objects.java:233)
+                \tat com.example.Service.load(Service.java:42)
+                \t... 2 more
+                """);
+
+        assertThat(traces).hasSize(1);
+        List<Cause> causes = traces.get(0).causes();
+        assertThat(causes).extracting(Cause::exceptionClass)
+                .containsExactly("java.lang.IllegalStateException", "java.lang.NullPointerException");
+        assertThat(causes.get(0).frames()).containsExactly(
+                new Frame("com.example", "App", "run", 10),
+                new Frame("com.example", "App", "main", 5));
+        assertThat(causes.get(1).frames()).containsExactly(
+                new Frame("java.util", "Objects", "requireNonNull", 233),
+                new Frame("com.example", "Service", "load", 42));
+    }
+
+    @Test
+    void causeWithOnlyMoreHasNoFramesOfItsOwn() {
+        List<StackTrace> traces = parser.parse("""
+                java.lang.RuntimeException: wrapped
+                \tat com.example.Reader.read(Reader.java:8)
+                Caused by: java.io.IOException: disk full
+                \t... 1 more
+                """);
+
+        assertThat(traces).hasSize(1);
+        assertThat(traces.get(0).causes()).extracting(Cause::exceptionClass)
+                .containsExactly("java.lang.RuntimeException", "java.io.IOException");
+        assertThat(traces.get(0).causes().get(1).frames()).isEmpty();
+        // The root cause has no frames, blame moves out to the cause around it
+        assertThat(traces.get(0).failingCause()).isZero();
+        assertThat(traces.get(0).failingFrame()).isZero();
+    }
+
+    @Test
+    void suppressedSectionsAreSkipped() {
+        List<StackTrace> traces = parser.parse("""
+                java.lang.Exception: outer
+                \tat com.example.Main.main(Main.java:3)
+                \tSuppressed: java.lang.IllegalArgumentException: while closing
+                \t\tat com.example.Resource.close(Resource.java:9)
+                \t\t... 1 more
+                Caused by: java.lang.RuntimeException: inner
+                \tat com.example.Inner.go(Inner.java:7)
+                \t... 1 more
+                """);
+
+        assertThat(traces).hasSize(1);
+        List<Cause> causes = traces.get(0).causes();
+        assertThat(causes).extracting(Cause::exceptionClass)
+                .containsExactly("java.lang.Exception", "java.lang.RuntimeException");
+        assertThat(causes.get(0).frames()).extracting(Frame::className).containsExactly("Main");
+        assertThat(causes.get(1).frames()).extracting(Frame::className).containsExactly("Inner");
+    }
+
+    @Test
+    void moduleAndClassLoaderPrefixesAreDropped() {
+        List<StackTrace> traces = parser.parse("""
+                java.lang.IllegalStateException: boom
+                \tat app//com.example.Foo.bar(Foo.java:12)
+                \tat java.base@21.0.1/java.lang.Thread.run(Thread.java:1583)
+                \tat com.example.App$$Lambda/0x0000000800c03000.run(Unknown Source)
+                \tat java.base/jdk.internal.reflect.DirectMethodHandleAccessor.invoke(Native Method)
+                """);
+
+        assertThat(traces.get(0).causes().get(0).frames()).containsExactly(
+                new Frame("com.example", "Foo", "bar", 12),
+                new Frame("java.lang", "Thread", "run", 1583),
+                new Frame("com.example", "App$$Lambda/0x0000000800c03000", "run", null),
+                new Frame("jdk.internal.reflect", "DirectMethodHandleAccessor", "invoke", null));
+    }
+
+    @Test
+    void failingFrameIsTheFirstNonJdkFrameOfTheRootCause() {
+        StackTrace trace = parser.parse("""
+                java.lang.IllegalStateException: could not start
+                \tat com.example.App.run(App.java:10)
+                Caused by: java.lang.NullPointerException
+                \tat java.base/java.util.Objects.requireNonNull(Objects.java:233)
+                \tat com.example.Service.load(Service.java:42)
+                \t... 1 more
+                """).get(0);
+
+        assertThat(trace.failingCause()).isEqualTo(1);
+        assertThat(trace.failingFrame()).isEqualTo(1);
+    }
+
+    @Test
+    void failingFrameMovesOutwardWhenTheRootCauseIsAllJdk() {
+        StackTrace trace = parser.parse("""
+                java.lang.RuntimeException: bad input
+                \tat com.example.Main.main(Main.java:3)
+                Caused by: java.lang.NumberFormatException: For input string: "x"
+                \tat java.base/java.lang.NumberFormatException.forInputString(NumberFormatException.java:67)
+                \tat java.base/java.lang.Integer.parseInt(Integer.java:662)
+                \t... 1 more
+                """).get(0);
+
+        assertThat(trace.failingCause()).isZero();
+        assertThat(trace.failingFrame()).isZero();
+    }
+
+    @Test
+    void failingFrameIsTheTopOfTheInnermostCauseWhenEverythingIsJdk() {
+        StackTrace trace = parser.parse("""
+                java.lang.RuntimeException: wrapped
+                \tat java.base/java.lang.Thread.run(Thread.java:1583)
+                Caused by: java.lang.NumberFormatException: For input string: "x"
+                \tat java.base/java.lang.NumberFormatException.forInputString(NumberFormatException.java:67)
+                \tat java.base/java.lang.Integer.parseInt(Integer.java:662)
+                \t... 1 more
+                """).get(0);
+
+        assertThat(trace.failingCause()).isEqualTo(1);
+        assertThat(trace.failingFrame()).isZero();
+    }
+
+    @Test
+    void exceptionLineWithoutFramesIsJustText() {
+        assertThat(parser.parse("""
+                Look at this: java.lang.IllegalStateException: it happens at startup
+                java.lang.IllegalStateException: it happens at startup
+                and nothing else
+                """)).isEmpty();
+        assertThat(parser.parse(null)).isEmpty();
+    }
+
+    @Test
+    void multiLineMessagesAreBounded() {
+        String message = """
+                org.example.ParseException: line one
+                line two
+                line three
+                \tat org.example.Parser.parse(Parser.java:1)
+                """;
+        assertThat(parser.parse(message)).hasSize(1);
+
+        String tooLong = """
+                org.example.ParseException: line one
+                2
+                3
+                4
+                5
+                6
+                7
+                \tat org.example.Parser.parse(Parser.java:1)
+                """;
+        assertThat(parser.parse(tooLong)).isEmpty();
+    }
+
+    @Test
+    void separateTracesInOneBlockAreSplit() {
+        List<StackTrace> traces = parser.parse("""
+                java.lang.IllegalStateException: first
+                \tat com.example.A.a(A.java:1)
+                some log line in between
+                java.lang.IllegalArgumentException: second
+                \tat com.example.B.b(B.java:2)
+                """);
+
+        assertThat(traces).extracting(trace -> trace.causes().get(0).exceptionClass())
+                .containsExactly("java.lang.IllegalStateException", "java.lang.IllegalArgumentException");
+    }
+
+    @Test
+    void framesPerCauseAreBounded() {
+        StringBuilder code = new StringBuilder("java.lang.StackOverflowError\n");
+        for (int i = 0; i < StackTraceParser.MAX_FRAMES + 10; i++) {
+            code.append("\tat com.example.Recursive.call(Recursive.java:").append(i + 1).append(")\n");
+        }
+
+        List<StackTrace> traces = parser.parse(code.toString());
+
+        assertThat(traces.get(0).causes().get(0).frames()).hasSize(StackTraceParser.MAX_FRAMES);
+    }
+
+    @Test
+    void jdkPackagesAreRecognisedByPrefix() {
+        assertThat(StackTraceParser.isJdk("java.util")).isTrue();
+        assertThat(StackTraceParser.isJdk("jdk.internal.reflect")).isTrue();
+        assertThat(StackTraceParser.isJdk("com.sun.proxy")).isTrue();
+        assertThat(StackTraceParser.isJdk("com.example")).isFalse();
+        assertThat(StackTraceParser.isJdk("javafx.scene")).isFalse();
+    }
+}
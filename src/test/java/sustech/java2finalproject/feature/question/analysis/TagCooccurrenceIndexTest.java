@@ -0,0 +1,112 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import sustech.java2finalproject.feature.data.PreprocessedHtml;
+import sustech.java2finalproject.feature.data.SavedQuestion;
+import sustech.java2finalproject.feature.question.dto.RelatedTagResponse;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TagCooccurrenceIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TagCooccurrenceIndex index = new TagCooccurrenceIndex(jdbcTemplate);
+
+    @Test
+    void relatedTagsAreRankedBySharedQuestionsAndScoredWithLiftAndPmi() {
+        // Outside a transaction the questions are added straight away
+        index.onQuestionsSaved(List.of(
+                saved(1, "java", "spring"),
+                saved(2, "java", "Spring"),
+                saved(3, "java", "jpa"),
+                saved(4, "java", "hibernate"),
+                saved(5, "python")));
+
+        // 5 tagged questions, java on 4, spring on 2 of them together: lift = 2 * 5 / (4 * 2)
+        assertThat(index.related("Java", 2)).containsExactly(
+                new RelatedTagResponse("spring", 2, 1.25, 0.3219),
+                new RelatedTagResponse("hibernate", 1, 1.25, 0.3219));
+        assertThat(index.related("jpa", 10)).containsExactly(new RelatedTagResponse("java", 1, 1.25, 0.3219));
+        assertThat(index.related("python", 10)).isEmpty();
+        assertThat(index.related("kotlin", 10)).isEmpty();
+        assertThat(index.related("java", 0)).isEmpty();
+    }
+
+    @Test
+    void liftBelowOneGivesANegativePmi() {
+        index.onQuestionsSaved(List.of(
+                saved(1, "java", "spring"),
+                saved(2, "java"),
+                saved(3, "spring"),
+                saved(4, "java"),
+                saved(5, "spring")));
+
+        // 1 * 5 / (3 * 3)
+        assertThat(index.related("java", 1)).containsExactly(new RelatedTagResponse("spring", 1, 0.5556, -0.848));
+    }
+
+    @Test
+    void rebuildReadsWithoutTheLockAndKeepsQuestionsSavedMeanwhile() throws Exception {
+        index.onQuestionsSaved(List.of(saved(99, "stale", "java")));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(1, "java"));
+            handler.processRow(row(1, "spring"));
+            // Another thread searches and commits while the links are read
+            CompletableFuture<List<RelatedTagResponse>> search = CompletableFuture.supplyAsync(() -> {
+                index.onQuestionsSaved(List.of(saved(1, "java", "spring"), saved(2, "java", "spring")));
+                return index.related("stale", 10);
+            });
+            assertThat(search.get(5, TimeUnit.SECONDS)).extracting(RelatedTagResponse::name).containsExactly("java");
+            handler.processRow(row(3, "java"));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        index.rebuild();
+
+        // Question 1 was read by the query too and counts once, question 2 only came in while it ran
+        assertThat(index.related("java", 10)).containsExactly(new RelatedTagResponse("spring", 2, 1.0, 0.0));
+        assertThat(index.related("stale", 10)).isEmpty();
+    }
+
+    @Test
+    void failedRebuildKeepsTheCurrentMatrix() {
+        index.onQuestionsSaved(List.of(saved(1, "java", "spring")));
+        doAnswer(invocation -> {
+            throw new IllegalStateException("connection lost");
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        assertThatThrownBy(index::rebuild).isInstanceOf(IllegalStateException.class);
+        index.onQuestionsSaved(List.of(saved(2, "java", "spring")));
+
+        assertThat(index.related("java", 10)).extracting(RelatedTagResponse::questions).containsExactly(2);
+    }
+
+    private static SavedQuestion saved(int id, String... tags) {
+        StackExchangeResponse.QuestionItem item = new StackExchangeResponse.QuestionItem();
+        item.setTags(new ArrayList<>(List.of(tags)));
+        return new SavedQuestion(id, item, List.of(), PreprocessedHtml.EMPTY);
+    }
+
+    private static ResultSet row(int questionId, String tag) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(questionId);
+        when(rs.getString(2)).thenReturn(tag);
+        return rs;
+    }
+}
@@ -0,0 +1,101 @@
+package sustech.java2finalproject.feature.question.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TagCooccurrenceTest {
+
+    private final TagCooccurrence matrix = new TagCooccurrence();
+
+    @Test
+    void internIgnoresLetterCaseAndKeepsTheFirstSpelling() {
+        int java = matrix.intern("Java");
+
+        assertThat(matrix.intern("java")).isEqualTo(java);
+        assertThat(matrix.idOf("JAVA")).isEqualTo(java);
+        assertThat(matrix.name(java)).isEqualTo("Java");
+        assertThat(matrix.idOf("kotlin")).isEqualTo(-1);
+    }
+
+    @Test
+    void tagsGrowPastTheInitialCapacity() {
+        for (int i = 0; i < 200; i++) {
+            assertThat(matrix.intern("tag-" + i)).isEqualTo(i);
+        }
+        matrix.addQuestion(new int[]{0, 199});
+
+        assertThat(matrix.tagCount()).isEqualTo(200);
+        assertThat(count(199, 0)).isEqualTo(1);
+        assertThat(matrix.questionCount(199)).isEqualTo(1);
+    }
+
+    @Test
+    void pairCountsAreSymmetric() {
+        int java = matrix.intern("java");
+        int spring = matrix.intern("spring");
+        int jpa = matrix.intern("jpa");
+        matrix.addQuestion(new int[]{java, spring, jpa});
+        matrix.addQuestion(new int[]{spring, java});
+
+        assertThat(count(java, spring)).isEqualTo(2).isEqualTo(count(spring, java));
+        assertThat(count(java, jpa)).isEqualTo(1).isEqualTo(count(jpa, java));
+        assertThat(count(spring, jpa)).isEqualTo(1).isEqualTo(count(jpa, spring));
+        assertThat(matrix.questionCount(java)).isEqualTo(2);
+        assertThat(matrix.questionCount(jpa)).isEqualTo(1);
+        assertThat(matrix.questionCount()).isEqualTo(2);
+        assertThat(matrix.pairCount()).isEqualTo(3);
+    }
+
+    @Test
+    void duplicateTagsOnAQuestionAreCountedOnce() {
+        int java = matrix.intern("java");
+        int spring = matrix.intern("spring");
+        matrix.addQuestion(new int[]{java, java, spring, spring});
+
+        assertThat(matrix.questionCount(java)).isEqualTo(1);
+        assertThat(count(java, spring)).isEqualTo(1);
+        assertThat(count(java, java)).isZero();
+        assertThat(matrix.row(java).size()).isEqualTo(1);
+        assertThat(matrix.pairCount()).isEqualTo(1);
+    }
+
+    @Test
+    void questionsWithoutTagsAreNotCounted() {
+        matrix.addQuestion(new int[0]);
+
+        assertThat(matrix.questionCount()).isZero();
+    }
+
+    @Test
+    void intCountsGrowAndKeepEveryCount() {
+        TagCooccurrence.IntCounts counts = new TagCooccurrence.IntCounts();
+        for (int key = 0; key < 1000; key++) {
+            for (int i = 0; i <= key % 3; i++) {
+                assertThat(counts.increment(key)).isEqualTo(i + 1);
+            }
+        }
+
+        assertThat(counts.size()).isEqualTo(1000);
+        assertThat(counts.capacity()).isGreaterThanOrEqualTo(1000 * 4 / 3);
+        assertThat(Integer.bitCount(counts.capacity())).as("capacity is a power of two").isEqualTo(1);
+        int[] seen = new int[1000];
+        for (int slot = 0; slot < counts.capacity(); slot++) {
+            if (counts.key(slot) < 0) continue;
+            seen[counts.key(slot)] = counts.count(slot);
+        }
+        for (int key = 0; key < 1000; key++) {
+            assertThat(seen[key]).as("count of %d", key).isEqualTo(key % 3 + 1);
+        }
+    }
+
+    private int count(int tag, int other) {
+        TagCooccurrence.IntCounts row = matrix.row(tag);
+        for (int slot = 0; slot < row.capacity(); slot++) {
+            if (row.key(slot) == other) {
+                return row.count(slot);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,135 @@
+package sustech.java2finalproject.feature.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvertedIndexTest {
+
+    @Test
+    void ranksByBm25() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, 101L, "hibernate mapping", "hibernate hibernate session", List.of());
+        index.add(2, 102L, "hibernate", "a much longer body that mentions the framework only in passing here", List.of());
+        index.add(3, 103L, "spring", "nothing about the orm", List.of());
+        index.add(4, 104L, "lazy loading", "hibernate lazy loading fails outside a session", List.of());
+
+        // More occurrences in a short document first, a long document with one occurrence last
+        assertThat(ids(index, "hibernate")).containsExactly(1, 4, 2);
+        // Every hit must have all the terms
+        assertThat(ids(index, "hibernate lazy")).containsExactly(4);
+        assertThat(ids(index, "hibernate session")).containsExactly(1, 4);
+    }
+
+    @Test
+    void equalScoresAreOrderedByQuestionIdAndCutAtTheLimit() {
+        InvertedIndex index = new InvertedIndex();
+        for (int id = 5; id >= 1; id--) {
+            index.add(id, null, "stream", "collectors", List.of());
+        }
+        int[] total = new int[1];
+
+        List<InvertedIndex.Hit> hits = index.search(SearchQuery.parse("stream"), 3, total);
+
+        assertThat(hits).extracting(InvertedIndex.Hit::questionId).containsExactly(1, 2, 3);
+        assertThat(total[0]).isEqualTo(5);
+    }
+
+    @Test
+    void aHugeLimitReturnsEveryMatch() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, null, "stream", "collectors", List.of());
+        index.add(2, null, "stream", "map", List.of());
+
+        assertThat(index.search(SearchQuery.parse("stream"), Integer.MAX_VALUE, new int[1])).hasSize(2);
+        assertThat(index.search(SearchQuery.parse("stream collectors"), 1_000_000_000, new int[1])).hasSize(1);
+    }
+
+    @Test
+    void phrasesNeedConsecutivePositions() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, null, "null pointer exception", "", List.of());
+        index.add(2, null, "pointer null", "null is not a pointer", List.of());
+        index.add(3, null, "why", "the null pointer again, and a null pointer", List.of());
+
+        assertThat(ids(index, "\"null pointer\"")).containsExactlyInAnyOrder(1, 3);
+        assertThat(ids(index, "\"pointer null\"")).containsExactly(2);
+        assertThat(ids(index, "\"null pointer exception\"")).containsExactly(1);
+    }
+
+    @Test
+    void phrasesDoNotSpanTitleAndBody() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, null, "spring", "boot starter", List.of());
+        index.add(2, null, "question", "spring boot starter", List.of());
+
+        assertThat(ids(index, "\"spring boot\"")).containsExactly(2);
+        assertThat(ids(index, "spring boot")).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void tagsFilterWithoutScoring() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, null, "maven build", "", List.of("Maven", "java"));
+        index.add(2, null, "gradle build", "", List.of("gradle"));
+
+        assertThat(ids(index, "build tag:maven")).containsExactly(1);
+        assertThat(ids(index, "tag:GRADLE")).containsExactly(2);
+        assertThat(ids(index, "build tag:ant")).isEmpty();
+    }
+
+    @Test
+    void addingAQuestionAgainReplacesIt() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, null, "old title", "", List.of());
+        index.add(1, null, "new title", "", List.of());
+
+        assertThat(index.liveDocs()).isEqualTo(1);
+        assertThat(index.contains(1)).isTrue();
+        assertThat(ids(index, "old")).isEmpty();
+        assertThat(ids(index, "new")).containsExactly(1);
+    }
+
+    @Test
+    void survivesWriteAndRead() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, 11L, "null pointer", "in the service", List.of("java"));
+        index.add(2, 12L, "class cast", "null check first", List.of("java", "generics"));
+        index.add(2, 12L, "class cast exception", "null check first", List.of("java", "generics"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+
+        InvertedIndex read = InvertedIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read.liveDocs()).isEqualTo(2);
+        assertThat(read.terms()).isEqualTo(index.terms());
+        for (String query : List.of("null", "\"null pointer\"", "tag:generics", "cast")) {
+            assertThat(read.search(SearchQuery.parse(query), 10, new int[1]))
+                    .isEqualTo(index.search(SearchQuery.parse(query), 10, new int[1]));
+        }
+        assertThat(read.search(SearchQuery.parse("null"), 10, new int[1]))
+                .extracting(InvertedIndex.Hit::questionStackId).containsExactlyInAnyOrder(11L, 12L);
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        byte[] garbage = {1, 2, 3, 4, 5, 6, 7, 8};
+
+        assertThatThrownBy(() -> InvertedIndex.read(new DataInputStream(new ByteArrayInputStream(garbage))))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static List<Integer> ids(InvertedIndex index, String query) {
+        return index.search(SearchQuery.parse(query), 10, new int[1]).stream()
+                .map(InvertedIndex.Hit::questionId)
+                .toList();
+    }
+}
@@ -0,0 +1,104 @@
+package sustech.java2finalproject.feature.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostingsTest {
+
+    // Gaps around every varint length boundary, from one byte up to five
+    private static final int[] DOCS = {0, 1, 128, 129, 16_512, 2_113_664, 270_549_120, Integer.MAX_VALUE - 1};
+
+    @Test
+    void varintsRoundTripAcrossByteBoundaries() {
+        Postings postings = postings();
+
+        Postings.Cursor cursor = postings.cursor();
+        for (int doc : DOCS) {
+            assertThat(cursor.next()).isEqualTo(doc);
+            assertThat(cursor.freq()).isEqualTo(positions(doc).length);
+            assertThat(Arrays.copyOf(cursor.positions(), cursor.freq())).containsExactly(positions(doc));
+        }
+        assertThat(cursor.next()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(postings.docFreq()).isEqualTo(DOCS.length);
+    }
+
+    @Test
+    void advanceStopsAtTheFirstDocumentAtOrAfterTheTarget() {
+        Postings.Cursor cursor = postings().cursor();
+
+        assertThat(cursor.advance(2)).isEqualTo(128);
+        assertThat(cursor.advance(128)).isEqualTo(128);
+        assertThat(cursor.advance(16_513)).isEqualTo(2_113_664);
+        assertThat(cursor.advance(Integer.MAX_VALUE - 1)).isEqualTo(Integer.MAX_VALUE - 1);
+        assertThat(cursor.advance(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void survivesWriteAndRead() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        postings().write(new DataOutputStream(bytes));
+
+        Postings read = Postings.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read.docFreq()).isEqualTo(DOCS.length);
+        assertThat(read.sizeInBytes()).isEqualTo(postings().sizeInBytes());
+        Postings.Cursor cursor = read.cursor();
+        for (int doc : DOCS) {
+            assertThat(cursor.next()).isEqualTo(doc);
+            assertThat(Arrays.copyOf(cursor.positions(), cursor.freq())).containsExactly(positions(doc));
+        }
+        // Still appendable after the last document it was read with
+        read.add(Integer.MAX_VALUE, new int[]{3}, 1);
+        assertThat(read.docFreq()).isEqualTo(DOCS.length + 1);
+    }
+
+    @Test
+    void rejectsDocumentsOutOfOrder() {
+        Postings postings = new Postings();
+        postings.add(5, new int[]{0}, 1);
+
+        assertThatThrownBy(() -> postings.add(5, new int[]{0}, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> postings.add(4, new int[]{0}, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void aCursorOnlySeesTheDocumentsAddedBeforeIt() {
+        Postings postings = new Postings();
+        postings.add(1, new int[]{0}, 1);
+        Postings.Cursor cursor = postings.cursor();
+        postings.add(2, new int[]{0}, 1);
+
+        assertThat(cursor.next()).isEqualTo(1);
+        assertThat(cursor.next()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    private static Postings postings() {
+        Postings postings = new Postings();
+        for (int doc : DOCS) {
+            int[] positions = positions(doc);
+            postings.add(doc, positions, positions.length);
+        }
+        return postings;
+    }
+
+    // Increasing positions with gaps that also cross the boundaries
+    private static int[] positions(int doc) {
+        int count = 1 + doc % 5;
+        int[] positions = new int[count];
+        int position = doc % 3;
+        for (int i = 0; i < count; i++) {
+            positions[i] = position;
+            position += 1 << (7 * i);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,68 @@
+package sustech.java2finalproject.feature.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sustech.java2finalproject.feature.data.DatasetChangedEvent;
+import sustech.java2finalproject.feature.data.HtmlPreprocessor;
+import sustech.java2finalproject.feature.data.PreprocessedHtml;
+import sustech.java2finalproject.feature.data.SavedQuestion;
+import sustech.java2finalproject.init.StackExchangeResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final HtmlPreprocessor htmlPreprocessor = mock(HtmlPreprocessor.class);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesTheIndexAfterIngestionAndLoadsItAtStartup() {
+        Path file = directory.resolve("search-index.bin");
+        SearchIndex written = new SearchIndex(jdbcTemplate, htmlPreprocessor, file.toString(), 500);
+        written.onQuestionsSaved(List.of(saved(1, "NullPointerException in a stream", "calling map on a null list")));
+
+        written.onDatasetChanged(new DatasetChangedEvent("test"));
+
+        assertThat(file).exists();
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        SearchIndex loaded = new SearchIndex(jdbcTemplate, htmlPreprocessor, file.toString(), 500);
+        loaded.loadOrRebuild();
+        assertThat(loaded.search("stream", 10).total()).isEqualTo(1);
+    }
+
+    @Test
+    void aFailedWriteIsRetriedOnTheNextChange() throws Exception {
+        // The parent directory cannot be created while a file stands in its place
+        Path parent = directory.resolve("index");
+        Files.writeString(parent, "not a directory");
+        Path file = parent.resolve("search-index.bin");
+        SearchIndex index = new SearchIndex(jdbcTemplate, htmlPreprocessor, file.toString(), 500);
+        index.onQuestionsSaved(List.of(saved(1, "stream", "collectors")));
+
+        index.onDatasetChanged(new DatasetChangedEvent("test"));
+        Files.delete(parent);
+        Files.createDirectory(parent);
+        index.onDatasetChanged(new DatasetChangedEvent("test"));
+
+        assertThat(file).exists();
+    }
+
+    private static SavedQuestion saved(int id, String title, String text) {
+        StackExchangeResponse.QuestionItem item = new StackExchangeResponse.QuestionItem();
+        item.setQuestionId((long) id);
+        item.setTitle(title);
+        return new SavedQuestion(id, item, List.of(), new PreprocessedHtml(text, List.of()));
+    }
+}